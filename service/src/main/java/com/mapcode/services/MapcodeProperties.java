@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * This class holds the properties to tune the mapcode service. The values are read from the
+ * file "mapcode-tuning.properties" on the classpath. These properties cannot be specified in
+ * "mapcode.properties", because SpeedTools only accepts properties it knows of in there.
+ */
+public final class MapcodeProperties {
+    private static final Logger LOG = LoggerFactory.getLogger(MapcodeProperties.class);
+
+    /**
+     * Default name of the properties file.
+     */
+    public static final String RESOURCE_NAME = "mapcode-tuning.properties";
+
+    private static final String KEY_ENCODE_CACHE_MAX_SIZE = "Mapcode.encodeCacheMaxSize";
+    private static final String KEY_ENCODE_CACHE_GRID_DEG = "Mapcode.encodeCacheGridDeg";
+    private static final String KEY_DECODE_CACHE_MAX_SIZE = "Mapcode.decodeCacheMaxSize";
+    private static final String KEY_CACHE_CONCURRENCY_LEVEL = "Mapcode.cacheConcurrencyLevel";
+    private static final String KEY_BATCH_MAX_SIZE = "Mapcode.batchMaxSize";
+    private static final String KEY_BATCH_PARALLELISM = "Mapcode.batchParallelism";
+    private static final String KEY_CACHE_MAX_AGE_SECS = "Mapcode.cacheMaxAgeSecs";
+    private static final String KEY_RESPONSE_CACHE_MAX_BYTES = "Mapcode.responseCacheMaxBytes";
+    private static final String KEY_RESPONSE_CACHE_ROUTES = "Mapcode.responseCacheRoutes";
+
+    private static final int DEFAULT_ENCODE_CACHE_MAX_SIZE = 100000;
+    private static final double DEFAULT_ENCODE_CACHE_GRID_DEG = 0.0;
+    private static final int DEFAULT_DECODE_CACHE_MAX_SIZE = 100000;
+    private static final int DEFAULT_CACHE_CONCURRENCY_LEVEL = 16;
+    private static final int DEFAULT_BATCH_MAX_SIZE = 10000;
+    private static final int DEFAULT_BATCH_PARALLELISM = 0;
+    private static final int DEFAULT_CACHE_MAX_AGE_SECS = 86400;
+    private static final int DEFAULT_RESPONSE_CACHE_MAX_BYTES = 64 * 1024 * 1024;
+    private static final String DEFAULT_RESPONSE_CACHE_ROUTES = "codes, coords";
+
+    /**
+     * Routes of which GET responses can be cached by the response cache.
+     */
+    public static final Set<String> RESPONSE_CACHE_ROUTES = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList("codes", "coords", "territories", "alphabets")));
+
+    /**
+     * Maximum number of cached lat/lon to mapcode responses. Use 0 to disable the cache.
+     */
+    private final int encodeCacheMaxSize;
+
+    /**
+     * Grid size (in degrees) of the lat/lons of the cache keys. Lat/lons in the same grid cell share the
+     * cached response of the first lat/lon encoded in that cell (except responses with an offset, which are
+     * only cached for exact lat/lons). Use 0 to cache exact lat/lons only.
+     */
+    private final double encodeCacheGridDeg;
+
+    /**
+     * Maximum number of cached mapcode to lat/lon responses, including unknown mapcodes.
+     * Use 0 to disable the cache.
+     */
+    private final int decodeCacheMaxSize;
+
+    /**
+     * Number of independently locked segments of the caches (roughly the number of
+     * concurrently updating threads).
+     */
+    private final int cacheConcurrencyLevel;
+
+    /**
+     * Maximum number of requests in a single batch request.
+     */
+    private final int batchMaxSize;
+
+    /**
+     * Number of threads that convert the requests of a batch in parallel. Use 0 for the number of
+     * available processors.
+     */
+    private final int batchParallelism;
+
+    /**
+     * Number of seconds clients and proxies may cache a response (the max-age of the Cache-Control header).
+     */
+    private final int cacheMaxAgeSecs;
+
+    /**
+     * Maximum total size (in bytes) of the serialized responses in the response cache. Use 0 to disable the cache.
+     */
+    private final int responseCacheMaxBytes;
+
+    /**
+     * Routes (see {@link #RESPONSE_CACHE_ROUTES}) of which the responses are cached by the response cache.
+     */
+    @Nonnull
+    private final Set<String> responseCacheRoutes;
+
+    public MapcodeProperties(
+            final int encodeCacheMaxSize,
+            final double encodeCacheGridDeg,
+            final int decodeCacheMaxSize,
+            final int cacheConcurrencyLevel,
+            final int batchMaxSize,
+            final int batchParallelism,
+            final int cacheMaxAgeSecs,
+            final int responseCacheMaxBytes,
+            @Nonnull final Set<String> responseCacheRoutes) {
+        assert responseCacheRoutes != null;
+        if ((encodeCacheMaxSize < 0) || (encodeCacheGridDeg < 0.0) || (decodeCacheMaxSize < 0) || (cacheConcurrencyLevel < 1) ||
+                (batchMaxSize < 1) || (batchParallelism < 0) ||
+                (cacheMaxAgeSecs < 0) || (responseCacheMaxBytes < 0) || !RESPONSE_CACHE_ROUTES.containsAll(responseCacheRoutes)) {
+            throw new IllegalArgumentException("Invalid mapcode properties: " + KEY_ENCODE_CACHE_MAX_SIZE + '=' + encodeCacheMaxSize +
+                    ", " + KEY_ENCODE_CACHE_GRID_DEG + '=' + encodeCacheGridDeg + ", " + KEY_DECODE_CACHE_MAX_SIZE + '=' + decodeCacheMaxSize +
+                    ", " + KEY_CACHE_CONCURRENCY_LEVEL + '=' + cacheConcurrencyLevel + ", " + KEY_BATCH_MAX_SIZE + '=' + batchMaxSize + ", " + KEY_BATCH_PARALLELISM + '=' + batchParallelism +
+                    ", " + KEY_CACHE_MAX_AGE_SECS + '=' + cacheMaxAgeSecs +
+                    ", " + KEY_RESPONSE_CACHE_MAX_BYTES + '=' + responseCacheMaxBytes + ", " + KEY_RESPONSE_CACHE_ROUTES + '=' + responseCacheRoutes);
+        }
+        this.encodeCacheMaxSize = encodeCacheMaxSize;
+        this.encodeCacheGridDeg = encodeCacheGridDeg;
+        this.decodeCacheMaxSize = decodeCacheMaxSize;
+        this.cacheConcurrencyLevel = cacheConcurrencyLevel;
+        this.batchMaxSize = batchMaxSize;
+        this.batchParallelism = batchParallelism;
+        this.cacheMaxAgeSecs = cacheMaxAgeSecs;
+        this.responseCacheMaxBytes = responseCacheMaxBytes;
+        this.responseCacheRoutes = Collections.unmodifiableSet(new LinkedHashSet<>(responseCacheRoutes));
+    }
+
+    /**
+     * Read the properties from a properties file on the classpath. Properties that are missing
+     * (or a missing file) get their default values.
+     *
+     * @param resourceName Name of properties file on the classpath.
+     * @return Properties.
+     * @throws IllegalArgumentException If a property value is invalid.
+     */
+    @Nonnull
+    public static MapcodeProperties load(@Nonnull final String resourceName) {
+        assert resourceName != null;
+        final Properties properties = new Properties();
+        try (final InputStream inputStream = MapcodeProperties.class.getClassLoader().getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                LOG.warn("load: Properties file {} not found, using defaults", resourceName);
+            } else {
+                properties.load(inputStream);
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Cannot read properties file " + resourceName, e);
+        }
+        final MapcodeProperties mapcodeProperties = new MapcodeProperties(
+                getInt(properties, KEY_ENCODE_CACHE_MAX_SIZE, DEFAULT_ENCODE_CACHE_MAX_SIZE),
+                getDouble(properties, KEY_ENCODE_CACHE_GRID_DEG, DEFAULT_ENCODE_CACHE_GRID_DEG),
+                getInt(properties, KEY_DECODE_CACHE_MAX_SIZE, DEFAULT_DECODE_CACHE_MAX_SIZE),
+                getInt(properties, KEY_CACHE_CONCURRENCY_LEVEL, DEFAULT_CACHE_CONCURRENCY_LEVEL),
+                getInt(properties, KEY_BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE),
+                getInt(properties, KEY_BATCH_PARALLELISM, DEFAULT_BATCH_PARALLELISM),
+                getInt(properties, KEY_CACHE_MAX_AGE_SECS, DEFAULT_CACHE_MAX_AGE_SECS),
+                getInt(properties, KEY_RESPONSE_CACHE_MAX_BYTES, DEFAULT_RESPONSE_CACHE_MAX_BYTES),
+                getSet(properties, KEY_RESPONSE_CACHE_ROUTES, DEFAULT_RESPONSE_CACHE_ROUTES));
+        LOG.info("load: {}", mapcodeProperties);
+        return mapcodeProperties;
+    }
+
+    public int getEncodeCacheMaxSize() {
+        return encodeCacheMaxSize;
+    }
+
+    public double getEncodeCacheGridDeg() {
+        return encodeCacheGridDeg;
+    }
+
+    public int getDecodeCacheMaxSize() {
+        return decodeCacheMaxSize;
+    }
+
+    public int getCacheConcurrencyLevel() {
+        return cacheConcurrencyLevel;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public int getCacheMaxAgeSecs() {
+        return cacheMaxAgeSecs;
+    }
+
+    public int getResponseCacheMaxBytes() {
+        return responseCacheMaxBytes;
+    }
+
+    @Nonnull
+    public Set<String> getResponseCacheRoutes() {
+        return responseCacheRoutes;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "MapcodeProperties[" + KEY_ENCODE_CACHE_MAX_SIZE + '=' + encodeCacheMaxSize + ", " +
+                KEY_ENCODE_CACHE_GRID_DEG + '=' + encodeCacheGridDeg + ", " +
+                KEY_DECODE_CACHE_MAX_SIZE + '=' + decodeCacheMaxSize + ", " +
+                KEY_CACHE_CONCURRENCY_LEVEL + '=' + cacheConcurrencyLevel + ", " +
+                KEY_BATCH_MAX_SIZE + '=' + batchMaxSize + ", " +
+                KEY_BATCH_PARALLELISM + '=' + batchParallelism + ", " +
+                KEY_CACHE_MAX_AGE_SECS + '=' + cacheMaxAgeSecs + ", " +
+                KEY_RESPONSE_CACHE_MAX_BYTES + '=' + responseCacheMaxBytes + ", " +
+                KEY_RESPONSE_CACHE_ROUTES + '=' + responseCacheRoutes + ']';
+    }
+
+    private static int getInt(@Nonnull final Properties properties, @Nonnull final String key, final int defaultValue) {
+        final String value = properties.getProperty(key);
+        try {
+            return (value == null) ? defaultValue : Integer.parseInt(value.trim());
+        } catch (final NumberFormatException ignored) {
+            throw new IllegalArgumentException("Property " + key + " must be an integer, but is: " + value);
+        }
+    }
+
+    private static double getDouble(@Nonnull final Properties properties, @Nonnull final String key, final double defaultValue) {
+        final String value = properties.getProperty(key);
+        try {
+            return (value == null) ? defaultValue : Double.parseDouble(value.trim());
+        } catch (final NumberFormatException ignored) {
+            throw new IllegalArgumentException("Property " + key + " must be a number, but is: " + value);
+        }
+    }
+
+    @Nonnull
+    private static Set<String> getSet(@Nonnull final Properties properties, @Nonnull final String key, @Nonnull final String defaultValue) {
+        final Set<String> values = new LinkedHashSet<>();
+        for (final String value : properties.getProperty(key, defaultValue).split(",")) {
+            final String trimmed = value.trim();
+            if (!trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+        return values;
+    }
+}
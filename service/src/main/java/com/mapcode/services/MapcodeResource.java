@@ -26,6 +26,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import java.io.InputStream;
 
 /**
  * This class handle the Mapcode REST API, which includes conversions to and from mapcodes.
@@ -61,17 +62,45 @@ public interface MapcodeResource {
     static final String PARAM_TYPE = "type";
     static final String PARAM_MAPCODE = "mapcode";
     static final String PARAM_INCLUDE = "include";
+    static final String PARAM_FIELDS = "fields";
     static final String PARAM_COUNT = "count";
     static final String PARAM_OFFSET = "offset";
     static final String PARAM_ALLOW_LOG = "allowLog";
     static final String PARAM_CLIENT = "client";
+    static final String PARAM_COLUMNS = "columns";
 
+    /**
+     * Newline-delimited JSON (http://ndjson.org), used to stream requests and responses.
+     */
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Comma-separated values (RFC 4180), with a header row.
+     */
+    static final String TEXT_CSV = "text/csv";
+
+    /**
+     * Concise Binary Object Representation (RFC 8949), with the same structure as the JSON responses.
+     */
+    static final String APPLICATION_CBOR = "application/cbor";
+
+    /**
+     * Smile (binary JSON of Jackson), with the same structure as the JSON responses.
+     */
+    static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    /**
+     * MessagePack (https://msgpack.org), with the same structure as the JSON responses.
+     */
+    static final String APPLICATION_MSGPACK = "application/msgpack";
+
+    static final String DEFAULT_PRECISION = "0";
     static final String DEFAULT_OFFSET = "0";
     static final String DEFAULT_COUNT = "1000";
 
     // Unsupported operation.
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("codes")
     void convertLatLonToMapcode(
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
@@ -91,6 +120,8 @@ public interface MapcodeResource {
      * @param paramAlphabet          Alphabet. Range: any valid alphabet code, alpha or numeric.
      * @param paramInclude           Specifies whether to include the offset (in meters) from the mapcode center to the specified lat/lon.
      *                               Range: {@link ParamInclude}.
+     * @param paramFields            Comma-separated list of the fields to return, like "international.mapcode,local".
+     *                               Omitted fields are not computed. Default: all fields.
      * @param paramClient            Indicator of calling client (for stats).
      * @param paramContextMustBeNull Must not be used (added to allow check for incorrect usage).
      * @param paramAllowLog          True if logging of data for improving the service is allowed. Default is true.
@@ -106,7 +137,7 @@ public interface MapcodeResource {
             @ApiResponse(code = 400, message = "Bad request. For example, a parameter may be out of range."),
             @ApiResponse(code = 404, message = "Coordinate does not exist.")})
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("codes/{" + PARAM_LAT_DEG + "},{" + PARAM_LON_DEG + '}')
     void convertLatLonToMapcode(
             @ApiParam(
@@ -149,6 +180,12 @@ public interface MapcodeResource {
                             "`territoryInAlphabet` attributes, even for Roman; `rectangle` to include " +
                             "the geospatial area covered by a mapcode.")
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @ApiParam(
+                    value = "(optional) Return only these fields of the response, like `international.mapcode,local`. " +
+                            "A field is `local`, `international` or `mapcodes`, optionally followed by a field of " +
+                            "a mapcode, such as `.mapcode` or `.territory`. Fields which are not returned are not " +
+                            "computed either, so `fields=international` is much faster than returning all mapcodes.")
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
             @ApiParam(hidden = true)
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
             @ApiParam(hidden = true)
@@ -173,6 +210,8 @@ public interface MapcodeResource {
      * @param paramInclude           Specifies whether to include additional info in the result, such as the offset (in meters)
      *                               from the mapcode center to the specified lat/lon, or the encompassing rectangle.
      *                               Range: {@link ParamInclude}.
+     * @param paramFields            Comma-separated list of the fields of the mapcodes to return, like "mapcode,territory".
+     *                               Omitted fields are not computed. Default: all fields.
      * @param paramClient            Indicator of calling client (for stats).
      * @param paramContextMustBeNull Must not be used (added to allow check for incorrect usage).
      * @param paramAllowLog          True if logging of data for improving the service is allowed. Default is true.
@@ -181,7 +220,7 @@ public interface MapcodeResource {
      * @throws ApiException API exception, translated into HTTP status code.
      */
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("codes/{" + PARAM_LAT_DEG + "},{" + PARAM_LON_DEG + "}/{" + PARAM_TYPE + '}')
     void convertLatLonToMapcode(
             @PathParam(PARAM_LAT_DEG) @Nullable String paramLatDegAsString,
@@ -193,13 +232,128 @@ public interface MapcodeResource {
             @QueryParam(PARAM_CONTEXT) @Nullable String paramContextMustBeNull,
             @QueryParam(PARAM_ALPHABET) @Nullable String paramAlphabet,
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a list of lat/lons to mapcodes. Every request in the list has the same options as
+     * the GET variant of this method. Requests fail individually: the response contains a status
+     * code (and error message or result) for every request, in the same order as the requests.
+     * Identical requests in a batch are converted only once.
+     *
+     * @param requests      List of requests. Size: [0, Mapcode.batchMaxSize].
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      List of responses. Format: {@link EncodeResponseListDTO}.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a list of latitude/longitude coordinates to mapcodes.",
+            response = EncodeResponseDTO.class,
+            responseContainer = "List")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Batch was processed. Check the status of the individual responses."),
+            @ApiResponse(code = 400, message = "Bad request. For example, the batch contains too many requests.")})
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
+    @Path("codes")
+    void convertLatLonToMapcode(
+            @ApiParam(
+                    value = "List of coordinates, each with the same (optional) parameters as " +
+                            "`GET /mapcode/codes/{lat},{lon}/{type}`.",
+                    required = true)
+            @Nonnull EncodeRequestListDTO requests,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a stream of lat/lons to mapcodes. This method is the streaming variant of the batch method
+     * above, for inputs of any size: the request body contains one JSON request per line and the response body
+     * contains one JSON response per line, in the same order. Responses are sent while the input is read,
+     * so the input is not limited to Mapcode.batchMaxSize requests.
+     *
+     * If a line cannot be parsed, the last response line has status 400 and the rest of the input is ignored.
+     *
+     * @param requests      Requests, one {@link EncodeRequestDTO} per line.
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      Responses, one {@link EncodeResponseDTO} per line.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a stream of newline-delimited latitude/longitude coordinates to mapcodes.",
+            response = EncodeResponseDTO.class,
+            responseContainer = "List")
+    @ApiResponses(
+            @ApiResponse(code = 200, message = "Stream is being processed. Check the status of the individual responses."))
+    @POST
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(APPLICATION_NDJSON)
+    @Path("codes")
+    void convertLatLonToMapcode(
+            @ApiParam(
+                    value = "Coordinates, one per line, each with the same (optional) parameters as " +
+                            "`GET /mapcode/codes/{lat},{lon}/{type}`.",
+                    required = true)
+            @Nonnull InputStream requests,
+            @ApiParam(hidden = true)
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a CSV file with lat/lons to mapcodes. Every row is a request, with the same options as
+     * the GET variant of this method. The first row contains the column names: by default, the columns
+     * have the same names as the request fields ('latDeg', 'lonDeg', 'type', 'precision', 'territory', 'country',
+     * 'alphabet' and 'include'). Only 'latDeg' and 'lonDeg' are required. Other columns are copied to the output.
+     *
+     * The output contains every input row, followed by the columns 'status', 'message', 'mapcode', 'territory',
+     * 'mapcodeInAlphabet', 'territoryInAlphabet' and 'offsetMeters'. If the result contains more than one
+     * mapcode, the shortest (local) one is returned. Rows are converted while the input is read, so the input
+     * is not limited to Mapcode.batchMaxSize rows.
+     *
+     * @param requests      Requests, one row per request.
+     * @param paramColumns  Column mapping, like "latDeg:lat,lonDeg:lon", for columns which are named differently
+     *                      from the request fields.
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      Responses, one row per request.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a CSV file with latitude/longitude coordinates to mapcodes.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "File is being processed. Check the status of the individual rows."),
+            @ApiResponse(code = 400, message = "Bad request. For example, the file has no column for the latitude.")})
+    @POST
+    @Consumes(TEXT_CSV)
+    @Produces(TEXT_CSV)
+    @Path("codes")
+    void convertLatLonToMapcode(
+            @ApiParam(
+                    value = "CSV file with a header row and a coordinate per row.",
+                    required = true)
+            @Nonnull InputStream requests,
+            @ApiParam(
+                    value = "(optional) Column names for the request fields, like `latDeg:lat,lonDeg:lon`. " +
+                            "By default, the column names are the request field names.")
+            @QueryParam(PARAM_COLUMNS) @DefaultValue("") @Nonnull String paramColumns,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
 
     // Unsupported operation.
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("coords")
     void convertMapcodeToLatLon(
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
@@ -212,6 +366,7 @@ public interface MapcodeResource {
      *                                 Range: any valid territory.
      * @param paramInclude             Specifies whether to include additional info in the result, such as the encompassing rectangle.
      *                                 Range: {@link ParamInclude}.
+     * @param paramFields              Comma-separated list of the fields to return, like "latDeg". Default: all fields.
      * @param paramClient              Indicator of calling client (for stats).
      * @param paramAllowLog            True if logging of data for improving the service is allowed. Default is true.
      * @param paramTerritoryMustBeNull Must not be used (added to allow check for incorrect usage).
@@ -225,7 +380,7 @@ public interface MapcodeResource {
             @ApiResponse(code = 200, message = "Successful conversion to coordinate.", response = PointDTO.class),
             @ApiResponse(code = 404, message = "Mapcode does not exist.")})
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("coords/{" + PARAM_MAPCODE + '}')
     void convertMapcodeToLatLon(
             @ApiParam(
@@ -242,6 +397,124 @@ public interface MapcodeResource {
                     value = "(optional) Include additional information in the response. You can include: " +
                             "`rectangle` to include rectangular area covered by the mapcode.")
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @ApiParam(
+                    value = "(optional) Return only these fields of the response: `latDeg` or `lonDeg`, or " +
+                            "`southWest`, `northEast` or `center` for `include=rectangle`.")
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a list of mapcodes to lat/lon pairs (or rectangles). Every request in the list has the same
+     * options as the GET variant of this method. Requests fail individually: the response contains a status
+     * code (and error message or result) for every request, in the same order as the requests.
+     * Identical requests in a batch are converted only once.
+     *
+     * @param requests      List of requests. Size: [0, Mapcode.batchMaxSize].
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      List of responses. Format: {@link DecodeResponseListDTO}.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a list of mapcodes to latitude/longitude coordinates.",
+            response = DecodeResponseDTO.class,
+            responseContainer = "List")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Batch was processed. Check the status of the individual responses."),
+            @ApiResponse(code = 400, message = "Bad request. For example, the batch contains too many requests.")})
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
+    @Path("coords")
+    void convertMapcodeToLatLon(
+            @ApiParam(
+                    value = "List of mapcodes, each with the same (optional) parameters as " +
+                            "`GET /mapcode/coords/{mapcode}`.",
+                    required = true)
+            @Nonnull DecodeRequestListDTO requests,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a stream of mapcodes to lat/lons (or rectangles). This method is the streaming variant of the
+     * batch method above, for inputs of any size: the request body contains one JSON request per line and the
+     * response body contains one JSON response per line, in the same order. Responses are sent while the input
+     * is read, so the input is not limited to Mapcode.batchMaxSize requests.
+     *
+     * If a line cannot be parsed, the last response line has status 400 and the rest of the input is ignored.
+     *
+     * @param requests      Requests, one {@link DecodeRequestDTO} per line.
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      Responses, one {@link DecodeResponseDTO} per line.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a stream of newline-delimited mapcodes to latitude/longitude coordinates.",
+            response = DecodeResponseDTO.class,
+            responseContainer = "List")
+    @ApiResponses(
+            @ApiResponse(code = 200, message = "Stream is being processed. Check the status of the individual responses."))
+    @POST
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(APPLICATION_NDJSON)
+    @Path("coords")
+    void convertMapcodeToLatLon(
+            @ApiParam(
+                    value = "Mapcodes, one per line, each with the same (optional) parameters as " +
+                            "`GET /mapcode/coords/{mapcode}`.",
+                    required = true)
+            @Nonnull InputStream requests,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Convert a CSV file with mapcodes to lat/lons. Every row is a request, with the same options as
+     * the GET variant of this method. The first row contains the column names: by default, the columns
+     * have the same names as the request fields ('mapcode', 'context' and 'include'). Only 'mapcode' is
+     * required. Other columns are copied to the output.
+     *
+     * The output contains every input row, followed by the columns 'status', 'message', 'latDeg', 'lonDeg',
+     * 'southWestLatDeg', 'southWestLonDeg', 'northEastLatDeg' and 'northEastLonDeg'. The corners are only
+     * returned for 'include=rectangle', in which case 'latDeg' and 'lonDeg' are the center of the rectangle.
+     * Rows are converted while the input is read, so the input is not limited to Mapcode.batchMaxSize rows.
+     *
+     * @param requests      Requests, one row per request.
+     * @param paramColumns  Column mapping, like "mapcode:code,context:country", for columns which are named
+     *                      differently from the request fields.
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      Responses, one row per request.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Convert a CSV file with mapcodes to latitude/longitude coordinates.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "File is being processed. Check the status of the individual rows."),
+            @ApiResponse(code = 400, message = "Bad request. For example, the file has no column for the mapcode.")})
+    @POST
+    @Consumes(TEXT_CSV)
+    @Produces(TEXT_CSV)
+    @Path("coords")
+    void convertMapcodeToLatLon(
+            @ApiParam(
+                    value = "CSV file with a header row and a mapcode per row.",
+                    required = true)
+            @Nonnull InputStream requests,
+            @ApiParam(
+                    value = "(optional) Column names for the request fields, like `mapcode:code,context:country`. " +
+                            "By default, the column names are the request field names.")
+            @QueryParam(PARAM_COLUMNS) @DefaultValue("") @Nonnull String paramColumns,
             @ApiParam(hidden = true)
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
             @ApiParam(hidden = true)
@@ -263,7 +536,7 @@ public interface MapcodeResource {
     @ApiResponses(
             @ApiResponse(code = 200, message = "Returned a list of territories."))
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("territories")
     void getTerritories(
             @ApiParam(
@@ -300,7 +573,7 @@ public interface MapcodeResource {
             @ApiResponse(code = 200, message = "Returned a single territory.", response = TerritoryDTO.class),
             @ApiResponse(code = 404, message = "The territory does not exist.")})
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("territories/{" + PARAM_TERRITORY + '}')
     void getTerritory(
             @ApiParam(
@@ -316,6 +589,80 @@ public interface MapcodeResource {
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
 
+    /**
+     * Get the territories which have a mapcode for a lat/lon. The lat/lon is encoded to all its mapcodes, as the
+     * mapcode library offers no cheaper way to find its territories, and only the territories are returned.
+     * The territories are returned in the same order as the mapcodes of {@link #convertLatLonToMapcode(String,
+     * String, String, String, String, String, String, String, String, String, AsyncResponse)}. The international
+     * territory AAA is never returned, as it contains every lat/lon.
+     *
+     * @param paramLatDegAsString Latitude. Range: [-90, 90].
+     * @param paramLonDegAsString Longitude. Range: Any double, wrapped along the earth to [-180, 180].
+     * @param paramClient         Indicator of calling client (for stats).
+     * @param paramAllowLog       True if logging of data for improving the service is allowed. Default is true.
+     * @param response            Territory information. Format: {@link TerritoriesDTO}.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Return the territories which have a mapcode for a latitude/longitude coordinate.",
+            response = TerritoriesDTO.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Returned the territories (the list is empty for international waters).",
+                    response = TerritoriesDTO.class),
+            @ApiResponse(code = 400, message = "Bad request. For example, the latitude is out of range.")})
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
+    @Path("territories/at/{" + PARAM_LAT_DEG + "},{" + PARAM_LON_DEG + '}')
+    void getTerritoriesAt(
+            @ApiParam(
+                    value = "Latitude in degrees. Format: [-90, 90].",
+                    allowableValues = "range[-90,90]"
+            )
+            @PathParam(PARAM_LAT_DEG) @Nullable String paramLatDegAsString,
+            @ApiParam(
+                    value = "Longitude in degrees. Format: [-180, 180) (other values are correctly wrapped).",
+                    allowableValues = "range[-180,180)"
+            )
+            @PathParam(PARAM_LON_DEG) @Nullable String paramLonDegAsString,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    /**
+     * Get the territories for a list of lat/lons. Every request in the list has the same options as
+     * the GET variant of this method. Requests fail individually: the response contains a status
+     * code (and error message or result) for every request, in the same order as the requests.
+     *
+     * @param requests      List of requests. Size: [0, Mapcode.batchMaxSize].
+     * @param paramClient   Indicator of calling client (for stats).
+     * @param paramAllowLog True if logging of data for improving the service is allowed. Default is true.
+     * @param response      List of responses. Format: {@link TerritoriesAtResponseListDTO}.
+     * @throws ApiException API exception, translated into HTTP status code.
+     */
+    @ApiOperation(
+            value = "Return the territories which have a mapcode for a list of latitude/longitude coordinates.",
+            response = TerritoriesAtResponseDTO.class,
+            responseContainer = "List")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Batch was processed. Check the status of the individual responses."),
+            @ApiResponse(code = 400, message = "Bad request. For example, the batch contains too many requests.")})
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
+    @Path("territories/at")
+    void getTerritoriesAt(
+            @ApiParam(
+                    value = "List of coordinates, like `[{\"latDeg\":52.1,\"lonDeg\":4.5}]`.",
+                    required = true)
+            @Nonnull TerritoriesAtRequestListDTO requests,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @ApiParam(hidden = true)
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
     /**
      * Get a list of all valid alphabet codes.
      *
@@ -332,7 +679,7 @@ public interface MapcodeResource {
     @ApiResponses(
             @ApiResponse(code = 200, message = "Returned a list of alphabets.", response = AlphabetsDTO.class))
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("alphabets")
     void getAlphabets(
             @ApiParam(
@@ -370,7 +717,7 @@ public interface MapcodeResource {
             @ApiResponse(code = 200, message = "Returned an alphabet definition.", response = AlphabetDTO.class),
             @ApiResponse(code = 404, message = "The alphabet does not exist.")})
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE, APPLICATION_MSGPACK})
     @Path("alphabets/{" + PARAM_ALPHABET + '}')
     void getAlphabet(
             @ApiParam(
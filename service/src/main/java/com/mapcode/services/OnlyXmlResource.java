@@ -16,6 +16,9 @@
 
 package com.mapcode.services;
 
+import com.mapcode.services.dto.DecodeRequestListDTO;
+import com.mapcode.services.dto.EncodeRequestListDTO;
+import com.mapcode.services.dto.TerritoriesAtRequestListDTO;
 import com.tomtom.speedtools.apivalidation.exceptions.ApiException;
 
 import javax.annotation.Nonnull;
@@ -61,6 +64,7 @@ public interface OnlyXmlResource {
             @QueryParam(PARAM_CONTEXT) @Nullable String paramContextMustBeNull,
             @QueryParam(PARAM_ALPHABET) @Nullable String paramAlphabet,
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
@@ -78,6 +82,17 @@ public interface OnlyXmlResource {
             @QueryParam(PARAM_CONTEXT) @Nullable String paramContextMustBeNull,
             @QueryParam(PARAM_ALPHABET) @Nullable String paramAlphabet,
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramDebug,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("codes")
+    void convertLatLonToMapcodeXml(
+            @Nonnull EncodeRequestListDTO requests,
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramDebug,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
@@ -88,6 +103,16 @@ public interface OnlyXmlResource {
     void convertMapcodeToLatLonXml(
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
 
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("coords")
+    void convertMapcodeToLatLonXml(
+            @Nonnull DecodeRequestListDTO requests,
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramDebug,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
     @GET
     @Produces(MediaType.APPLICATION_XML)
     @Path("coords/{" + PARAM_MAPCODE + '}')
@@ -96,6 +121,7 @@ public interface OnlyXmlResource {
             @QueryParam(PARAM_CONTEXT) @Nullable String paramContext,
             @QueryParam(PARAM_TERRITORY) @Nullable String paramTerritoryMustBeNull,
             @QueryParam(PARAM_INCLUDE) @DefaultValue("") @Nonnull String paramInclude,
+            @QueryParam(PARAM_FIELDS) @DefaultValue("") @Nonnull String paramFields,
             @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramDebug,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
@@ -120,6 +146,26 @@ public interface OnlyXmlResource {
             @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
             @Suspended @Nonnull AsyncResponse response) throws ApiException;
 
+    @GET
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("territories/at/{" + PARAM_LAT_DEG + "},{" + PARAM_LON_DEG + '}')
+    void getTerritoriesAtXml(
+            @PathParam(PARAM_LAT_DEG) @Nullable String paramLatDegAsString,
+            @PathParam(PARAM_LON_DEG) @Nullable String paramLonDegAsString,
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("territories/at")
+    void getTerritoriesAtXml(
+            @Nonnull TerritoriesAtRequestListDTO requests,
+            @QueryParam(PARAM_CLIENT) @DefaultValue("") @Nonnull String paramClient,
+            @QueryParam(PARAM_ALLOW_LOG) @DefaultValue("true") @Nonnull String paramAllowLog,
+            @Suspended @Nonnull AsyncResponse response) throws ApiException;
+
     @GET
     @Produces(MediaType.APPLICATION_XML)
     @Path("alphabets")
@@ -51,11 +51,22 @@ public class ResourcesModule implements Module {
         binder.bind(OnlyJsonResource.class).to(OnlyJsonResourceImpl.class).in(Singleton.class);
         binder.bind(OnlyXmlResource.class).to(OnlyXmlResourceImpl.class).in(Singleton.class);
 
+        // JAX-RS filters (registered as providers by RESTEasy, because they are annotated with @Provider).
+        binder.bind(ConditionalRequestFilter.class).in(Singleton.class);
+        binder.bind(ResponseCacheFilter.class).in(Singleton.class);
+
         // JMX interface.
         binder.bind(SystemMetricsImpl.class).in(Singleton.class);
         binder.bind(SystemMetricsAgent.class).in(Singleton.class);
     }
 
+    @Provides
+    @Singleton
+    @Nonnull
+    public MapcodeProperties provideMapcodeProperties() {
+        return MapcodeProperties.load(MapcodeProperties.RESOURCE_NAME);
+    }
+
     @Provides
     @Singleton
     @Nonnull
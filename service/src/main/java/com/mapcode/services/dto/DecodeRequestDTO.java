@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
+@ApiModel(
+        value = "decodeRequest",
+        description = "A single mapcode to coordinate request, such as used in `POST /mapcode/coords`. " +
+                "The attributes have the same meaning as the parameters of `GET /mapcode/coords/{mapcode}`.")
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "request")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class DecodeRequestDTO extends ApiDTO {
+
+    @ApiModelProperty(
+            name = "mapcode",
+            value = "A mapcode, either with a territory, or without it (then specify a context).",
+            example = "NLD 49.4V")
+    @XmlElement(name = "mapcode")
+    @Nullable
+    private String mapcode;
+
+    @ApiModelProperty(
+            name = "context",
+            value = "(optional) The territory used as a context to resolve the mapcode.")
+    @XmlElement(name = "context")
+    @Nullable
+    private String context;
+
+    @ApiModelProperty(
+            name = "include",
+            value = "(optional) Include additional information in the response, like `rectangle`.")
+    @XmlElement(name = "include")
+    @Nullable
+    private String include;
+
+    @Override
+    public void validate() {
+
+        // Invalid or missing values are reported per request in the response, so they do not fail the whole batch.
+        validator().start();
+        validator().checkNotNull(false, "mapcode", mapcode);
+        validator().done();
+    }
+
+    public DecodeRequestDTO(
+            @Nullable final String mapcode,
+            @Nullable final String context,
+            @Nullable final String include) {
+        this.mapcode = mapcode;
+        this.context = context;
+        this.include = include;
+    }
+
+    public DecodeRequestDTO(@Nullable final String mapcode) {
+        this(mapcode, null, null);
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private DecodeRequestDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    @Nullable
+    public String getMapcode() {
+        beforeGet();
+        return mapcode;
+    }
+
+    public void setMapcode(@Nullable final String mapcode) {
+        beforeSet();
+        this.mapcode = mapcode;
+    }
+
+    @Nullable
+    public String getContext() {
+        beforeGet();
+        return context;
+    }
+
+    public void setContext(@Nullable final String context) {
+        beforeSet();
+        this.context = context;
+    }
+
+    @Nullable
+    public String getInclude() {
+        beforeGet();
+        return include;
+    }
+
+    public void setInclude(@Nullable final String include) {
+        beforeSet();
+        this.include = include;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiListDTO;
+
+import javax.annotation.Nonnull;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "requests")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class DecodeRequestListDTO extends ApiListDTO<DecodeRequestDTO> {
+
+    @Override
+    public void validateOne(@Nonnull final DecodeRequestDTO elm) {
+        validator().checkNotNullAndValidate(true, "request", elm);
+    }
+
+    public DecodeRequestListDTO(@Nonnull final List<DecodeRequestDTO> requests) {
+        super(requests);
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private DecodeRequestListDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    // Used by JAX-B, which does not (un)marshal the list itself. JSON uses the list directly.
+    @SuppressWarnings("UnusedDeclaration")
+    @XmlElement(name = "request")
+    @Nonnull
+    private List<DecodeRequestDTO> getElements() {
+        return this;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    private void setElements(@Nonnull final List<DecodeRequestDTO> elements) {
+        clear();
+        addAll(elements);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiListDTO;
+
+import javax.annotation.Nonnull;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "responses")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class DecodeResponseListDTO extends ApiListDTO<DecodeResponseDTO> {
+
+    @Override
+    public void validateOne(@Nonnull final DecodeResponseDTO elm) {
+        validator().checkNotNullAndValidate(true, "response", elm);
+    }
+
+    public DecodeResponseListDTO(@Nonnull final List<DecodeResponseDTO> responses) {
+        super(responses);
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private DecodeResponseListDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    // Used by JAX-B, which does not (un)marshal the list itself. JSON uses the list directly.
+    @SuppressWarnings("UnusedDeclaration")
+    @XmlElement(name = "response")
+    @Nonnull
+    private List<DecodeResponseDTO> getElements() {
+        return this;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    private void setElements(@Nonnull final List<DecodeResponseDTO> elements) {
+        clear();
+        addAll(elements);
+    }
+}
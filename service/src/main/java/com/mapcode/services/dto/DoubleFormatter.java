@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import javax.annotation.Nonnull;
+import java.math.BigInteger;
+
+/**
+ * This class formats doubles into a character buffer, in the same format as {@link Double#toString(double)},
+ * without creating objects. It is used to write the coordinates, rectangles and offsets of the responses.
+ *
+ * The digits are the shortest decimal that converts back to the same double (if there are several, the one
+ * closest to the double). This is what {@link Double#toString(double)} produces since JDK 19; older JDKs
+ * occasionally produce a longer decimal, which converts back to the same double as well.
+ *
+ * The decimal is found with the Schubfach algorithm (Raffaello Giulietti, "The Schubfach way to render
+ * doubles", 2020), which is also used by {@link Double#toString(double)} since JDK 19. It only needs a few
+ * 64-bit multiplications with a precomputed 126-bit approximation of a power of 10.
+ */
+public final class DoubleFormatter {
+
+    /**
+     * Maximum number of characters written by {@link #format(double, char[], int)}, for example
+     * "-2.2250738585072014E-308".
+     */
+    public static final int MAX_LENGTH = 24;
+
+    // Precision (number of significand bits, including the hidden bit) and exponent width of a double.
+    private static final int P = 53;
+    private static final int W = 11;
+
+    // Minimum and maximum exponents q of a finite double c * 2^q, with c an integer.
+    private static final int Q_MIN = -1074;
+    private static final int Q_MAX = 971;
+
+    // Minimum and maximum exponents k of the powers of 10 used.
+    private static final int K_MIN = flog10pow2(Q_MIN);
+    private static final int K_MAX = flog10pow2(Q_MAX);
+
+    // Number of digits of the significand of the decimal, at most.
+    private static final int H = 17;
+
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    // Subnormal significands below this value need 2 digits to be closest to the double.
+    private static final long C_TINY = 3;
+
+    // Decimal exponents of the values which Double.toString writes without exponent.
+    private static final int PLAIN_MIN_EXP = -3;
+    private static final int PLAIN_MAX_EXP = 7;
+
+    // Powers of 10 up to 10^17.
+    @Nonnull
+    private static final long[] POW10 = new long[H + 1];
+
+    // 126-bit approximations g of 10^-k, for k from K_MIN to K_MAX, as the upper and lower 63 bits.
+    @Nonnull
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; ++i) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+
+        // 10^-k = beta * 2^r, with 2^125 <= beta < 2^126 and r = flog2pow10(-k) - 125. Then g = floor(beta) + 1.
+        final BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; ++k) {
+            final int shift = 125 - flog2pow10(-k);
+            BigInteger numerator = (k <= 0) ? BigInteger.TEN.pow(-k) : BigInteger.ONE;
+            BigInteger denominator = (k > 0) ? BigInteger.TEN.pow(k) : BigInteger.ONE;
+            if (shift >= 0) {
+                numerator = numerator.shiftLeft(shift);
+            } else {
+                denominator = denominator.shiftLeft(-shift);
+            }
+            final BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            assert g.bitLength() == 126 : "Wrong approximation of 10^" + (-k);
+            G[(k - K_MIN) * 2] = g.shiftRight(63).longValue();
+            G[((k - K_MIN) * 2) + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    private DoubleFormatter() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Format a double, like {@link Double#toString(double)}.
+     *
+     * @param value  Value.
+     * @param buffer Buffer, which must have room for {@link #MAX_LENGTH} characters from offset.
+     * @param offset Offset of the first character.
+     * @return Offset after the last character.
+     */
+    public static int format(final double value, @Nonnull final char[] buffer, final int offset) {
+        assert buffer != null;
+        assert (offset >= 0) && ((offset + MAX_LENGTH) <= buffer.length);
+        final long bits = Double.doubleToRawLongBits(value);
+        final long t = bits & T_MASK;
+        final int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) {
+
+            // NaN or infinity.
+            return append(Double.toString(value), buffer, offset);
+        }
+        int i = offset;
+        if (bits < 0) {
+            buffer[i++] = '-';
+        }
+        if (bq != 0) {
+
+            // Normal value: c * 2^q, with 2^52 <= c < 2^53.
+            final int mq = -Q_MIN + 1 - bq;
+            final long c = C_MIN | t;
+
+            // Integers are written as they are.
+            if ((0 < mq) && (mq < P)) {
+                final long f = c >> mq;
+                if ((f << mq) == c) {
+                    return writeDecimal(f, 0, buffer, i);
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, i);
+        }
+        if (t != 0) {
+
+            // Subnormal value.
+            return (t < C_TINY) ? toDecimal(Q_MIN, 10 * t, -1, buffer, i) : toDecimal(Q_MIN, t, 0, buffer, i);
+        }
+
+        // Zero.
+        buffer[i++] = '0';
+        buffer[i++] = '.';
+        buffer[i++] = '0';
+        return i;
+    }
+
+    /**
+     * Find the shortest decimal in the rounding interval of c * 2^q and write it.
+     */
+    private static int toDecimal(final int q, final long c, final int dk, @Nonnull final char[] buffer, final int offset) {
+        final int out = (int) c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if ((c != C_MIN) || (q == Q_MIN)) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+
+            // The interval is asymmetric for powers of 2.
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final int index = (k - K_MIN) * 2;
+        final long g1 = G[index];
+        final long g0 = G[index + 1];
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+        final long s = vb >> 2;
+        if (s >= 100) {
+
+            // Try one digit less: s' = floor(s / 10), u' = 10 * s', w' = u' + 10.
+            final long sp10 = 10 * multiplyHigh(s, 115292150460684698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = (vbl + out) <= (sp10 << 2);
+            final boolean wpin = ((tp10 << 2) + out) <= vbr;
+            if (upin != wpin) {
+                return writeDecimal(upin ? sp10 : tp10, k, buffer, offset);
+            }
+        }
+
+        // u = s and w = s + 1: use the one that is in the interval, or the closest if both are.
+        final long t = s + 1;
+        final boolean uin = (vbl + out) <= (s << 2);
+        final boolean win = ((t << 2) + out) <= vbr;
+        if (uin != win) {
+            return writeDecimal(uin ? s : t, k + dk, buffer, offset);
+        }
+        final long cmp = vb - ((s + t) << 1);
+        return writeDecimal(((cmp < 0) || ((cmp == 0) && ((s & 1) == 0))) ? s : t, k + dk, buffer, offset);
+    }
+
+    /**
+     * Write f * 10^e in the format of {@link Double#toString(double)}.
+     */
+    private static int writeDecimal(final long f, final int e, @Nonnull final char[] buffer, final int offset) {
+
+        // Remove the trailing zeros: value = digits * 10^exp, with length digits.
+        long digits = f;
+        int exp = e;
+        while ((digits % 10) == 0) {
+            digits = digits / 10;
+            ++exp;
+        }
+        int length = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(digits));
+        if (digits >= POW10[length]) {
+            ++length;
+        }
+
+        // Decimal exponent of the first digit.
+        final int sciExp = (exp + length) - 1;
+        int i = offset;
+        if ((PLAIN_MIN_EXP <= sciExp) && (sciExp < PLAIN_MAX_EXP)) {
+            if (sciExp >= 0) {
+                final int integerLength = sciExp + 1;
+                if (length <= integerLength) {
+
+                    // Integer: "ddd00.0".
+                    i = writeDigits(digits, length, buffer, i);
+                    for (int j = length; j < integerLength; ++j) {
+                        buffer[i++] = '0';
+                    }
+                    buffer[i++] = '.';
+                    buffer[i++] = '0';
+                } else {
+
+                    // "ddd.ddd".
+                    writeDigits(digits, length, buffer, i + 1);
+                    System.arraycopy(buffer, i + 1, buffer, i, integerLength);
+                    buffer[i + integerLength] = '.';
+                    i = i + length + 1;
+                }
+            } else {
+
+                // "0.00ddd".
+                buffer[i++] = '0';
+                buffer[i++] = '.';
+                for (int j = -1; j > sciExp; --j) {
+                    buffer[i++] = '0';
+                }
+                i = writeDigits(digits, length, buffer, i);
+            }
+        } else {
+
+            // "d.dddEnn".
+            writeDigits(digits, length, buffer, i + 1);
+            buffer[i] = buffer[i + 1];
+            buffer[i + 1] = '.';
+            if (length == 1) {
+                buffer[i + 2] = '0';
+                i = i + 3;
+            } else {
+                i = i + length + 1;
+            }
+            buffer[i++] = 'E';
+            int absExp = sciExp;
+            if (sciExp < 0) {
+                buffer[i++] = '-';
+                absExp = -sciExp;
+            }
+            final int expLength = (absExp >= 100) ? 3 : ((absExp >= 10) ? 2 : 1);
+            i = writeDigits(absExp, expLength, buffer, i);
+        }
+        return i;
+    }
+
+    /**
+     * Write the length digits of a value.
+     */
+    private static int writeDigits(final long value, final int length, @Nonnull final char[] buffer, final int offset) {
+        long v = value;
+        for (int j = (offset + length) - 1; j >= offset; --j) {
+            final long next = v / 10;
+            buffer[j] = (char) ('0' + (v - (next * 10)));
+            v = next;
+        }
+        return offset + length;
+    }
+
+    private static int append(@Nonnull final String s, @Nonnull final char[] buffer, final int offset) {
+        s.getChars(0, s.length(), buffer, offset);
+        return offset + s.length();
+    }
+
+    /**
+     * Return floor(g * cp / 2^127), rounded to odd.
+     */
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (((z & MASK_63) + MASK_63) >>> 63);
+    }
+
+    /**
+     * Return the upper 64 bits of the 128-bit product of two longs (Math.multiplyHigh is not available in Java 8).
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = (x1 * y2) + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 = z1 + (x2 * y1);
+        return (x1 * y1) + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Return floor(log10(2^e)), for |e| <= 5456721.
+     */
+    private static int flog10pow2(final int e) {
+        return (int) ((e * 661971961083L) >> 41);
+    }
+
+    /**
+     * Return floor(log10(3/4 * 2^e)), for |e| <= 5456721.
+     */
+    private static int flog10threeQuartersPow2(final int e) {
+        return (int) (((e * 661971961083L) - 274743187321L) >> 41);
+    }
+
+    /**
+     * Return floor(log2(10^e)), for |e| <= 1838394.
+     */
+    private static int flog2pow10(final int e) {
+        return (int) ((e * 913124641741L) >> 38);
+    }
+}
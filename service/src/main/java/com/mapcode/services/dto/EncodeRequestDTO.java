@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
+@ApiModel(
+        value = "encodeRequest",
+        description = "A single coordinate to mapcode request, such as used in `POST /mapcode/codes`. " +
+                "The attributes have the same meaning as the parameters of `GET /mapcode/codes/{lat},{lon}/{type}`.")
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "request")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class EncodeRequestDTO extends ApiDTO {
+
+    @ApiModelProperty(
+            name = "latDeg",
+            value = "Latitude in degrees. Format: [-90, 90].",
+            allowableValues = "range[-90,90]")
+    @XmlElement(name = "latDeg")
+    @Nullable
+    private Double latDeg;
+
+    @ApiModelProperty(
+            name = "lonDeg",
+            value = "Longitude in degrees. Format: [-180, 180) (other values are correctly wrapped).",
+            allowableValues = "range[-180,180)")
+    @XmlElement(name = "lonDeg")
+    @Nullable
+    private Double lonDeg;
+
+    @ApiModelProperty(
+            name = "type",
+            value = "(optional) Return only the `local` or `international` mapcode, or only the list of `mapcodes`. " +
+                    "If omitted, all of them are returned.")
+    @XmlElement(name = "type")
+    @Nullable
+    private String type;
+
+    @ApiModelProperty(
+            name = "precision",
+            value = "(optional) Additional precision for the mapcodes.",
+            allowableValues = "range[0,8]")
+    @XmlElement(name = "precision")
+    @Nullable
+    private Integer precision;
+
+    @ApiModelProperty(
+            name = "territory",
+            value = "(optional) Limit the returned mapcodes to this territory.")
+    @XmlElement(name = "territory")
+    @Nullable
+    private String territory;
+
+    @ApiModelProperty(
+            name = "country",
+            value = "(optional) Limit the returned mapcodes to this country.")
+    @XmlElement(name = "country")
+    @Nullable
+    private String country;
+
+    @ApiModelProperty(
+            name = "alphabet",
+            value = "(optional) Provide the strings in the response using this alphabet (as well as Roman).")
+    @XmlElement(name = "alphabet")
+    @Nullable
+    private String alphabet;
+
+    @ApiModelProperty(
+            name = "include",
+            value = "(optional) Provide additional information in the response, like `offset,territory`.")
+    @XmlElement(name = "include")
+    @Nullable
+    private String include;
+
+    @Override
+    public void validate() {
+
+        // Invalid or missing values are reported per request in the response, so they do not fail the whole batch.
+        validator().start();
+        validator().checkNotNull(false, "latDeg", latDeg);
+        validator().checkNotNull(false, "lonDeg", lonDeg);
+        validator().done();
+    }
+
+    public EncodeRequestDTO(
+            @Nullable final Double latDeg,
+            @Nullable final Double lonDeg,
+            @Nullable final String type,
+            @Nullable final Integer precision,
+            @Nullable final String territory,
+            @Nullable final String country,
+            @Nullable final String alphabet,
+            @Nullable final String include) {
+        this.latDeg = latDeg;
+        this.lonDeg = lonDeg;
+        this.type = type;
+        this.precision = precision;
+        this.territory = territory;
+        this.country = country;
+        this.alphabet = alphabet;
+        this.include = include;
+    }
+
+    public EncodeRequestDTO(
+            @Nullable final Double latDeg,
+            @Nullable final Double lonDeg) {
+        this(latDeg, lonDeg, null, null, null, null, null, null);
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private EncodeRequestDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    @Nullable
+    public Double getLatDeg() {
+        beforeGet();
+        return latDeg;
+    }
+
+    public void setLatDeg(@Nullable final Double latDeg) {
+        beforeSet();
+        this.latDeg = latDeg;
+    }
+
+    @Nullable
+    public Double getLonDeg() {
+        beforeGet();
+        return lonDeg;
+    }
+
+    public void setLonDeg(@Nullable final Double lonDeg) {
+        beforeSet();
+        this.lonDeg = lonDeg;
+    }
+
+    @Nullable
+    public String getType() {
+        beforeGet();
+        return type;
+    }
+
+    public void setType(@Nullable final String type) {
+        beforeSet();
+        this.type = type;
+    }
+
+    @Nullable
+    public Integer getPrecision() {
+        beforeGet();
+        return precision;
+    }
+
+    public void setPrecision(@Nullable final Integer precision) {
+        beforeSet();
+        this.precision = precision;
+    }
+
+    @Nullable
+    public String getTerritory() {
+        beforeGet();
+        return territory;
+    }
+
+    public void setTerritory(@Nullable final String territory) {
+        beforeSet();
+        this.territory = territory;
+    }
+
+    @Nullable
+    public String getCountry() {
+        beforeGet();
+        return country;
+    }
+
+    public void setCountry(@Nullable final String country) {
+        beforeSet();
+        this.country = country;
+    }
+
+    @Nullable
+    public String getAlphabet() {
+        beforeGet();
+        return alphabet;
+    }
+
+    public void setAlphabet(@Nullable final String alphabet) {
+        beforeSet();
+        this.alphabet = alphabet;
+    }
+
+    @Nullable
+    public String getInclude() {
+        beforeGet();
+        return include;
+    }
+
+    public void setInclude(@Nullable final String include) {
+        beforeSet();
+        this.include = include;
+    }
+}
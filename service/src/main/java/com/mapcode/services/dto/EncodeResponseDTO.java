@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.*;
+
+@SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
+@ApiModel(
+        value = "encodeResponse",
+        description = "The response to a single coordinate to mapcode request, such as returned by `POST /mapcode/codes`.")
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "response")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class EncodeResponseDTO extends ApiDTO {
+
+    @ApiModelProperty(
+            name = "status",
+            value = "The HTTP status code that `GET /mapcode/codes/{lat},{lon}/{type}` would have returned " +
+                    "for this request, like 200 (OK), 400 (bad request) or 404 (not found).")
+    @XmlElement(name = "status")
+    @Nonnull
+    private Integer status;
+
+    @ApiModelProperty(
+            name = "message",
+            value = "(optional) The error message, if the status is not 200.")
+    @XmlElement(name = "message")
+    @Nullable
+    private String message;
+
+    @ApiModelProperty(
+            name = "result",
+            value = "(optional) The result, if the status is 200. This is a `mapcodes` object if no type was " +
+                    "specified, a `mapcode` object for type `local` or `international`, and a list of " +
+                    "`mapcode` objects for type `mapcodes`.")
+    @JsonProperty("result")
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NONE)
+    @XmlElements({
+            @XmlElement(name = "mapcodes", type = MapcodesDTO.class),
+            @XmlElement(name = "mapcode", type = MapcodeDTO.class),
+            @XmlElement(name = "mapcodeList", type = MapcodeListDTO.class)})
+    @Nullable
+    private ApiDTO result;
+
+    @Override
+    public void validate() {
+        validator().start();
+        validator().checkInteger(true, "status", status, 100, 599);
+        validator().checkNotNull(false, "message", message);
+        validator().checkNotNullAndValidate(false, "result", result);
+        validator().done();
+    }
+
+    public EncodeResponseDTO(
+            @Nonnull final Integer status,
+            @Nullable final String message,
+            @Nullable final ApiDTO result) {
+        this.status = status;
+        this.message = message;
+        this.result = result;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private EncodeResponseDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    @Nonnull
+    public Integer getStatus() {
+        beforeGet();
+        return status;
+    }
+
+    public void setStatus(@Nonnull final Integer status) {
+        beforeSet();
+        assert status != null;
+        this.status = status;
+    }
+
+    @Nullable
+    public String getMessage() {
+        beforeGet();
+        return message;
+    }
+
+    public void setMessage(@Nullable final String message) {
+        beforeSet();
+        this.message = message;
+    }
+
+    @Nullable
+    public ApiDTO getResult() {
+        beforeGet();
+        return result;
+    }
+
+    public void setResult(@Nullable final ApiDTO result) {
+        beforeSet();
+        this.result = result;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * This class contains the helper methods of the hand-written JSON serializers of the DTOs which are returned
+ * most often: {@link MapcodesDTO}, {@link MapcodeDTO}, {@link MapcodeListDTO}, {@link RectangleDTO} and
+ * {@link PointDTO}. These serializers write the fields of the DTOs directly to the generator, instead of having
+ * Jackson introspect the DTOs (through both the Jackson and JAXB annotations) and access every field by
+ * reflection.
+ *
+ * The output is exactly the same as the output of the bean serializers of Jackson: the properties are written
+ * in the order in which the fields are declared and properties which are null, empty strings or empty
+ * lists are omitted, as specified by {@code @JsonInclude(Include.NON_EMPTY)}. Note that the serializers must be
+ * updated if fields are added to these DTOs.
+ *
+ * Doubles are formatted directly into a buffer by {@link DoubleFormatter}, rather than by
+ * {@link Double#toString(double)}. The only difference is that some (rare) doubles get fewer digits on JDKs
+ * before JDK 19. The generators of binary formats (like CBOR) write doubles as they are.
+ */
+final class JsonFieldWriter {
+
+    // Buffer to format doubles in, per thread.
+    @Nonnull
+    private static final ThreadLocal<char[]> DOUBLE_BUFFER =
+            ThreadLocal.withInitial(() -> new char[DoubleFormatter.MAX_LENGTH]);
+
+    private JsonFieldWriter() {
+        // Prevent instantiation.
+    }
+
+    static void writeString(
+            @Nonnull final JsonGenerator gen,
+            @Nonnull final SerializableString name,
+            @Nullable final String value) throws IOException {
+        if ((value != null) && !value.isEmpty()) {
+            gen.writeFieldName(name);
+            gen.writeString(value);
+        }
+    }
+
+    static void writeDouble(
+            @Nonnull final JsonGenerator gen,
+            @Nonnull final SerializableString name,
+            @Nullable final Double value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            final double d = value;
+            if (Double.isFinite(d) && (gen instanceof JsonGeneratorImpl)) {
+                final char[] buffer = DOUBLE_BUFFER.get();
+                gen.writeNumber(buffer, 0, DoubleFormatter.format(d, buffer, 0));
+            } else {
+
+                // The generator decides how to write NaN, infinity and binary doubles.
+                gen.writeNumber(d);
+            }
+        }
+    }
+
+    static void writeMapcode(
+            @Nonnull final JsonGenerator gen,
+            @Nonnull final SerializableString name,
+            @Nullable final MapcodeDTO value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            MapcodeDTO.Serializer.write(gen, value);
+        }
+    }
+
+    static void writeRectangle(
+            @Nonnull final JsonGenerator gen,
+            @Nonnull final SerializableString name,
+            @Nullable final RectangleDTO value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            RectangleDTO.Serializer.write(gen, value);
+        }
+    }
+
+    static void writePoint(
+            @Nonnull final JsonGenerator gen,
+            @Nonnull final SerializableString name,
+            @Nullable final PointDTO value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            PointDTO.Serializer.write(gen, value);
+        }
+    }
+}
@@ -18,6 +18,12 @@ package com.mapcode.services.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.mapcode.services.ApiConstants;
 import com.tomtom.speedtools.apivalidation.ApiDTO;
 import io.swagger.annotations.ApiModel;
@@ -29,19 +35,24 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 
 @SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
 @ApiModel(
         value = "mapcode",
         description = "A mapcode object, such as returned by `GET /mapcode/codes/52,5/local`.")
 @JsonInclude(Include.NON_EMPTY)
+@JsonSerialize(using = MapcodeDTO.Serializer.class)
 @XmlRootElement(name = "mapcode")
 @XmlAccessorType(XmlAccessType.FIELD)
 public final class MapcodeDTO extends ApiDTO {
 
     @ApiModelProperty(
             name = "mapcode",
-            value = "The mapcode without the territory code. Format: 5-10 characters, including the '.'.",
+            value = "The mapcode without the territory code. Format: 5-10 characters, including the '.'." +
+                    " Omitted if it is not selected by the `fields` parameter.",
             example = "2TNM")
     @XmlElement(name = "mapcode")
     @Nonnull
@@ -105,6 +116,18 @@ public final class MapcodeDTO extends ApiDTO {
             @Nullable final String territoryInAlphabet,
             @Nullable final Double offsetMeters,
             @Nullable final RectangleDTO rectangle) {
+        this(true, mapcode, mapcodeInAlphabet, territory, territoryInAlphabet, offsetMeters, rectangle);
+    }
+
+    private MapcodeDTO(
+            final boolean immutable,
+            @Nullable final String mapcode,
+            @Nullable final String mapcodeInAlphabet,
+            @Nullable final String territory,
+            @Nullable final String territoryInAlphabet,
+            @Nullable final Double offsetMeters,
+            @Nullable final RectangleDTO rectangle) {
+        super(immutable);
         this.mapcode = mapcode;
         this.mapcodeInAlphabet = mapcodeInAlphabet;
         this.territory = territory;
@@ -147,6 +170,21 @@ public final class MapcodeDTO extends ApiDTO {
         this(mapcode, null, null, null, null, null);
     }
 
+    /**
+     * Create a mapcode with only the fields selected by the 'fields' parameter, so any field may be null.
+     * The selection is not validated: it is created from a validated mapcode or from validated values.
+     */
+    @Nonnull
+    public static MapcodeDTO createSelection(
+            @Nullable final String mapcode,
+            @Nullable final String mapcodeInAlphabet,
+            @Nullable final String territory,
+            @Nullable final String territoryInAlphabet,
+            @Nullable final Double offsetMeters,
+            @Nullable final RectangleDTO rectangle) {
+        return new MapcodeDTO(false, mapcode, mapcodeInAlphabet, territory, territoryInAlphabet, offsetMeters, rectangle);
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @Deprecated
     private MapcodeDTO() {
@@ -220,4 +258,64 @@ public final class MapcodeDTO extends ApiDTO {
         beforeSet();
         this.rectangle = rectangle;
     }
+
+    /**
+     * Hand-written JSON and XML serializer of this class (see {@link JsonFieldWriter} and {@link XmlFieldWriter}).
+     */
+    public static final class Serializer extends StdSerializer<MapcodeDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private static final SerializableString MAPCODE = new SerializedString("mapcode");
+        @Nonnull
+        private static final SerializableString MAPCODE_IN_ALPHABET = new SerializedString("mapcodeInAlphabet");
+        @Nonnull
+        private static final SerializableString TERRITORY = new SerializedString("territory");
+        @Nonnull
+        private static final SerializableString TERRITORY_IN_ALPHABET = new SerializedString("territoryInAlphabet");
+        @Nonnull
+        private static final SerializableString OFFSET_METERS = new SerializedString("offsetMeters");
+        @Nonnull
+        private static final SerializableString RECTANGLE = new SerializedString("rectangle");
+
+        public Serializer() {
+            super(MapcodeDTO.class);
+        }
+
+        @Override
+        public void serialize(
+                @Nonnull final MapcodeDTO value,
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+
+        static void write(
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final MapcodeDTO value) throws IOException {
+            gen.writeStartObject(value);
+            JsonFieldWriter.writeString(gen, MAPCODE, value.mapcode);
+            JsonFieldWriter.writeString(gen, MAPCODE_IN_ALPHABET, value.mapcodeInAlphabet);
+            JsonFieldWriter.writeString(gen, TERRITORY, value.territory);
+            JsonFieldWriter.writeString(gen, TERRITORY_IN_ALPHABET, value.territoryInAlphabet);
+            JsonFieldWriter.writeDouble(gen, OFFSET_METERS, value.offsetMeters);
+            JsonFieldWriter.writeRectangle(gen, RECTANGLE, value.rectangle);
+            gen.writeEndObject();
+        }
+
+        /**
+         * Write the child elements of the element of this class.
+         */
+        static void writeXml(
+                @Nonnull final XMLStreamWriter xml,
+                @Nonnull final MapcodeDTO value) throws XMLStreamException {
+            XmlFieldWriter.writeString(xml, "mapcode", value.mapcode);
+            XmlFieldWriter.writeString(xml, "mapcodeInAlphabet", value.mapcodeInAlphabet);
+            XmlFieldWriter.writeString(xml, "territory", value.territory);
+            XmlFieldWriter.writeString(xml, "territoryInAlphabet", value.territoryInAlphabet);
+            XmlFieldWriter.writeDouble(xml, "offsetMeters", value.offsetMeters);
+            XmlFieldWriter.writeRectangle(xml, "rectangle", value.rectangle);
+        }
+    }
 }
@@ -18,15 +18,23 @@ package com.mapcode.services.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.tomtom.speedtools.apivalidation.ApiListDTO;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import java.io.IOException;
 import java.util.List;
 
 @JsonInclude(Include.NON_EMPTY)
+@JsonSerialize(using = MapcodeListDTO.Serializer.class)
 @XmlRootElement(name = "mapcodes")
 @XmlAccessorType(XmlAccessType.FIELD)
 public final class MapcodeListDTO extends ApiListDTO<MapcodeDTO> {
@@ -40,10 +48,80 @@ public final class MapcodeListDTO extends ApiListDTO<MapcodeDTO> {
         super(mapcodes);
     }
 
+    private MapcodeListDTO(final boolean immutable, @Nonnull final List<MapcodeDTO> mapcodes) {
+        super(immutable, mapcodes);
+    }
+
+    /**
+     * Create a list of mapcodes created by {@link MapcodeDTO#createSelection}. The list is not validated.
+     */
+    @Nonnull
+    public static MapcodeListDTO createSelection(@Nonnull final List<MapcodeDTO> mapcodes) {
+        return new MapcodeListDTO(false, mapcodes);
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @Deprecated
     private MapcodeListDTO() {
         // Default constructor required by JAX-B.
         super();
     }
+
+    // Used by JAX-B, which does not (un)marshal the list itself. JSON uses the list directly.
+    @SuppressWarnings("UnusedDeclaration")
+    @XmlElement(name = "mapcode")
+    @Nonnull
+    private List<MapcodeDTO> getElements() {
+        return this;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    private void setElements(@Nonnull final List<MapcodeDTO> elements) {
+        clear();
+        addAll(elements);
+    }
+
+    /**
+     * Hand-written JSON serializer of this class (see {@link JsonFieldWriter}). The XML is written by
+     * {@link XmlFieldWriter}.
+     */
+    public static final class Serializer extends StdSerializer<MapcodeListDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(MapcodeListDTO.class);
+        }
+
+        @Override
+        public boolean isEmpty(
+                @Nonnull final SerializerProvider provider,
+                @Nullable final MapcodeListDTO value) {
+            return (value == null) || value.isEmpty();
+        }
+
+        @Override
+        public void serialize(
+                @Nonnull final MapcodeListDTO value,
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+
+        static void write(
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final MapcodeListDTO value) throws IOException {
+            final int size = value.size();
+            gen.writeStartArray(value, size);
+            for (int i = 0; i < size; ++i) {
+                final MapcodeDTO mapcode = value.get(i);
+                if (mapcode == null) {
+                    gen.writeNull();
+                } else {
+                    MapcodeDTO.Serializer.write(gen, mapcode);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
 }
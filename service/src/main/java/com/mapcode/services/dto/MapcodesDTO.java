@@ -19,6 +19,12 @@ package com.mapcode.services.dto;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.tomtom.speedtools.apivalidation.ApiDTO;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
@@ -26,6 +32,9 @@ import io.swagger.annotations.ApiModelProperty;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.bind.annotation.*;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.util.List;
 
 @SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
@@ -33,6 +42,7 @@ import java.util.List;
         value = "mapcodes",
         description = "A full coordinate to mapcode response object, such as returned by `GET /mapcode/codes/52,5`.")
 @JsonInclude(Include.NON_EMPTY)
+@JsonSerialize(using = MapcodesDTO.Serializer.class)
 @XmlRootElement(name = "mapcodes")
 @XmlAccessorType(XmlAccessType.FIELD)
 public final class MapcodesDTO extends ApiDTO {
@@ -51,7 +61,8 @@ public final class MapcodesDTO extends ApiDTO {
     @ApiModelProperty(
             name = "international",
             value = "The international mapcode. This is globally unique mapcode, which does not require a territory " +
-                    "code. The downside of using international mapcodes is their length: they are always 10 characters.")
+                    "code. The downside of using international mapcodes is their length: they are always 10 characters." +
+                    " Omitted if it is not selected by the `fields` parameter.")
     @XmlElement(name = "international")
     @Nonnull
     private MapcodeDTO international;
@@ -62,7 +73,8 @@ public final class MapcodesDTO extends ApiDTO {
                     "territories may be covered by mapcodes from multiple territories and within a single territory, " +
                     "mapcodes of different lengths may exist. Normally, the logical thing to do, is select the shortest " +
                     "mapcode in the correct territory from this list. The attribute `local` tries to achieve this as well " +
-                    "but in some cases it may use a territory you don't wish to use.",
+                    "but in some cases it may use a territory you don't wish to use. Omitted if it is not selected by " +
+                    "the `fields` parameter.",
             dataType = "com.mapcode.services.dto.MapcodeDTO",
             reference = "com.mapcode.services.dto.MapcodeDTO")
     @JsonProperty("mapcodes")
@@ -84,6 +96,15 @@ public final class MapcodesDTO extends ApiDTO {
             @Nullable final MapcodeDTO local,
             @Nonnull final MapcodeDTO international,
             @Nonnull final MapcodeListDTO mapcodes) {
+        this(true, local, international, mapcodes);
+    }
+
+    private MapcodesDTO(
+            final boolean immutable,
+            @Nullable final MapcodeDTO local,
+            @Nullable final MapcodeDTO international,
+            @Nullable final MapcodeListDTO mapcodes) {
+        super(immutable);
         this.local = local;
         this.international = international;
         this.mapcodes = mapcodes;
@@ -96,6 +117,18 @@ public final class MapcodesDTO extends ApiDTO {
         this(local, international, new MapcodeListDTO(mapcodes));
     }
 
+    /**
+     * Create mapcodes with only the fields selected by the 'fields' parameter, so any field may be null.
+     * The selection is not validated (see {@link MapcodeDTO#createSelection}).
+     */
+    @Nonnull
+    public static MapcodesDTO createSelection(
+            @Nullable final MapcodeDTO local,
+            @Nullable final MapcodeDTO international,
+            @Nullable final MapcodeListDTO mapcodes) {
+        return new MapcodesDTO(false, local, international, mapcodes);
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @Deprecated
     private MapcodesDTO() {
@@ -137,4 +170,55 @@ public final class MapcodesDTO extends ApiDTO {
         assert mapcodes != null;
         this.mapcodes = mapcodes;
     }
+
+    /**
+     * Hand-written JSON and XML serializer of this class (see {@link JsonFieldWriter} and {@link XmlFieldWriter}).
+     */
+    public static final class Serializer extends StdSerializer<MapcodesDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private static final SerializableString LOCAL = new SerializedString("local");
+        @Nonnull
+        private static final SerializableString INTERNATIONAL = new SerializedString("international");
+        @Nonnull
+        private static final SerializableString MAPCODES = new SerializedString("mapcodes");
+
+        public Serializer() {
+            super(MapcodesDTO.class);
+        }
+
+        @Override
+        public void serialize(
+                @Nonnull final MapcodesDTO value,
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+
+        static void write(
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final MapcodesDTO value) throws IOException {
+            gen.writeStartObject(value);
+            JsonFieldWriter.writeMapcode(gen, LOCAL, value.local);
+            JsonFieldWriter.writeMapcode(gen, INTERNATIONAL, value.international);
+            if ((value.mapcodes != null) && !value.mapcodes.isEmpty()) {
+                gen.writeFieldName(MAPCODES);
+                MapcodeListDTO.Serializer.write(gen, value.mapcodes);
+            }
+            gen.writeEndObject();
+        }
+
+        /**
+         * Write the child elements of the element of this class.
+         */
+        static void writeXml(
+                @Nonnull final XMLStreamWriter xml,
+                @Nonnull final MapcodesDTO value) throws XMLStreamException {
+            XmlFieldWriter.writeMapcode(xml, "local", value.local);
+            XmlFieldWriter.writeMapcode(xml, "international", value.international);
+            XmlFieldWriter.writeMapcodes(xml, "mapcodes", value.mapcodes);
+        }
+    }
 }
@@ -18,6 +18,12 @@ package com.mapcode.services.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.mapcode.Point;
 import com.mapcode.services.ApiConstants;
 import com.tomtom.speedtools.apivalidation.ApiDTO;
@@ -25,23 +31,29 @@ import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 
 @SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
 @ApiModel(
         value = "point",
         description = "A WGS84 coordinate, specified as a latitude and logitude.")
 @JsonInclude(Include.NON_EMPTY)
+@JsonSerialize(using = PointDTO.Serializer.class)
 @XmlRootElement(name = "point")
 @XmlAccessorType(XmlAccessType.FIELD)
 public final class PointDTO extends ApiDTO {
 
     @ApiModelProperty(
             name = "latDeg",
-            value = "The latitude (South-North) in degrees. Format: [-90, 90], 0 indicates the equator.",
+            value = "The latitude (South-North) in degrees. Format: [-90, 90], 0 indicates the equator." +
+                    " Omitted if it is not selected by the `fields` parameter.",
             allowableValues = "range[-90,90]")
     @XmlElement(name = "latDeg")
     @Nonnull
@@ -49,7 +61,8 @@ public final class PointDTO extends ApiDTO {
 
     @ApiModelProperty(
             name = "lonDeg",
-            value = "The longitude (West-East) in degrees. Format: [-180, 180), 0 indicates the Greenwich meridian.",
+            value = "The longitude (West-East) in degrees. Format: [-180, 180), 0 indicates the Greenwich meridian." +
+                    " Omitted if it is not selected by the `fields` parameter.",
             allowableValues = "range[-180,180]")
     @XmlElement(name = "lonDeg")
     @Nonnull
@@ -66,6 +79,14 @@ public final class PointDTO extends ApiDTO {
     public PointDTO(
             @Nonnull final Double latDeg,
             @Nonnull final Double lonDeg) {
+        this(true, latDeg, lonDeg);
+    }
+
+    private PointDTO(
+            final boolean immutable,
+            @Nullable final Double latDeg,
+            @Nullable final Double lonDeg) {
+        super(immutable);
         this.latDeg = latDeg;
         this.lonDeg = lonDeg;
     }
@@ -74,6 +95,17 @@ public final class PointDTO extends ApiDTO {
         this(point.getLatDeg(), point.getLonDeg());
     }
 
+    /**
+     * Create a point with only the fields selected by the 'fields' parameter, so any field may be null.
+     * The selection is not validated (see {@link MapcodeDTO#createSelection}).
+     */
+    @Nonnull
+    public static PointDTO createSelection(
+            @Nullable final Double latDeg,
+            @Nullable final Double lonDeg) {
+        return new PointDTO(false, latDeg, lonDeg);
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @Deprecated
     private PointDTO() {
@@ -104,4 +136,48 @@ public final class PointDTO extends ApiDTO {
         assert lonDeg != null;
         this.lonDeg = lonDeg;
     }
+
+    /**
+     * Hand-written JSON and XML serializer of this class (see {@link JsonFieldWriter} and {@link XmlFieldWriter}).
+     */
+    public static final class Serializer extends StdSerializer<PointDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private static final SerializableString LAT_DEG = new SerializedString("latDeg");
+        @Nonnull
+        private static final SerializableString LON_DEG = new SerializedString("lonDeg");
+
+        public Serializer() {
+            super(PointDTO.class);
+        }
+
+        @Override
+        public void serialize(
+                @Nonnull final PointDTO value,
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+
+        static void write(
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final PointDTO value) throws IOException {
+            gen.writeStartObject(value);
+            JsonFieldWriter.writeDouble(gen, LAT_DEG, value.latDeg);
+            JsonFieldWriter.writeDouble(gen, LON_DEG, value.lonDeg);
+            gen.writeEndObject();
+        }
+
+        /**
+         * Write the child elements of the element of this class.
+         */
+        static void writeXml(
+                @Nonnull final XMLStreamWriter xml,
+                @Nonnull final PointDTO value) throws XMLStreamException {
+            XmlFieldWriter.writeDouble(xml, "latDeg", value.latDeg);
+            XmlFieldWriter.writeDouble(xml, "lonDeg", value.lonDeg);
+        }
+    }
 }
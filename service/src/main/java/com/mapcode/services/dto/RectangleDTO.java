@@ -18,6 +18,12 @@ package com.mapcode.services.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.mapcode.Rectangle;
 import com.tomtom.speedtools.apivalidation.ApiDTO;
 import io.swagger.annotations.ApiModel;
@@ -29,26 +35,30 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 
 @SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
 @ApiModel(
         value = "rectangle",
         description = "A rectangular geospatial area, defined by its South-West and North-East corners.")
 @JsonInclude(Include.NON_EMPTY)
+@JsonSerialize(using = RectangleDTO.Serializer.class)
 @XmlRootElement(name = "rectangle")
 @XmlAccessorType(XmlAccessType.FIELD)
 public final class RectangleDTO extends ApiDTO {
 
     @ApiModelProperty(
             name = "southWest",
-            value = "The South-West corner of the rectangular area.")
+            value = "The South-West corner of the rectangular area. Omitted if it is not selected by the `fields` parameter.")
     @XmlElement(name = "southWest")
     @Nonnull
     private PointDTO southWest;
 
     @ApiModelProperty(
             name = "northEast",
-            value = "The North-East corner of the rectangular area.")
+            value = "The North-East corner of the rectangular area. Omitted if it is not selected by the `fields` parameter.")
     @XmlElement(name = "northEast")
     @Nonnull
     private PointDTO northEast;
@@ -73,6 +83,15 @@ public final class RectangleDTO extends ApiDTO {
             @Nonnull final PointDTO southWest,
             @Nonnull final PointDTO northEast,
             @Nullable final PointDTO center) {
+        this(true, southWest, northEast, center);
+    }
+
+    private RectangleDTO(
+            final boolean immutable,
+            @Nullable final PointDTO southWest,
+            @Nullable final PointDTO northEast,
+            @Nullable final PointDTO center) {
+        super(immutable);
         this.southWest = southWest;
         this.northEast = northEast;
         this.center = center;
@@ -90,6 +109,18 @@ public final class RectangleDTO extends ApiDTO {
         this(new PointDTO(rectangle.getSouthWest()), new PointDTO(rectangle.getNorthEast()));
     }
 
+    /**
+     * Create a rectangle with only the fields selected by the 'fields' parameter, so any field may be null.
+     * The selection is not validated (see {@link MapcodeDTO#createSelection}).
+     */
+    @Nonnull
+    public static RectangleDTO createSelection(
+            @Nullable final PointDTO southWest,
+            @Nullable final PointDTO northEast,
+            @Nullable final PointDTO center) {
+        return new RectangleDTO(false, southWest, northEast, center);
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @Deprecated
     private RectangleDTO() {
@@ -131,4 +162,52 @@ public final class RectangleDTO extends ApiDTO {
         beforeSet();
         this.center = center;
     }
+
+    /**
+     * Hand-written JSON and XML serializer of this class (see {@link JsonFieldWriter} and {@link XmlFieldWriter}).
+     */
+    public static final class Serializer extends StdSerializer<RectangleDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private static final SerializableString SOUTH_WEST = new SerializedString("southWest");
+        @Nonnull
+        private static final SerializableString NORTH_EAST = new SerializedString("northEast");
+        @Nonnull
+        private static final SerializableString CENTER = new SerializedString("center");
+
+        public Serializer() {
+            super(RectangleDTO.class);
+        }
+
+        @Override
+        public void serialize(
+                @Nonnull final RectangleDTO value,
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+
+        static void write(
+                @Nonnull final JsonGenerator gen,
+                @Nonnull final RectangleDTO value) throws IOException {
+            gen.writeStartObject(value);
+            JsonFieldWriter.writePoint(gen, SOUTH_WEST, value.southWest);
+            JsonFieldWriter.writePoint(gen, NORTH_EAST, value.northEast);
+            JsonFieldWriter.writePoint(gen, CENTER, value.center);
+            gen.writeEndObject();
+        }
+
+        /**
+         * Write the child elements of the element of this class.
+         */
+        static void writeXml(
+                @Nonnull final XMLStreamWriter xml,
+                @Nonnull final RectangleDTO value) throws XMLStreamException {
+            XmlFieldWriter.writePoint(xml, "southWest", value.southWest);
+            XmlFieldWriter.writePoint(xml, "northEast", value.northEast);
+            XmlFieldWriter.writePoint(xml, "center", value.center);
+        }
+    }
 }
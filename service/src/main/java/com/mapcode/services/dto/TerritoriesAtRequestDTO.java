@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
+@ApiModel(
+        value = "territoriesAtRequest",
+        description = "A single coordinate to territories request, such as used in `POST /mapcode/territories/at`. " +
+                "The attributes have the same meaning as the parameters of `GET /mapcode/territories/at/{lat},{lon}`.")
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "request")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class TerritoriesAtRequestDTO extends ApiDTO {
+
+    @ApiModelProperty(
+            name = "latDeg",
+            value = "Latitude in degrees. Format: [-90, 90].",
+            allowableValues = "range[-90,90]")
+    @XmlElement(name = "latDeg")
+    @Nullable
+    private Double latDeg;
+
+    @ApiModelProperty(
+            name = "lonDeg",
+            value = "Longitude in degrees. Format: [-180, 180) (other values are correctly wrapped).",
+            allowableValues = "range[-180,180)")
+    @XmlElement(name = "lonDeg")
+    @Nullable
+    private Double lonDeg;
+
+    @Override
+    public void validate() {
+
+        // Invalid or missing values are reported per request in the response, so they do not fail the whole batch.
+        validator().start();
+        validator().checkNotNull(false, "latDeg", latDeg);
+        validator().checkNotNull(false, "lonDeg", lonDeg);
+        validator().done();
+    }
+
+    public TerritoriesAtRequestDTO(
+            @Nullable final Double latDeg,
+            @Nullable final Double lonDeg) {
+        this.latDeg = latDeg;
+        this.lonDeg = lonDeg;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private TerritoriesAtRequestDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    @Nullable
+    public Double getLatDeg() {
+        beforeGet();
+        return latDeg;
+    }
+
+    public void setLatDeg(@Nullable final Double latDeg) {
+        beforeSet();
+        this.latDeg = latDeg;
+    }
+
+    @Nullable
+    public Double getLonDeg() {
+        beforeGet();
+        return lonDeg;
+    }
+
+    public void setLonDeg(@Nullable final Double lonDeg) {
+        beforeSet();
+        this.lonDeg = lonDeg;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"NullableProblems", "InstanceVariableMayNotBeInitialized"})
+@ApiModel(
+        value = "territoriesAtResponse",
+        description = "The response to a single coordinate to territories request, such as returned by " +
+                "`POST /mapcode/territories/at`.")
+@JsonInclude(Include.NON_EMPTY)
+@XmlRootElement(name = "response")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class TerritoriesAtResponseDTO extends ApiDTO {
+
+    @ApiModelProperty(
+            name = "status",
+            value = "The HTTP status code that `GET /mapcode/territories/at/{lat},{lon}` would have returned " +
+                    "for this request, like 200 (OK) or 400 (bad request).")
+    @XmlElement(name = "status")
+    @Nonnull
+    private Integer status;
+
+    @ApiModelProperty(
+            name = "message",
+            value = "(optional) The error message, if the status is not 200.")
+    @XmlElement(name = "message")
+    @Nullable
+    private String message;
+
+    @ApiModelProperty(
+            name = "result",
+            value = "(optional) The result, if the status is 200.")
+    @XmlElement(name = "result")
+    @Nullable
+    private TerritoriesDTO result;
+
+    @Override
+    public void validate() {
+        validator().start();
+        validator().checkInteger(true, "status", status, 100, 599);
+        validator().checkNotNull(false, "message", message);
+        validator().checkNotNullAndValidate(false, "result", result);
+        validator().done();
+    }
+
+    public TerritoriesAtResponseDTO(
+            @Nonnull final Integer status,
+            @Nullable final String message,
+            @Nullable final TerritoriesDTO result) {
+        this.status = status;
+        this.message = message;
+        this.result = result;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Deprecated
+    private TerritoriesAtResponseDTO() {
+        // Default constructor required by JAX-B.
+        super();
+    }
+
+    @Nonnull
+    public Integer getStatus() {
+        beforeGet();
+        return status;
+    }
+
+    public void setStatus(@Nonnull final Integer status) {
+        beforeSet();
+        assert status != null;
+        this.status = status;
+    }
+
+    @Nullable
+    public String getMessage() {
+        beforeGet();
+        return message;
+    }
+
+    public void setMessage(@Nullable final String message) {
+        beforeSet();
+        this.message = message;
+    }
+
+    @Nullable
+    public TerritoriesDTO getResult() {
+        beforeGet();
+        return result;
+    }
+
+    public void setResult(@Nullable final TerritoriesDTO result) {
+        beforeSet();
+        this.result = result;
+    }
+}
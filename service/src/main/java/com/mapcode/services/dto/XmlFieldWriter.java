@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.List;
+
+/**
+ * This class writes the DTOs which are returned most often as XML to a StAX writer: {@link MapcodesDTO},
+ * {@link MapcodeDTO}, {@link MapcodeListDTO}, {@link RectangleDTO} and {@link PointDTO}. The elements are
+ * written by the hand-written serializers of these DTOs, which read their fields directly, instead of having
+ * JAXB marshal them.
+ *
+ * The output is the same as the output of JAXB: the elements are written in the order in which the fields are
+ * declared, null fields are omitted, an empty list is written as an empty element, a carriage return is
+ * written as a character reference and doubles are formatted like {@link Double#toString(double)} (see
+ * {@link DoubleFormatter} for the only difference), with "NaN", "INF" and "-INF" for the special values. Note
+ * that the serializers must be updated if fields are added to these DTOs.
+ */
+public final class XmlFieldWriter {
+
+    // Buffer to format doubles in, per thread.
+    @Nonnull
+    private static final ThreadLocal<char[]> DOUBLE_BUFFER =
+            ThreadLocal.withInitial(() -> new char[DoubleFormatter.MAX_LENGTH]);
+
+    private XmlFieldWriter() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Return whether objects of a class can be written by {@link #writeRoot(XMLStreamWriter, Object)}.
+     *
+     * @param type Class.
+     * @return True if objects of the class can be written.
+     */
+    public static boolean isWriteable(@Nonnull final Class<?> type) {
+        assert type != null;
+        return (type == MapcodesDTO.class) || (type == MapcodeDTO.class) || (type == MapcodeListDTO.class) ||
+                (type == RectangleDTO.class) || (type == PointDTO.class);
+    }
+
+    /**
+     * Write an object as the root element of a document. The XML declaration is not written.
+     *
+     * @param xml   StAX writer.
+     * @param value Object, for which {@link #isWriteable(Class)} must be true.
+     * @throws XMLStreamException If the object cannot be written.
+     */
+    public static void writeRoot(@Nonnull final XMLStreamWriter xml, @Nonnull final Object value) throws XMLStreamException {
+        assert xml != null;
+        assert value != null;
+        if (value instanceof MapcodesDTO) {
+            xml.writeStartElement("mapcodes");
+            MapcodesDTO.Serializer.writeXml(xml, (MapcodesDTO) value);
+            xml.writeEndElement();
+        } else if (value instanceof MapcodeDTO) {
+            writeMapcode(xml, "mapcode", (MapcodeDTO) value);
+        } else if (value instanceof MapcodeListDTO) {
+            writeMapcodes(xml, "mapcodes", (MapcodeListDTO) value);
+        } else if (value instanceof RectangleDTO) {
+            writeRectangle(xml, "rectangle", (RectangleDTO) value);
+        } else if (value instanceof PointDTO) {
+            writePoint(xml, "point", (PointDTO) value);
+        } else {
+            throw new IllegalArgumentException("Cannot write as XML: " + value.getClass().getName());
+        }
+    }
+
+    static void writeString(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final String value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+
+            // JAXB writes a carriage return as a character reference, to preserve it.
+            int start = 0;
+            int index = value.indexOf('\r');
+            while (index >= 0) {
+                xml.writeCharacters(value.substring(start, index));
+                xml.writeEntityRef("#13");
+                start = index + 1;
+                index = value.indexOf('\r', start);
+            }
+            xml.writeCharacters((start == 0) ? value : value.substring(start));
+            xml.writeEndElement();
+        }
+    }
+
+    static void writeDouble(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final Double value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+            final double d = value;
+            if (Double.isNaN(d)) {
+                xml.writeCharacters("NaN");
+            } else if (Double.isInfinite(d)) {
+                xml.writeCharacters((d > 0.0) ? "INF" : "-INF");
+            } else {
+                final char[] buffer = DOUBLE_BUFFER.get();
+                xml.writeCharacters(buffer, 0, DoubleFormatter.format(d, buffer, 0));
+            }
+            xml.writeEndElement();
+        }
+    }
+
+    static void writeMapcodes(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final List<MapcodeDTO> value) throws XMLStreamException {
+        if (value != null) {
+            if (value.isEmpty()) {
+                xml.writeEmptyElement(name);
+            } else {
+                xml.writeStartElement(name);
+                for (final MapcodeDTO mapcode : value) {
+                    writeMapcode(xml, "mapcode", mapcode);
+                }
+                xml.writeEndElement();
+            }
+        }
+    }
+
+    static void writeMapcode(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final MapcodeDTO value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+            MapcodeDTO.Serializer.writeXml(xml, value);
+            xml.writeEndElement();
+        }
+    }
+
+    static void writeRectangle(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final RectangleDTO value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+            RectangleDTO.Serializer.writeXml(xml, value);
+            xml.writeEndElement();
+        }
+    }
+
+    static void writePoint(
+            @Nonnull final XMLStreamWriter xml,
+            @Nonnull final String name,
+            @Nullable final PointDTO value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+            PointDTO.Serializer.writeXml(xml, value);
+            xml.writeEndElement();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * This class converts the requests of a batch in parallel, on a dedicated fork-join pool. The batch is split
+ * into (at most) one chunk per thread, and the results are returned in the order of the requests. Small
+ * batches are converted on the calling thread, as splitting them costs more than it saves.
+ */
+public final class BatchExecutor {
+
+    // Minimum number of requests per chunk.
+    static final int MIN_CHUNK_SIZE = 32;
+
+    // Used to give the threads of all pools a unique name.
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final int parallelism;
+    @Nonnull
+    private final ForkJoinPool pool;
+
+    /**
+     * Create an executor.
+     *
+     * @param parallelism Number of threads, or 0 for the number of available processors.
+     */
+    public BatchExecutor(final int parallelism) {
+        assert parallelism >= 0;
+        this.parallelism = (parallelism == 0) ? Runtime.getRuntime().availableProcessors() : parallelism;
+        this.pool = new ForkJoinPool(this.parallelism, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("mapcode-batch-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Return the maximum number of threads used for a single batch.
+     *
+     * @return Number of threads.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Return the number of chunks a batch is split into.
+     *
+     * @param size Number of requests in the batch.
+     * @return Number of chunks, at least 1.
+     */
+    public int getChunkCount(final int size) {
+        assert size >= 0;
+        return Math.max(1, Math.min(parallelism, (size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE));
+    }
+
+    /**
+     * Convert all requests of a batch. The converter is called concurrently, so it must be thread-safe.
+     *
+     * @param requests  Requests.
+     * @param converter Converts a single request. Must not throw exceptions.
+     * @param <T>       Request type.
+     * @param <R>       Result type.
+     * @return Results, in the same order as the requests.
+     */
+    @Nonnull
+    public <T, R> List<R> convert(@Nonnull final List<T> requests, @Nonnull final Function<T, R> converter) {
+        assert requests != null;
+        assert converter != null;
+        final int size = requests.size();
+        final int chunkCount = getChunkCount(size);
+        if (chunkCount == 1) {
+            return convertChunk(requests, converter);
+        }
+
+        // Submit all chunks, then collect their results in order.
+        final List<ForkJoinTask<List<R>>> tasks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; ++i) {
+            final List<T> chunk = requests.subList((int) (((long) size * i) / chunkCount), (int) (((long) size * (i + 1)) / chunkCount));
+            tasks.add(pool.submit(() -> convertChunk(chunk, converter)));
+        }
+        final List<R> results = new ArrayList<>(size);
+        for (final ForkJoinTask<List<R>> task : tasks) {
+            results.addAll(task.join());
+        }
+        return results;
+    }
+
+    @Nonnull
+    private static <T, R> List<R> convertChunk(@Nonnull final List<T> requests, @Nonnull final Function<T, R> converter) {
+        final List<R> results = new ArrayList<>(requests.size());
+        for (final T request : requests) {
+            results.add(converter.apply(request));
+        }
+        return results;
+    }
+}
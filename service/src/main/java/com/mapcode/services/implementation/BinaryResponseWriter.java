@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapcode.services.MapcodeResource;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * This class writes response objects in the binary formats CBOR, Smile and MessagePack, with the Jackson
+ * dataformat modules. The structure of the responses is the same as the structure of the JSON responses,
+ * as the same annotations and (hand-written) serializers are used. Pre-serialized responses are written
+ * by {@link SerializedResponseWriter}.
+ *
+ * This provider must be registered with RESTEasy (see web.xml and the standalone server).
+ */
+@Provider
+@Produces({MapcodeResource.APPLICATION_CBOR, MapcodeResource.APPLICATION_SMILE, MapcodeResource.APPLICATION_MSGPACK})
+public final class BinaryResponseWriter implements MessageBodyWriter<ApiDTO> {
+
+    @Override
+    public boolean isWriteable(
+            @Nonnull final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType) {
+        return ApiDTO.class.isAssignableFrom(type) && (mediaType != null) && (Serializers.getBinaryMapper(mediaType) != null);
+    }
+
+    @Override
+    public long getSize(
+            @Nonnull final ApiDTO value,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(
+            @Nonnull final ApiDTO value,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nonnull final MediaType mediaType,
+            @Nullable final MultivaluedMap<String, Object> httpHeaders,
+            @Nonnull final OutputStream entityStream) throws IOException {
+        final ObjectMapper mapper = Serializers.getBinaryMapper(mediaType);
+        assert mapper != null;
+
+        // The mapper does not close the stream.
+        mapper.writeValue(entityStream, value);
+    }
+}
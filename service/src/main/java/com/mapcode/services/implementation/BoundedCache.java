@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class implements a size-bounded, concurrent cache with (approximately) least-recently-used
+ * eviction. The size is either the number of entries or their total weight (such as their size in
+ * bytes). The cache is split into independently locked segments, so it scales with the number of
+ * cores. Hits, misses and evictions are reported to the supplied callbacks (normally metrics).
+ *
+ * @param <K> Key type. Must implement equals() and hashCode().
+ * @param <V> Value type. Values must be immutable, as they are shared between requests.
+ */
+public final class BoundedCache<K, V> {
+
+    @Nullable
+    private final Cache<K, V> cache;
+    @Nonnull
+    private final Runnable onHit;
+    @Nonnull
+    private final Runnable onMiss;
+
+    /**
+     * Create a cache.
+     *
+     * @param maxSize          Maximum number of entries. If 0, nothing is cached.
+     * @param concurrencyLevel Number of segments.
+     * @param onHit            Called for every cache hit.
+     * @param onMiss           Called for every cache miss.
+     * @param onEviction       Called for every entry evicted because the cache was full.
+     */
+    public BoundedCache(
+            final int maxSize,
+            final int concurrencyLevel,
+            @Nonnull final Runnable onHit,
+            @Nonnull final Runnable onMiss,
+            @Nonnull final Runnable onEviction) {
+        assert maxSize >= 0;
+        assert concurrencyLevel >= 1;
+        assert onHit != null;
+        assert onMiss != null;
+        assert onEviction != null;
+        this.onHit = onHit;
+        this.onMiss = onMiss;
+        this.cache = (maxSize == 0) ? null :
+                createCache(CacheBuilder.newBuilder().maximumSize(maxSize), concurrencyLevel, onEviction);
+    }
+
+    /**
+     * Create a cache which is bounded by the total weight of its entries.
+     *
+     * @param maxWeight        Maximum total weight of the entries. If 0, nothing is cached.
+     * @param weigher          Returns the weight of an entry.
+     * @param concurrencyLevel Number of segments.
+     * @param onHit            Called for every cache hit.
+     * @param onMiss           Called for every cache miss.
+     * @param onEviction       Called for every entry evicted because the cache was full.
+     */
+    public BoundedCache(
+            final long maxWeight,
+            @Nonnull final Weigher<K, V> weigher,
+            final int concurrencyLevel,
+            @Nonnull final Runnable onHit,
+            @Nonnull final Runnable onMiss,
+            @Nonnull final Runnable onEviction) {
+        assert maxWeight >= 0;
+        assert weigher != null;
+        assert concurrencyLevel >= 1;
+        assert onHit != null;
+        assert onMiss != null;
+        assert onEviction != null;
+        this.onHit = onHit;
+        this.onMiss = onMiss;
+        this.cache = (maxWeight == 0) ? null :
+                createCache(CacheBuilder.newBuilder().maximumWeight(maxWeight).weigher(weigher), concurrencyLevel, onEviction);
+    }
+
+    /**
+     * Create the cache from a builder which holds the bound of the cache.
+     */
+    @Nonnull
+    private static <K, V> Cache<K, V> createCache(
+            @Nonnull final CacheBuilder<? super K, ? super V> builder,
+            final int concurrencyLevel,
+            @Nonnull final Runnable onEviction) {
+        final RemovalListener<K, V> removalListener = notification -> {
+            if (notification.wasEvicted()) {
+                onEviction.run();
+            }
+        };
+        return builder.
+                concurrencyLevel(concurrencyLevel).
+                removalListener(removalListener).
+                build();
+    }
+
+    /**
+     * Get a value from the cache.
+     *
+     * @param key Key.
+     * @return Cached value, or null if the key is not (or no longer) in the cache.
+     */
+    @Nullable
+    public V get(@Nonnull final K key) {
+        assert key != null;
+        if (cache == null) {
+            return null;
+        }
+        final V value = cache.getIfPresent(key);
+        if (value == null) {
+            onMiss.run();
+        } else {
+            onHit.run();
+        }
+        return value;
+    }
+
+    /**
+     * Store a value in the cache.
+     *
+     * @param key   Key.
+     * @param value Value.
+     */
+    public void put(@Nonnull final K key, @Nonnull final V value) {
+        assert key != null;
+        assert value != null;
+        if (cache != null) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Return the number of entries in the cache.
+     *
+     * @return Number of entries (approximately).
+     */
+    public long size() {
+        return (cache == null) ? 0 : cache.size();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.google.common.hash.Hashing;
+import com.mapcode.services.MapcodeProperties;
+import com.mapcode.services.metrics.SystemMetricsCollector;
+import com.tomtom.speedtools.maven.MavenProperties;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * This class implements HTTP conditional requests for the GET requests of codes, coords, territories and
+ * alphabets. The responses of these requests only depend on the request and the version of the service
+ * (which includes the mapcode library), so a strong entity tag can be derived from the request itself,
+ * before the request is processed:
+ *
+ * - Successful responses get an ETag and a "Cache-Control: public, max-age=N" header.
+ * - A request with an If-None-Match header that matches its entity tag is answered with 304 Not Modified,
+ * without processing the request. The request is still counted in the request metrics of its route. Only
+ * successful responses get an entity tag, so a client can only have a matching tag for a valid request.
+ * "If-None-Match: *" is not honored, because the filter cannot know whether the request is valid without
+ * processing it.
+ *
+ * The entity tag is a hash of the service version and the {@link NormalizedRequest}. Requests which cannot
+ * produce JSON, XML or one of the binary formats are left alone.
+ *
+ * This provider must be registered with RESTEasy (see ResourcesModule and the standalone server).
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.USER)
+public final class ConditionalRequestFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    // Name of the request property that holds the entity tag and normalized request.
+    private static final String PROPERTY_CONDITIONAL = ConditionalRequestFilter.class.getName();
+
+    @Nonnull
+    private final String version;
+    @Nonnull
+    private final String cacheControl;
+    @Nonnull
+    private final SystemMetricsCollector metricsCollector;
+
+    @Inject
+    public ConditionalRequestFilter(
+            @Nonnull final MavenProperties mavenProperties,
+            @Nonnull final MapcodeProperties mapcodeProperties,
+            @Nonnull final SystemMetricsCollector metricsCollector) {
+        assert mavenProperties != null;
+        assert mapcodeProperties != null;
+        assert metricsCollector != null;
+        this.version = mavenProperties.getPomVersion();
+        this.cacheControl = "public, max-age=" + mapcodeProperties.getCacheMaxAgeSecs();
+        this.metricsCollector = metricsCollector;
+    }
+
+    @Override
+    public void filter(@Nonnull final ContainerRequestContext requestContext) {
+        assert requestContext != null;
+        final NormalizedRequest request = NormalizedRequest.of(requestContext);
+        if (request == null) {
+            return;
+        }
+        final Conditional conditional = new Conditional(createETag(request), request);
+        requestContext.setProperty(PROPERTY_CONDITIONAL, conditional);
+
+        if (isMatch(requestContext.getHeaders().get(HttpHeaders.IF_NONE_MATCH), conditional.eTag)) {
+
+            // The resource method is not called, so count the request here.
+            request.addOneRequest(metricsCollector);
+            metricsCollector.addOneNotModifiedResponse();
+            final Response.ResponseBuilder builder = Response.notModified().
+                    header(HttpHeaders.ETAG, conditional.eTag).
+                    header(HttpHeaders.CACHE_CONTROL, cacheControl);
+            if (request.isNegotiated()) {
+                builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+            requestContext.abortWith(builder.build());
+        }
+    }
+
+    @Override
+    public void filter(
+            @Nonnull final ContainerRequestContext requestContext,
+            @Nonnull final ContainerResponseContext responseContext) {
+        assert requestContext != null;
+        assert responseContext != null;
+        final Object property = requestContext.getProperty(PROPERTY_CONDITIONAL);
+        if (!(property instanceof Conditional) || (responseContext.getStatus() != Response.Status.OK.getStatusCode())) {
+            return;
+        }
+
+        // Only tag the response if it has the media type the entity tag was created for.
+        final Conditional conditional = (Conditional) property;
+        final MediaType mediaType = responseContext.getMediaType();
+        if ((mediaType == null) || !conditional.request.getMediaType().isCompatible(mediaType)) {
+            return;
+        }
+        final MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        headers.putSingle(HttpHeaders.ETAG, conditional.eTag);
+        headers.putSingle(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (conditional.request.isNegotiated()) {
+            headers.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    @Nonnull
+    private String createETag(@Nonnull final NormalizedRequest request) {
+        final String value = version + '\n' + request.getKey();
+        return '"' + Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8).toString() + '"';
+    }
+
+    /**
+     * Check if an entity tag matches the If-None-Match headers of a request. The comparison is weak, as
+     * required for If-None-Match, so a "W/" prefix is ignored.
+     *
+     * @param ifNoneMatch If-None-Match header values, or null if there are none.
+     * @param eTag        Entity tag of the request, including the quotes.
+     * @return True if the header contains the entity tag. "*" does not match.
+     */
+    private static boolean isMatch(@Nullable final List<String> ifNoneMatch, @Nonnull final String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (final String value : ifNoneMatch) {
+            for (final String tag : value.split(",")) {
+                final String trimmed = tag.trim();
+                if (eTag.equals(trimmed) || (trimmed.startsWith("W/") && eTag.equals(trimmed.substring(2)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Entity tag and normalized request, stored as a request property between the request and response filter.
+     */
+    private static final class Conditional {
+        @Nonnull
+        private final String eTag;
+        @Nonnull
+        private final NormalizedRequest request;
+
+        private Conditional(@Nonnull final String eTag, @Nonnull final NormalizedRequest request) {
+            this.eTag = eTag;
+            this.request = request;
+        }
+    }
+}
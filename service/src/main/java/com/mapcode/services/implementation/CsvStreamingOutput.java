@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.MapcodeResource;
+import com.tomtom.speedtools.apivalidation.exceptions.ApiInvalidFormatException;
+import com.tomtom.speedtools.apivalidation.exceptions.ApiParameterMissingException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * This class converts a CSV file (RFC 4180) with one request per row into a CSV file with one response per
+ * row. The first row of the input must contain the column names. Every output row contains the input row,
+ * followed by the columns produced by the converter (normally a status, an error message and the result).
+ * Rows are read and written one at a time, so the memory use does not depend on the size of the input.
+ *
+ * The request fields are taken from the columns with the same name (case-insensitive), unless the column
+ * mapping specifies otherwise. The column mapping has the format "field:column,field:column,...".
+ */
+final class CsvStreamingOutput implements StreamingOutput {
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final String API_ERROR_VALID_COLUMNS = "field:column[,field:column]*";
+
+    @Nonnull
+    private final Reader input;
+    @Nonnull
+    private final List<String> header;
+    @Nonnull
+    private final int[] fieldColumns;
+    @Nonnull
+    private final List<String> resultColumns;
+    @Nonnull
+    private final Function<String[], List<String>> converter;
+    @Nonnull
+    private final IntConsumer onDone;
+
+    /**
+     * Create a streaming output. This reads the header row of the input and resolves the request fields to
+     * columns, so invalid column mappings are reported before any output is produced.
+     *
+     * @param input          Request body, in UTF-8.
+     * @param fields         Names of the request fields.
+     * @param requiredFields Names of the request fields which must have a column.
+     * @param paramColumns   Column mapping, or empty to use the column names as field names.
+     * @param resultColumns  Names of the columns added by the converter.
+     * @param converter      Converts the request fields of a row (in the order of 'fields', null if empty
+     *                       or missing) into the values of the result columns. Must not throw exceptions.
+     * @param onDone         Called with the number of converted rows when the input is exhausted.
+     * @throws ApiInvalidFormatException   If the column mapping is invalid, or the input has no header row.
+     * @throws ApiParameterMissingException If a required field has no column.
+     * @throws IOException                  If the input cannot be read.
+     */
+    CsvStreamingOutput(
+            @Nonnull final InputStream input,
+            @Nonnull final List<String> fields,
+            @Nonnull final Set<String> requiredFields,
+            @Nonnull final String paramColumns,
+            @Nonnull final List<String> resultColumns,
+            @Nonnull final Function<String[], List<String>> converter,
+            @Nonnull final IntConsumer onDone) throws ApiInvalidFormatException, ApiParameterMissingException, IOException {
+        assert input != null;
+        assert fields != null;
+        assert requiredFields != null;
+        assert paramColumns != null;
+        assert resultColumns != null;
+        assert converter != null;
+        assert onDone != null;
+        this.input = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.resultColumns = resultColumns;
+        this.converter = converter;
+        this.onDone = onDone;
+
+        // Read the header.
+        final List<String> header = readRow(this.input);
+        if (header == null) {
+            throw new ApiInvalidFormatException("header", "", "column names");
+        }
+
+        // Remove the byte order mark, which some spreadsheet applications write.
+        if (header.get(0).startsWith(BYTE_ORDER_MARK)) {
+            header.set(0, header.get(0).substring(BYTE_ORDER_MARK.length()));
+        }
+        this.header = header;
+
+        // Get the column name of every field.
+        final String[] fieldColumnNames = fields.toArray(new String[fields.size()]);
+        if (!paramColumns.isEmpty()) {
+            for (final String mapping : paramColumns.split(",")) {
+                final int index = mapping.indexOf(':');
+                final int field = (index < 0) ? -1 : indexOfIgnoreCase(fields, mapping.substring(0, index).trim());
+                if (field < 0) {
+                    throw new ApiInvalidFormatException(MapcodeResource.PARAM_COLUMNS, paramColumns, API_ERROR_VALID_COLUMNS);
+                }
+                fieldColumnNames[field] = mapping.substring(index + 1).trim();
+            }
+        }
+
+        // Find the columns.
+        this.fieldColumns = new int[fields.size()];
+        for (int i = 0; i < fieldColumns.length; ++i) {
+            fieldColumns[i] = indexOfIgnoreCase(header, fieldColumnNames[i]);
+            if ((fieldColumns[i] < 0) && requiredFields.contains(fields.get(i))) {
+                throw new ApiParameterMissingException(fields.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void write(@Nonnull final OutputStream output) throws IOException {
+        int count = 0;
+        try {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            final List<String> outputHeader = new ArrayList<>(header);
+            outputHeader.addAll(resultColumns);
+            writeRow(writer, outputHeader);
+
+            final String[] values = new String[fieldColumns.length];
+            List<String> row = readRow(input);
+            while (row != null) {
+                for (int i = 0; i < fieldColumns.length; ++i) {
+                    final int column = fieldColumns[i];
+                    values[i] = ((column < 0) || (column >= row.size()) || row.get(column).isEmpty()) ? null : row.get(column);
+                }
+                row.addAll(converter.apply(values));
+                writeRow(writer, row);
+                ++count;
+                row = readRow(input);
+            }
+            writer.flush();
+        } finally {
+            onDone.accept(count);
+        }
+    }
+
+    /**
+     * Read a row. Fields may be quoted with '"' (and then contain separators, line breaks and '""' for '"').
+     *
+     * @param reader Input.
+     * @return Fields of the row, or null at the end of the input. Empty lines are skipped.
+     * @throws IOException If the input cannot be read.
+     */
+    @Nullable
+    static List<String> readRow(@Nonnull final Reader reader) throws IOException {
+        final List<String> row = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int c = reader.read();
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    final int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+                empty = false;
+            } else if ((c == '\n') || (c == '\r')) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (!empty || (field.length() > 0)) {
+                    break;
+                }
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        if ((c < 0) && empty && (field.length() == 0)) {
+            return null;
+        }
+        row.add(field.toString());
+        return row;
+    }
+
+    /**
+     * Write a row, quoting fields only if needed.
+     *
+     * @param writer Output.
+     * @param row    Fields of the row.
+     * @throws IOException If the output cannot be written.
+     */
+    static void writeRow(@Nonnull final Writer writer, @Nonnull final List<String> row) throws IOException {
+        for (int i = 0; i < row.size(); ++i) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            final String field = row.get(i);
+            if ((field.indexOf(',') >= 0) || (field.indexOf('"') >= 0) || (field.indexOf('\n') >= 0) || (field.indexOf('\r') >= 0)) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static int indexOfIgnoreCase(@Nonnull final List<String> names, @Nonnull final String name) {
+        for (int i = 0; i < names.size(); ++i) {
+            if (names.get(i).trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * This class is the key of the mapcode to lat/lon cache. It holds the mapcode and context as
+ * supplied in the request, with ASCII letters converted to uppercase (decoding ignores their case).
+ * Other characters, like those of non-Roman alphabets, are left untouched.
+ */
+public final class DecodeKey {
+    @Nonnull
+    private final String code;
+    @Nullable
+    private final String context;
+    private final boolean includeRectangle;
+    private final int hashCode;
+
+    /**
+     * Create a key.
+     *
+     * @param code             Mapcode, as supplied in the request.
+     * @param context          Territory context, as supplied in the request, or null.
+     * @param includeRectangle True if the rectangle, rather than the point, is requested.
+     */
+    public DecodeKey(@Nonnull final String code, @Nullable final String context, final boolean includeRectangle) {
+        assert code != null;
+        this.code = toUpperCaseAscii(code);
+        this.context = (context == null) ? null : toUpperCaseAscii(context);
+        this.includeRectangle = includeRectangle;
+        this.hashCode = Objects.hash(this.code, this.context, includeRectangle);
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        final DecodeKey that = (DecodeKey) obj;
+        return (hashCode == that.hashCode) &&
+                (includeRectangle == that.includeRectangle) &&
+                code.equals(that.code) &&
+                Objects.equals(context, that.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "DecodeKey[" + code + ", context=" + context + ", includeRectangle=" + includeRectangle + ']';
+    }
+
+    @Nonnull
+    private static String toUpperCaseAscii(@Nonnull final String value) {
+
+        // Only copy the string if it contains lowercase ASCII letters.
+        final int length = value.length();
+        int i = 0;
+        while ((i < length) && ((value.charAt(i) < 'a') || (value.charAt(i) > 'z'))) {
+            ++i;
+        }
+        if (i == length) {
+            return value;
+        }
+        final char[] chars = value.toCharArray();
+        for (; i < length; ++i) {
+            if ((chars[i] >= 'a') && (chars[i] <= 'z')) {
+                chars[i] = (char) (chars[i] - ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
+}
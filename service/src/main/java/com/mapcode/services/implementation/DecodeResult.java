@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Territory;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+
+import javax.annotation.Nullable;
+
+/**
+ * This class is the value of the mapcode to lat/lon cache. It holds the resolved territory context
+ * and the validated response, or no response if the mapcode is unknown (negative caching).
+ */
+public final class DecodeResult {
+    @Nullable
+    private final Territory territoryContext;
+    @Nullable
+    private final ApiDTO result;
+
+    /**
+     * Create a result.
+     *
+     * @param territoryContext Resolved territory context, or null.
+     * @param result           Validated response, or null if the mapcode is unknown.
+     */
+    public DecodeResult(@Nullable final Territory territoryContext, @Nullable final ApiDTO result) {
+        this.territoryContext = territoryContext;
+        this.result = result;
+    }
+
+    @Nullable
+    public Territory getTerritoryContext() {
+        return territoryContext;
+    }
+
+    /**
+     * Return the response.
+     *
+     * @return Validated response, or null if the mapcode is unknown.
+     */
+    @Nullable
+    public ApiDTO getResult() {
+        return result;
+    }
+}
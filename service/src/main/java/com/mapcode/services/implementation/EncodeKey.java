@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Alphabet;
+import com.mapcode.Territory;
+import com.mapcode.services.MapcodeResource.ParamType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * This class is the key of the lat/lon to mapcode cache. It holds the (already snapped) lat/lon and
+ * all validated parameters that influence the response, so the response can be created from the key alone.
+ */
+public final class EncodeKey {
+    private final double latDeg;
+    private final double lonDeg;
+    @Nullable
+    private final ParamType type;
+    private final int precision;
+    @Nullable
+    private final Territory territory;
+    @Nullable
+    private final String country;
+    @Nullable
+    private final Alphabet alphabet;
+    private final int includes;
+    @Nonnull
+    private final FieldSelection fields;
+    private final int hashCode;
+
+    /**
+     * Create a key.
+     *
+     * @param latDeg    Latitude.
+     * @param lonDeg    Longitude.
+     * @param type      Type of mapcodes, or null for all types.
+     * @param precision Precision.
+     * @param territory Territory, or null.
+     * @param country   Country (uppercase ISO 3166 3-character code), or null.
+     * @param alphabet  Alphabet, or null.
+     * @param includes  Bit set of included fields (bit N is set for ParamInclude.values()[N]).
+     * @param fields    Selected fields.
+     */
+    public EncodeKey(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final ParamType type,
+            final int precision,
+            @Nullable final Territory territory,
+            @Nullable final String country,
+            @Nullable final Alphabet alphabet,
+            final int includes,
+            @Nonnull final FieldSelection fields) {
+        assert fields != null;
+        this.latDeg = latDeg;
+        this.lonDeg = lonDeg;
+        this.type = type;
+        this.precision = precision;
+        this.territory = territory;
+        this.country = country;
+        this.alphabet = alphabet;
+        this.includes = includes;
+        this.fields = fields;
+        this.hashCode = Objects.hash(latDeg, lonDeg, type, precision, territory, country, alphabet, includes, fields);
+    }
+
+    public double getLatDeg() {
+        return latDeg;
+    }
+
+    public double getLonDeg() {
+        return lonDeg;
+    }
+
+    @Nullable
+    public ParamType getType() {
+        return type;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Nullable
+    public Territory getTerritory() {
+        return territory;
+    }
+
+    @Nullable
+    public String getCountry() {
+        return country;
+    }
+
+    @Nullable
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    public int getIncludes() {
+        return includes;
+    }
+
+    @Nonnull
+    public FieldSelection getFields() {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        final EncodeKey that = (EncodeKey) obj;
+        return (hashCode == that.hashCode) &&
+                (Double.compare(latDeg, that.latDeg) == 0) &&
+                (Double.compare(lonDeg, that.lonDeg) == 0) &&
+                (precision == that.precision) &&
+                (includes == that.includes) &&
+                (type == that.type) &&
+                (territory == that.territory) &&
+                (alphabet == that.alphabet) &&
+                Objects.equals(country, that.country) &&
+                fields.equals(that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "EncodeKey[" + latDeg + ", " + lonDeg + ", type=" + type + ", precision=" + precision +
+                ", territory=" + territory + ", country=" + country + ", alphabet=" + alphabet + ", includes=" + includes +
+                ", fields=" + fields + ']';
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the full result of encoding a single lat/lon: all mapcodes, the international
+ * mapcode and the shortest local mapcode.
+ *
+ * The lat/lon is encoded only once. The international and local mapcodes are taken from the list
+ * of all mapcodes whenever possible, so they share their lazily decoded rectangles and offsets.
+ */
+public final class EncodeResult {
+    @Nonnull
+    private final List<MapcodeResult> mapcodes;
+    @Nonnull
+    private final MapcodeResult international;
+    @Nullable
+    private final MapcodeResult local;
+
+    private EncodeResult(
+            @Nonnull final List<MapcodeResult> mapcodes,
+            @Nonnull final MapcodeResult international,
+            @Nullable final MapcodeResult local) {
+        assert mapcodes != null;
+        assert international != null;
+        this.mapcodes = Collections.unmodifiableList(mapcodes);
+        this.international = international;
+        this.local = local;
+    }
+
+    /**
+     * Encode a lat/lon to all mapcodes, the international and the shortest local mapcode.
+     *
+     * @param latDeg    Latitude.
+     * @param lonDeg    Longitude.
+     * @param territory Territory to restrict the mapcodes to, or null. Must be null if 'country' is specified.
+     * @param country   Country (ISO 3166 code) to restrict the mapcodes to, or null.
+     * @return Encoding result.
+     */
+    @Nonnull
+    public static EncodeResult encode(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory territory,
+            @Nullable final String country) {
+        assert (territory == null) || (country == null);
+
+        // Get all mapcodes. This is the only full encoding pass.
+        final List<Mapcode> mapcodes;
+        if (country != null) {
+            mapcodes = MapcodeCodec.encodeRestrictToCountryISO(latDeg, lonDeg, country);
+        } else {
+            mapcodes = MapcodeCodec.encode(latDeg, lonDeg, territory);
+        }
+
+        // The international mapcode is always the last one of an unrestricted list.
+        final Mapcode last = mapcodes.isEmpty() ? null : mapcodes.get(mapcodes.size() - 1);
+        final Mapcode mapcodeInternational = ((last != null) && (last.getTerritory() == Territory.AAA)) ?
+                last : MapcodeCodec.encodeToInternational(latDeg, lonDeg);
+
+        // Get the shortest local mapcode.
+        Mapcode mapcodeLocal = null;
+        if (country != null) {
+
+            // A country was provided, so use the shortest mapcode for the country itself.
+            final Territory countryTerritory = TerritoryIndex.fromCountryISO(country);
+            assert countryTerritory != null;
+            for (final Mapcode mapcode : mapcodes) {
+                if (mapcode.getTerritory() == countryTerritory) {
+                    mapcodeLocal = mapcode;
+                    break;
+                }
+            }
+            if (mapcodeLocal == null) {
+                try {
+                    mapcodeLocal = MapcodeCodec.encodeToShortest(latDeg, lonDeg, countryTerritory);
+                } catch (final UnknownMapcodeException ignored) {
+                    // No local mapcode.
+                }
+            }
+        } else if (territory != null) {
+
+            // A territory was provided, so simply use first (the list is sorted from short to long).
+            mapcodeLocal = mapcodes.isEmpty() ? null : mapcodes.get(0);
+        } else {
+
+            // Get the shortest code.
+            Territory localTerritory = null;
+            for (final Mapcode mapcode : mapcodes) {
+                if (mapcode.getTerritory() != Territory.AAA) {
+                    if (localTerritory == null) {
+
+                        // First local territory found. Use a local mapcode, unless another territory is found.
+                        localTerritory = mapcode.getTerritory();
+                        mapcodeLocal = mapcode;
+                    } else {
+                        if (localTerritory != mapcode.getTerritory()) {
+
+                            // Found another local territory; reset local mapcode.
+                            if (mapcode.getCode().length() < mapcodeLocal.getCode().length()) {
+                                mapcodeLocal = mapcode;
+                                localTerritory = mapcode.getTerritory();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Rectangles and offsets are only decoded later, if they are asked for.
+        final List<MapcodeResult> results = new ArrayList<>(mapcodes.size());
+        MapcodeResult internationalResult = null;
+        MapcodeResult localResult = null;
+        for (final Mapcode mapcode : mapcodes) {
+            final MapcodeResult result = new MapcodeResult(mapcode, latDeg, lonDeg);
+            results.add(result);
+            if (mapcode == mapcodeInternational) {
+                internationalResult = result;
+            }
+            if (mapcode == mapcodeLocal) {
+                localResult = result;
+            }
+        }
+        if (internationalResult == null) {
+            internationalResult = new MapcodeResult(mapcodeInternational, latDeg, lonDeg);
+        }
+        if ((localResult == null) && (mapcodeLocal != null)) {
+            localResult = new MapcodeResult(mapcodeLocal, latDeg, lonDeg);
+        }
+        return new EncodeResult(results, internationalResult, localResult);
+    }
+
+    /**
+     * Encode a lat/lon to the international mapcode only. The international mapcode does not depend on
+     * a territory or country, so this skips encoding all local mapcodes.
+     *
+     * @param latDeg Latitude.
+     * @param lonDeg Longitude.
+     * @return International mapcode.
+     */
+    @Nonnull
+    public static MapcodeResult encodeToInternational(final double latDeg, final double lonDeg) {
+        return new MapcodeResult(MapcodeCodec.encodeToInternational(latDeg, lonDeg), latDeg, lonDeg);
+    }
+
+    /**
+     * Encode a lat/lon to the shortest local mapcode of a single territory only. This stops encoding at
+     * the first mapcode found, and returns the same mapcode as {@link #getLocal()} for a result that was
+     * restricted to that territory (or to the country of that territory).
+     *
+     * @param latDeg    Latitude.
+     * @param lonDeg    Longitude.
+     * @param territory Territory.
+     * @return Shortest local mapcode, or null if the lat/lon has no mapcode in the territory.
+     */
+    @Nullable
+    public static MapcodeResult encodeToShortest(final double latDeg, final double lonDeg, @Nonnull final Territory territory) {
+        assert territory != null;
+        try {
+            return new MapcodeResult(MapcodeCodec.encodeToShortest(latDeg, lonDeg, territory), latDeg, lonDeg);
+        } catch (final UnknownMapcodeException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the territories which have a mapcode for a lat/lon. The international territory {@link Territory#AAA}
+     * is not returned, as it contains every lat/lon.
+     *
+     * @param latDeg Latitude.
+     * @param lonDeg Longitude.
+     * @return Territories, in the same order as their mapcodes. Empty if the lat/lon only has an international mapcode.
+     */
+    @Nonnull
+    public static List<Territory> getTerritories(final double latDeg, final double lonDeg) {
+        final List<Territory> territories = new ArrayList<>();
+        for (final Mapcode mapcode : MapcodeCodec.encode(latDeg, lonDeg)) {
+            final Territory territory = mapcode.getTerritory();
+
+            // Mapcodes of the same territory are adjacent.
+            if ((territory != Territory.AAA) && (territories.isEmpty() || (territories.get(territories.size() - 1) != territory))) {
+                territories.add(territory);
+            }
+        }
+        return territories;
+    }
+
+    /**
+     * Return all mapcodes, sorted from (shortest) local to (longest) international mapcode.
+     *
+     * @return All mapcodes.
+     */
+    @Nonnull
+    public List<MapcodeResult> getMapcodes() {
+        return mapcodes;
+    }
+
+    /**
+     * Return the international mapcode.
+     *
+     * @return International mapcode.
+     */
+    @Nonnull
+    public MapcodeResult getInternational() {
+        return international;
+    }
+
+    /**
+     * Return the shortest local mapcode.
+     *
+     * @return Local mapcode, or null if there is no local mapcode.
+     */
+    @Nullable
+    public MapcodeResult getLocal() {
+        return local;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * This class holds the response fields selected by the 'fields' parameter of the conversions, like
+ * "international.mapcode,local". A field selects all its child fields, and its parent fields (without their
+ * other child fields). An empty selection selects all fields.
+ *
+ * Selections are only created from valid field names (see {@link #parse(String, List)}), so the conversions can
+ * skip computing the parts of a response which are not selected.
+ */
+public final class FieldSelection {
+
+    /**
+     * Fields of a mapcode. Bit N of a mask returned by {@link #getMapcodeFields(String)} is set if
+     * field N of this list is selected.
+     */
+    @Nonnull
+    public static final List<String> MAPCODE_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "mapcode", "mapcodeInAlphabet", "territory", "territoryInAlphabet", "offsetMeters", "rectangle"));
+    public static final int MAPCODE = 1;
+    public static final int MAPCODE_IN_ALPHABET = 1 << 1;
+    public static final int TERRITORY = 1 << 2;
+    public static final int TERRITORY_IN_ALPHABET = 1 << 3;
+    public static final int OFFSET_METERS = 1 << 4;
+    public static final int RECTANGLE = 1 << 5;
+    public static final int ALL_MAPCODE_FIELDS = (1 << 6) - 1;
+
+    /**
+     * Fields of the response with the local, international and all mapcodes, including the fields of the mapcodes.
+     */
+    @Nonnull
+    public static final List<String> MAPCODES_FIELDS;
+
+    /**
+     * Fields of a point.
+     */
+    @Nonnull
+    public static final List<String> POINT_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "latDeg", "lonDeg"));
+
+    /**
+     * Fields of a rectangle.
+     */
+    @Nonnull
+    public static final List<String> RECTANGLE_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "southWest", "northEast", "center"));
+
+    /**
+     * Selection of all fields.
+     */
+    @Nonnull
+    public static final FieldSelection ALL = new FieldSelection(Collections.emptySortedSet());
+
+    static {
+        assert ALL_MAPCODE_FIELDS == ((1 << MAPCODE_FIELDS.size()) - 1);
+        final List<String> mapcodesFields = new ArrayList<>();
+        for (final String parent : Arrays.asList("local", "international", "mapcodes")) {
+            mapcodesFields.add(parent);
+            for (final String field : MAPCODE_FIELDS) {
+                mapcodesFields.add(parent + '.' + field);
+            }
+        }
+        MAPCODES_FIELDS = Collections.unmodifiableList(mapcodesFields);
+    }
+
+    // Selected fields, without fields whose parent is selected as well. Empty if all fields are selected.
+    @Nonnull
+    private final SortedSet<String> fields;
+
+    private FieldSelection(@Nonnull final SortedSet<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parse a comma-separated list of field names.
+     *
+     * @param fields      Field names, like "international.mapcode,local". Spaces around names are ignored.
+     * @param validFields Valid field names, like {@link #MAPCODES_FIELDS}.
+     * @return Selection of the fields ({@link #ALL} if no names are specified), or null if a name is not valid.
+     */
+    @Nullable
+    public static FieldSelection parse(@Nonnull final String fields, @Nonnull final List<String> validFields) {
+        assert fields != null;
+        assert validFields != null;
+        final SortedSet<String> selected = new TreeSet<>();
+        for (final String arg : fields.split(",")) {
+            final String field = arg.trim();
+            if (!field.isEmpty()) {
+                if (!validFields.contains(field)) {
+                    return null;
+                }
+                selected.add(field);
+            }
+        }
+        if (selected.isEmpty()) {
+            return ALL;
+        }
+
+        // Remove fields which are already selected by their parent, so equal selections are equal.
+        selected.removeIf(field -> {
+            final int index = field.lastIndexOf('.');
+            return (index >= 0) && selected.contains(field.substring(0, index));
+        });
+        return new FieldSelection(Collections.unmodifiableSortedSet(selected));
+    }
+
+    /**
+     * Return whether all fields are selected.
+     *
+     * @return True if all fields are selected.
+     */
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Return whether a field is selected, either by itself, by its parent or by one of its child fields.
+     *
+     * @param field Field name, like "international.mapcode".
+     * @return True if the field is selected.
+     */
+    public boolean isSelected(@Nonnull final String field) {
+        assert field != null;
+        if (fields.isEmpty()) {
+            return true;
+        }
+        for (final String selected : fields) {
+            if (selected.equals(field) || isChild(field, selected) || isChild(selected, field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the selected fields of a mapcode.
+     *
+     * @param parent Field name of the mapcode, like "international", or null if the mapcode is the response itself.
+     * @return Bit set of the selected fields (bit N is set for MAPCODE_FIELDS.get(N)), 0 if none is selected.
+     */
+    public int getMapcodeFields(@Nullable final String parent) {
+        if (fields.isEmpty()) {
+            return ALL_MAPCODE_FIELDS;
+        }
+        int mask = 0;
+        for (int i = 0; i < MAPCODE_FIELDS.size(); ++i) {
+            final String field = MAPCODE_FIELDS.get(i);
+            if (isSelected((parent == null) ? field : (parent + '.' + field))) {
+                mask = mask | (1 << i);
+            }
+        }
+        return mask;
+    }
+
+    private static boolean isChild(@Nonnull final String child, @Nonnull final String parent) {
+        return (child.length() > parent.length()) && (child.charAt(parent.length()) == '.') && child.startsWith(parent);
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        return fields.equals(((FieldSelection) obj).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return isAll() ? "*" : String.join(",", fields);
+    }
+}
@@ -19,23 +19,19 @@ package com.mapcode.services.implementation;
 import akka.dispatch.Futures;
 import com.google.common.base.Joiner;
 import com.mapcode.*;
-import com.mapcode.Territory.AlphaCodeFormat;
 import com.mapcode.services.ApiConstants;
+import com.mapcode.services.MapcodeProperties;
 import com.mapcode.services.MapcodeResource;
 import com.mapcode.services.dto.*;
 import com.mapcode.services.metrics.SystemMetricsCollector;
 import com.tomtom.speedtools.apivalidation.ApiDTO;
 import com.tomtom.speedtools.apivalidation.exceptions.*;
 import com.tomtom.speedtools.geometry.Geo;
-import com.tomtom.speedtools.geometry.GeoPoint;
-import com.tomtom.speedtools.objects.Tuple;
 import com.tomtom.speedtools.rest.ResourceProcessor;
 import com.tomtom.speedtools.time.UTCTime;
 import com.tomtom.speedtools.tracer.Traceable;
 import com.tomtom.speedtools.tracer.TracerFactory;
-import com.tomtom.speedtools.utils.MathUtils;
 import com.tomtom.speedtools.utils.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,9 +41,9 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.InputStream;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +55,13 @@ public class MapcodeResourceImpl implements MapcodeResource {
 
     private final ResourceProcessor processor;
     private final SystemMetricsCollector metricsCollector;
+    private final double encodeCacheGridDeg;
+    private final int batchMaxSize;
+    private final BatchExecutor batchExecutor;
+    private final BoundedCache<EncodeKey, ApiDTO> encodeCache;
+    private final BoundedCache<DecodeKey, DecodeResult> decodeCache;
+    private final SingleFlight<EncodeKey, ApiDTO> encodeFlights;
+    private final SingleFlight<DecodeKey, DecodeResult> decodeFlights;
 
     private static final String API_ERROR_VALID_TERRITORY_CODES = Joiner.on('|').join(Arrays.stream(Territory.values()).
             collect(Collectors.toList()));
@@ -66,32 +69,69 @@ public class MapcodeResourceImpl implements MapcodeResource {
     private static final String API_ERROR_VALID_COUNTRY_CODES = Joiner.on('|').join(Territory.allCountryISO2Codes()) +
             '|' + Joiner.on('|').join(Territory.allCountryISO3Codes());
 
-    private static final String API_ERROR_VALID_ALPHABET_CODES = Joiner.on('|').join(Arrays.stream(Alphabet.values()).
-            collect(Collectors.toList()));
-
     private static final String API_ERROR_VALID_TYPES = Joiner.on('|').join(new ArrayList<>(Arrays.asList(ParamType.values())));
 
-    private static final String API_ERROR_VALID_INCLUDES = Joiner.on('|').join(Arrays.stream(ParamInclude.values()).
-            collect(Collectors.toList()));
+    // Request fields and result columns of CSV files.
+    private static final List<String> CSV_ENCODE_FIELDS = Arrays.asList(PARAM_LAT_DEG, PARAM_LON_DEG, PARAM_TYPE,
+            PARAM_PRECISION, PARAM_TERRITORY, PARAM_COUNTRY, PARAM_ALPHABET, PARAM_INCLUDE);
+    private static final Set<String> CSV_ENCODE_REQUIRED_FIELDS = new HashSet<>(Arrays.asList(PARAM_LAT_DEG, PARAM_LON_DEG));
+    private static final List<String> CSV_ENCODE_RESULT_COLUMNS = Arrays.asList("status", "message", "mapcode", "territory",
+            "mapcodeInAlphabet", "territoryInAlphabet", "offsetMeters");
+    private static final List<String> CSV_DECODE_FIELDS = Arrays.asList(PARAM_MAPCODE, PARAM_CONTEXT, PARAM_INCLUDE);
+    private static final Set<String> CSV_DECODE_REQUIRED_FIELDS = Collections.singleton(PARAM_MAPCODE);
+    private static final List<String> CSV_DECODE_RESULT_COLUMNS = Arrays.asList("status", "message", "latDeg", "lonDeg",
+            "southWestLatDeg", "southWestLonDeg", "northEastLatDeg", "northEastLonDeg");
 
     private static final TerritoryListDTO ALL_TERRITORY_DTO = new TerritoryListDTO(Territory.values());
     private static final AlphabetListDTO ALL_ALPHABET_DTO = new AlphabetListDTO(Alphabet.values());
 
+    // The territories and alphabets never change, so their responses are serialized only once.
+    private static final SerializedPages<TerritoryDTO> TERRITORY_PAGES = new SerializedPages<>(ALL_TERRITORY_DTO,
+            (fromIndex, toIndex) -> new TerritoriesDTO(ALL_TERRITORY_DTO.size(),
+                    new TerritoryListDTO(ALL_TERRITORY_DTO.subList(fromIndex, toIndex))));
+    private static final SerializedResponse[] TERRITORY_RESPONSES = ALL_TERRITORY_DTO.stream().
+            map(SerializedResponse::of).toArray(SerializedResponse[]::new);
+    private static final SerializedPages<AlphabetDTO> ALPHABET_PAGES = new SerializedPages<>(ALL_ALPHABET_DTO,
+            (fromIndex, toIndex) -> new AlphabetsDTO(ALL_ALPHABET_DTO.size(),
+                    new AlphabetListDTO(ALL_ALPHABET_DTO.subList(fromIndex, toIndex))));
+    private static final SerializedResponse[] ALPHABET_RESPONSES = ALL_ALPHABET_DTO.stream().
+            map(SerializedResponse::of).toArray(SerializedResponse[]::new);
+
     /**
      * The constructor is called by Google Guice at start-up time and gets a processor injected
      * to executed web requests on.
      *
      * @param processor        Processor to process web requests on.
      * @param metricsCollector Metric collector.
+     * @param properties       Service properties (cache and batch sizes, batch parallelism).
      */
     @Inject
     public MapcodeResourceImpl(
             @Nonnull final ResourceProcessor processor,
-            @Nonnull final SystemMetricsCollector metricsCollector) {
+            @Nonnull final SystemMetricsCollector metricsCollector,
+            @Nonnull final MapcodeProperties properties) {
         assert processor != null;
         assert metricsCollector != null;
+        assert properties != null;
         this.processor = processor;
         this.metricsCollector = metricsCollector;
+        this.encodeCacheGridDeg = properties.getEncodeCacheGridDeg();
+        this.batchMaxSize = properties.getBatchMaxSize();
+        this.batchExecutor = new BatchExecutor(properties.getBatchParallelism());
+        this.encodeCache = new BoundedCache<>(
+                properties.getEncodeCacheMaxSize(),
+                properties.getCacheConcurrencyLevel(),
+                metricsCollector::addOneEncodeCacheHit,
+                metricsCollector::addOneEncodeCacheMiss,
+                metricsCollector::addOneEncodeCacheEviction);
+        this.decodeCache = new BoundedCache<>(
+                properties.getDecodeCacheMaxSize(),
+                properties.getCacheConcurrencyLevel(),
+                metricsCollector::addOneDecodeCacheHit,
+                metricsCollector::addOneDecodeCacheMiss,
+                metricsCollector::addOneDecodeCacheEviction);
+        this.encodeFlights = new SingleFlight<>(metricsCollector::addOneCoalescedLatLonToMapcodeRequest);
+        this.decodeFlights = new SingleFlight<>(metricsCollector::addOneCoalescedMapcodeToLatLonRequest);
     }
 
     @Override
@@ -114,14 +154,14 @@ public class MapcodeResourceImpl implements MapcodeResource {
             @Nullable final String paramContextMustBeNull,
             @Nullable final String paramAlphabet,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramAllowLog,
             @Nonnull final AsyncResponse response) throws ApiInvalidFormatException {
         convertLatLonToMapcode(paramLatDegAsString, paramLonDegAsString, null, paramPrecisionAsString, paramTerritory, paramCountry,
-                paramContextMustBeNull, paramAlphabet, paramInclude, paramClient, paramAllowLog, response);
+                paramContextMustBeNull, paramAlphabet, paramInclude, paramFields, paramClient, paramAllowLog, response);
     }
 
-    @SuppressWarnings("NestedTryStatement")
     @Override
     public void convertLatLonToMapcode(
             @Nullable final String paramLatDegAsString,
@@ -133,6 +173,7 @@ public class MapcodeResourceImpl implements MapcodeResource {
             @Nullable final String paramContextMustBeNull,
             @Nullable final String paramAlphabet,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramAllowLog,
             @Nonnull final AsyncResponse response) throws ApiInvalidFormatException {
@@ -142,268 +183,140 @@ public class MapcodeResourceImpl implements MapcodeResource {
             // Get debug mode.
             final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-            LOG.info("convertLatLonToMapcode: lat={}, lon={}, precision={}, type={}, context={}, alphabet={}, include={}, client={}, allowLog={}",
-                    paramLatDegAsString, paramLonDegAsString, paramPrecisionAsString, paramType, paramTerritory, paramAlphabet, paramInclude, paramClient,
-                    paramAllowLog);
+            LOG.info("convertLatLonToMapcode: lat={}, lon={}, precision={}, type={}, context={}, alphabet={}, include={}, fields={}, client={}, allowLog={}",
+                    paramLatDegAsString, paramLonDegAsString, paramPrecisionAsString, paramType, paramTerritory, paramAlphabet, paramInclude, paramFields,
+                    paramClient, paramAllowLog);
             metricsCollector.addOneLatLonToMapcodeRequest(paramClient);
 
-            // Prevent 'context' from inadvertently being specified.
-            if (paramContextMustBeNull != null) {
-                throw new ApiInvalidFormatException(PARAM_CONTEXT, paramContextMustBeNull, "null");
-            }
-
-            // Check lat range.
-            final double latDeg;
-            try {
-                latDeg = Double.valueOf(StringUtils.nullToEmpty(paramLatDegAsString));
-                if (!MathUtils.isBetween(latDeg, ApiConstants.API_LAT_MIN, ApiConstants.API_LAT_MAX)) {
-                    throw new NumberFormatException(paramLatDegAsString);
-                }
-            } catch (final NumberFormatException e) {
-                throw new ApiInvalidFormatException(PARAM_LAT_DEG, paramLatDegAsString,
-                        "[" + ApiConstants.API_LAT_MIN + ", " + ApiConstants.API_LAT_MAX + ']');
-            }
-
-            // Check lon range.
-            final double lonDeg;
-            try {
-                lonDeg = Geo.mapToLon(Double.valueOf(StringUtils.nullToEmpty(paramLonDegAsString)));
-            } catch (final NumberFormatException e) {
-                throw new ApiInvalidFormatException(PARAM_LAT_DEG, paramLonDegAsString, "Double");
-            }
+            final ApiDTO result = encode(paramLatDegAsString, paramLonDegAsString, paramType, paramPrecisionAsString,
+                    paramTerritory, paramCountry, paramContextMustBeNull, paramAlphabet, paramInclude, paramFields, paramClient, allowLog);
+            metricsCollector.addOneValidLatLonToMapcodeRequest(paramClient);
+            response.resume(Response.ok(result).build());
 
-            // Check precision.
-            final int precision;
-            try {
-                precision = Integer.valueOf(StringUtils.nullToEmpty(paramPrecisionAsString));
-                if (!MathUtils.isBetween(precision, ApiConstants.API_PRECISION_MIN, ApiConstants.API_PRECISION_MAX)) {
-                    throw new NumberFormatException(paramPrecisionAsString);
-                }
-            } catch (final NumberFormatException e) {
-                throw new ApiInvalidFormatException(PARAM_PRECISION, paramPrecisionAsString, "[" + ApiConstants.API_PRECISION_MIN +
-                        ", " + ApiConstants.API_PRECISION_MAX + ']');
-            }
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
 
-            // Check if either paramTerritory or paramCountry is set (or neither).
-            if ((paramTerritory != null) && (paramCountry != null)) {
-                throw new ApiConflictException("Cannot specify both " + PARAM_TERRITORY + " and " + PARAM_COUNTRY);
-            }
+    @Override
+    public void convertLatLonToMapcode(
+            @Nonnull final EncodeRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiIntegerOutOfRangeException {
+        assert requests != null;
+        assert response != null;
 
-            // Get the territory.
-            @Nullable Territory territory = null;
-            @Nullable String country = null;
-            if (paramTerritory != null) {
-                try {
-                    territory = resolveTerritory(StringEscapeUtils.unescapeHtml4(paramTerritory), null);
-                } catch (final IllegalArgumentException ignored) {
-                    throw new ApiInvalidFormatException(PARAM_TERRITORY, paramTerritory, API_ERROR_VALID_TERRITORY_CODES);
-                }
-            } else if (paramCountry != null) {
-                try {
-                    final String countryUnescaped = StringEscapeUtils.unescapeHtml4(paramCountry);
-                    //noinspection NestedTryStatement
-                    try {
-                        Territory.fromCountryISO2(countryUnescaped);
-                        country = countryUnescaped;
-                    } catch (final IllegalArgumentException ignored) {
-                        Territory.fromCountryISO3(countryUnescaped);
-                        country = countryUnescaped;
-                    }
-                } catch (final IllegalArgumentException ignored) {
-                    throw new ApiInvalidFormatException(PARAM_COUNTRY, paramCountry, API_ERROR_VALID_COUNTRY_CODES);
-                }
-            }
+        processor.process("convertLatLonToMapcodeBatch", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-            // Get the alphabet.
-            final Alphabet alphabet;
-            try {
-                alphabet = (paramAlphabet != null) ? Alphabet.fromString(paramAlphabet) : null;
-            } catch (final IllegalArgumentException ignored) {
-                throw new ApiInvalidFormatException(PARAM_ALPHABET, paramAlphabet, API_ERROR_VALID_ALPHABET_CODES);
+            LOG.info("convertLatLonToMapcode: batch size={}, client={}, allowLog={}", requests.size(), paramClient, paramAllowLog);
+            if (requests.size() > batchMaxSize) {
+                throw new ApiIntegerOutOfRangeException("requests", requests.size(), 0, batchMaxSize);
             }
-
-            // Check type.
-            ParamType type = null;
-            if (paramType != null) {
-                try {
-                    type = ParamType.valueOf(paramType.toUpperCase());
-                } catch (final IllegalArgumentException ignored) {
-                    throw new ApiInvalidFormatException(PARAM_TYPE, paramType, API_ERROR_VALID_TYPES.toLowerCase());
-                }
+            metricsCollector.addLatLonToMapcodeBatch(requests.size());
+
+            // Convert every distinct request only once, in parallel. Responses are immutable, so they can be shared.
+            final Map<List<Object>, Integer> distinctIndexes = new HashMap<>();
+            final List<EncodeRequestDTO> distinctRequests = new ArrayList<>();
+            final int[] indexes = new int[requests.size()];
+            for (int i = 0; i < requests.size(); ++i) {
+                final EncodeRequestDTO request = requests.get(i);
+                final List<Object> key = Arrays.asList(request.getLatDeg(), request.getLonDeg(), request.getType(),
+                        request.getPrecision(), request.getTerritory(), request.getCountry(), request.getAlphabet(),
+                        request.getInclude());
+                indexes[i] = distinctIndexes.computeIfAbsent(key, ignored -> {
+                    distinctRequests.add(request);
+                    return distinctRequests.size() - 1;
+                });
             }
-
-            // Need to store in finals, for lambda functions.
-            final boolean includeOffset;
-            final boolean includeTerritory;
-            final boolean includeAlphabet;
-            final boolean includeRectangle;
-            {
-                // Determine whether include=offset and territory=xxx were supplied as URL parameters.
-                boolean foundIncludeOffset = false;
-                boolean foundIncludeTerritory = false;
-                boolean foundIncludeAlphabet = false;
-                boolean foundIncludeRectangle = false;
-                for (final String arg : paramInclude.toUpperCase().split(",")) {
-                    if (!arg.isEmpty()) {
-                        try {
-                            final ParamInclude include = ParamInclude.valueOf(arg);
-                            foundIncludeOffset = foundIncludeOffset || (include == ParamInclude.OFFSET);
-                            foundIncludeTerritory = foundIncludeTerritory || (include == ParamInclude.TERRITORY);
-                            foundIncludeAlphabet = foundIncludeAlphabet || (include == ParamInclude.ALPHABET);
-                            foundIncludeRectangle = foundIncludeRectangle || (include == ParamInclude.RECTANGLE);
-                        } catch (final IllegalArgumentException ignored) {
-                            throw new ApiInvalidFormatException(PARAM_INCLUDE, paramInclude, API_ERROR_VALID_INCLUDES.toLowerCase());
-                        }
-                    }
+            metricsCollector.addBatchParallelism(batchExecutor.getChunkCount(distinctRequests.size()));
+            final List<EncodeResponseDTO> distinctResponses = batchExecutor.convert(distinctRequests, request ->
+                    createEncodeResponse(request, paramClient, allowLog));
+
+            final List<EncodeResponseDTO> responses = new ArrayList<>(requests.size());
+            for (final int index : indexes) {
+                metricsCollector.addOneLatLonToMapcodeRequest(paramClient);
+                final EncodeResponseDTO encodeResponse = distinctResponses.get(index);
+                if (encodeResponse.getResult() != null) {
+                    metricsCollector.addOneValidLatLonToMapcodeRequest(paramClient);
                 }
-
-                // Need to store in finals, for lambda functions.
-                includeOffset = foundIncludeOffset;
-                includeTerritory = foundIncludeTerritory;
-                includeAlphabet = foundIncludeAlphabet;
-                includeRectangle = foundIncludeRectangle;
-            }
-
-            // Send a trace event with the lat/lon and other parameters.
-            if (allowLog) {
-                TRACER.eventLatLonToMapcode(latDeg, lonDeg, territory, precision, paramType,
-                        paramAlphabet, paramInclude, UTCTime.now(), paramClient);
+                responses.add(encodeResponse);
             }
+            final EncodeResponseListDTO result = new EncodeResponseListDTO(responses);
 
-            final List<Tuple<Mapcode, Rectangle>> mapcodesAndRectangles = new ArrayList<>();
-            final Tuple<Mapcode, Rectangle> mapcodeInternationalAndRectangle;
-            final Tuple<Mapcode, Rectangle> mapcodeLocalAndRectangle;
-            try {
-
-                /**
-                 * First get all mapcodes. This is not the most efficient implementation, as we encode the
-                 * lat/lon 3 times, but unless there is a measured, significant performance issue in real life,
-                 * this implementation is good enough for now (and pretty straightforward).
-                 */
-
-                // Get all mapcodes.
-                final List<Mapcode> mapcodes;
-                if (country != null) {
-                    mapcodes = MapcodeCodec.encodeRestrictToCountryISO(latDeg, lonDeg, country);
-                } else {
-                    mapcodes = MapcodeCodec.encode(latDeg, lonDeg, territory);
-                }
-                mapcodes.forEach(mapcode -> {
-                    try {
-                        final Rectangle rectangle = MapcodeCodec.decodeToRectangle(mapcode.getCode(), mapcode.getTerritory());
-                        mapcodesAndRectangles.add(Tuple.create(mapcode, rectangle));
-                    } catch (final UnknownMapcodeException e) {
-                        LOG.warn("convertLatLonToMapcode: Unknown mapcode, exception=", e);
-                    }
-                });
-
-                // Get the international mapcode.
-                final Mapcode mapcodeInternational = MapcodeCodec.encodeToInternational(latDeg, lonDeg);
-                mapcodeInternationalAndRectangle = Tuple.create(mapcodeInternational,
-                        MapcodeCodec.decodeToRectangle(mapcodeInternational.getCode()));
-
-                // Get the shortest local mapcode.
-                Mapcode mapcodeLocal = null;
-                if (country != null) {
-
-                    // A territory was provided, so simply use first.
-                    try {
-                        mapcodeLocal = MapcodeCodec.encodeToShortest(latDeg, lonDeg, Territory.fromCountryISO(country));
-                    } catch (final UnknownMapcodeException ignored) {
-                    }
-                } else if (territory != null) {
+            // Validate the result (internal consistency check).
+            result.validate();
+            response.resume(Response.ok(result).build());
 
-                    // A territory was provided, so simply use first.
-                    try {
-                        mapcodeLocal = MapcodeCodec.encodeToShortest(latDeg, lonDeg, territory);
-                    } catch (final UnknownMapcodeException ignored) {
-                    }
-                } else {
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
 
-                    // Get the shortest code.
-                    Territory localTerritory = null;
-                    for (final Mapcode mapcode : mapcodes) {
-                        if (mapcode.getTerritory() != Territory.AAA) {
-                            if (localTerritory == null) {
-
-                                // First local territory found. Use a local mapcode, unless another territory is found.
-                                localTerritory = mapcode.getTerritory();
-                                mapcodeLocal = mapcode;
-                            } else {
-                                if (localTerritory != mapcode.getTerritory()) {
-
-                                    // Found another local territory; reset local mapcode.
-                                    if (mapcode.getCode().length() < mapcodeLocal.getCode().length()) {
-                                        mapcodeLocal = mapcode;
-                                        localTerritory = mapcode.getTerritory();
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-                mapcodeLocalAndRectangle = (mapcodeLocal == null) ? null : Tuple.create(
-                        mapcodeLocal,
-                        MapcodeCodec.decodeToRectangle(mapcodeLocal.getCode(), mapcodeLocal.getTerritory())
-                );
-            } catch (final UnknownMapcodeException ignored) {
-
-                // The mapcode conversion failed.
-                throw new ApiNotFoundException("No mapcode found for lat=" + latDeg + ", lon=" + lonDeg + ", territory=" + territory);
-            }
+    @Override
+    public void convertLatLonToMapcode(
+            @Nonnull final InputStream requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) {
+        assert requests != null;
+        assert response != null;
 
-            // Create result body, which is an ApiDTO. The exact type of DTO is still to be determined below.
-            final ApiDTO result;
-            if (type == null) {
-
-                // No type was supplied, so we need to return the local, international and all mapcodes.
-                result = new MapcodesDTO(
-                        (mapcodeLocalAndRectangle == null) ? null :
-                                createMapcodeDTO(mapcodeLocalAndRectangle, precision, alphabet, includeOffset, includeTerritory,
-                                        includeAlphabet, includeRectangle, latDeg, lonDeg),
-                        createMapcodeDTO(mapcodeInternationalAndRectangle, precision, alphabet, includeOffset, includeTerritory,
-                                includeAlphabet, includeRectangle, latDeg, lonDeg),
-                        mapcodesAndRectangles.stream().
-                                map(mapcode -> createMapcodeDTO(mapcode, precision, alphabet, includeOffset, includeTerritory,
-                                        includeAlphabet, includeRectangle, latDeg, lonDeg)).
-                                collect(Collectors.toList()));
-            } else {
+        processor.process("convertLatLonToMapcodeStream", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-                // Return only the local, international or all mapcodes.
-                switch (type) {
-                    case LOCAL: {
-                        if (mapcodeLocalAndRectangle == null) {
-                            throw new ApiNotFoundException("No local mapcode for: " + mapcodeInternationalAndRectangle.getValue1().getCode());
+            LOG.info("convertLatLonToMapcode: stream, client={}, allowLog={}", paramClient, paramAllowLog);
+            final StreamingOutput result = new NdjsonStreamingOutput<>(requests, EncodeRequestDTO.class,
+                    request -> {
+                        metricsCollector.addOneLatLonToMapcodeRequest(paramClient);
+                        final EncodeResponseDTO encodeResponse = createEncodeResponse(request, paramClient, allowLog);
+                        if (encodeResponse.getResult() != null) {
+                            metricsCollector.addOneValidLatLonToMapcodeRequest(paramClient);
                         }
-                        result = createMapcodeDTO(mapcodeLocalAndRectangle, precision, alphabet, includeOffset, includeTerritory,
-                                includeAlphabet, includeRectangle, latDeg, lonDeg);
-                        break;
-                    }
+                        return encodeResponse;
+                    },
+                    metricsCollector::addLatLonToMapcodeBatch);
+            response.resume(Response.ok(result, APPLICATION_NDJSON).build());
 
-                    case INTERNATIONAL: {
-                        result = createMapcodeDTO(mapcodeInternationalAndRectangle, precision, alphabet, includeOffset, includeTerritory,
-                                includeAlphabet, includeRectangle, latDeg, lonDeg);
-                        break;
-                    }
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
 
-                    case MAPCODES: {
-                        result = new MapcodeListDTO(mapcodesAndRectangles.stream().
-                                map(mapcode -> createMapcodeDTO(mapcode, precision, alphabet, includeOffset, includeTerritory,
-                                        includeAlphabet, includeRectangle, latDeg, lonDeg)).
-                                collect(Collectors.toList()));
-                        break;
-                    }
+    @Override
+    public void convertLatLonToMapcode(
+            @Nonnull final InputStream requests,
+            @Nonnull final String paramColumns,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiException {
+        assert requests != null;
+        assert response != null;
 
-                    default:
-                        assert false;
-                        result = null;
-                }
-            }
+        processor.process("convertLatLonToMapcodeCsv", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-            // Validate the DTO before returning it, to make sure it's valid (internal consistency check).
-            result.validate();
-            metricsCollector.addOneValidLatLonToMapcodeRequest(paramClient);
-            response.resume(Response.ok(result).build());
+            LOG.info("convertLatLonToMapcode: csv, columns={}, client={}, allowLog={}", paramColumns, paramClient, paramAllowLog);
+            final StreamingOutput result = new CsvStreamingOutput(requests, CSV_ENCODE_FIELDS, CSV_ENCODE_REQUIRED_FIELDS,
+                    paramColumns, CSV_ENCODE_RESULT_COLUMNS,
+                    fields -> {
+                        metricsCollector.addOneLatLonToMapcodeRequest(paramClient);
+                        try {
+                            final ApiDTO mapcodes = encode(fields[0], fields[1], fields[2],
+                                    (fields[3] == null) ? DEFAULT_PRECISION : fields[3], fields[4], fields[5], null,
+                                    fields[6], StringUtils.nullToEmpty(fields[7]), "", paramClient, allowLog);
+                            metricsCollector.addOneValidLatLonToMapcodeRequest(paramClient);
+                            return createEncodeCsvColumns(Response.Status.OK.getStatusCode(), "", mapcodes);
+                        } catch (final ApiException e) {
+                            return createEncodeCsvColumns(getStatusCode(e), e.getMessage(), null);
+                        }
+                    },
+                    metricsCollector::addLatLonToMapcodeBatch);
+            response.resume(Response.ok(result, TEXT_CSV).build());
 
             // The response is already set within this method body.
             return Futures.successful(null);
@@ -426,6 +339,7 @@ public class MapcodeResourceImpl implements MapcodeResource {
             @Nullable final String paramContext,
             @Nullable final String paramTerritoryMustBeNull,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramAllowLog,
             @Nonnull final AsyncResponse response) throws ApiNotFoundException, ApiInvalidFormatException {
@@ -436,73 +350,68 @@ public class MapcodeResourceImpl implements MapcodeResource {
             // Get debug mode.
             final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-            LOG.info("convertMapcodeToLatLon: code={}, territory={}, include={}, client={}, allowLog={}",
-                    paramCode, paramContext, paramInclude, paramClient, paramAllowLog);
+            LOG.info("convertMapcodeToLatLon: code={}, territory={}, include={}, fields={}, client={}, allowLog={}",
+                    paramCode, paramContext, paramInclude, paramFields, paramClient, paramAllowLog);
             metricsCollector.addOneMapcodeToLatLonRequest(paramClient);
 
-            // Prevent 'territory' from inadvertently being specified.
-            if (paramTerritoryMustBeNull != null) {
-                throw new ApiInvalidFormatException(PARAM_TERRITORY, paramTerritoryMustBeNull, "null");
-            }
+            final ApiDTO result = decode(paramCode, paramContext, paramTerritoryMustBeNull, paramInclude, paramFields,
+                    paramClient, allowLog);
+            metricsCollector.addOneValidMapcodeToLatLonRequest(paramClient);
+            response.resume(Response.ok(result).build());
 
-            // Check include parameter.
-            boolean foundIncludeRectangle = false;
-            for (final String arg : paramInclude.toUpperCase().split(",")) {
-                if (!arg.isEmpty()) {
-                    try {
-                        final ParamInclude include = ParamInclude.valueOf(arg);
-                        foundIncludeRectangle = foundIncludeRectangle || (include == ParamInclude.RECTANGLE);
-                    } catch (final IllegalArgumentException ignored) {
-                        throw new ApiInvalidFormatException(PARAM_INCLUDE, paramInclude, API_ERROR_VALID_INCLUDES.toLowerCase());
-                    }
-                }
-            }
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
 
-            // Get the territory from the path (if specified).
-            final Territory territoryContext;
-            if (paramContext != null) {
-                try {
-                    // Query parameters are HTML escaped.
-                    territoryContext = resolveTerritory(StringEscapeUtils.unescapeHtml4(paramContext), null);
-                } catch (final IllegalArgumentException ignored) {
-                    throw new ApiInvalidFormatException(PARAM_TERRITORY, paramContext, API_ERROR_VALID_TERRITORY_CODES);
-                }
+    @Override
+    public void convertMapcodeToLatLon(
+            @Nonnull final DecodeRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiIntegerOutOfRangeException {
+        assert requests != null;
+        assert response != null;
 
-            } else {
-                territoryContext = null;
-            }
+        processor.process("convertMapcodeToLatLonBatch", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
 
-            // Check if the mapcode is correctly formatted.
-            if (!Mapcode.isValidMapcodeFormat(paramCode)) {
-                throw new ApiInvalidFormatException("mapcode", paramCode, "[XXX] XX.XX[-XX]");
+            LOG.info("convertMapcodeToLatLon: batch size={}, client={}, allowLog={}", requests.size(), paramClient, paramAllowLog);
+            if (requests.size() > batchMaxSize) {
+                throw new ApiIntegerOutOfRangeException("requests", requests.size(), 0, batchMaxSize);
             }
-
-            // Send a trace event with the mapcode and territory.
-            if (allowLog) {
-                TRACER.eventMapcodeToLatLon(paramCode, territoryContext, UTCTime.now(), paramClient);
+            metricsCollector.addMapcodeToLatLonBatch(requests.size());
+
+            // Convert every distinct request only once, in parallel. Responses are immutable, so they can be shared.
+            final Map<List<Object>, Integer> distinctIndexes = new HashMap<>();
+            final List<DecodeRequestDTO> distinctRequests = new ArrayList<>();
+            final int[] indexes = new int[requests.size()];
+            for (int i = 0; i < requests.size(); ++i) {
+                final DecodeRequestDTO request = requests.get(i);
+                final List<Object> key = Arrays.asList(request.getMapcode(), request.getContext(), request.getInclude());
+                indexes[i] = distinctIndexes.computeIfAbsent(key, ignored -> {
+                    distinctRequests.add(request);
+                    return distinctRequests.size() - 1;
+                });
             }
-
-            // Create result body (always an ApiDTO).
-            final ApiDTO result;
-            if (foundIncludeRectangle) {
-                try {
-                    final Rectangle rectangle = MapcodeCodec.decodeToRectangle(paramCode, territoryContext);
-                    result = new RectangleDTO(rectangle);
-                } catch (final UnknownMapcodeException ignored) {
-                    throw new ApiNotFoundException("No rectangle found for mapcode='" + paramCode + "', context=" + territoryContext);
-                }
-            } else {
-                try {
-                    final Point point = MapcodeCodec.decode(paramCode, territoryContext);
-                    result = new PointDTO(point.getLatDeg(), point.getLonDeg());
-                } catch (final UnknownMapcodeException ignored) {
-                    throw new ApiNotFoundException("No location found for mapcode='" + paramCode + "', context=" + territoryContext);
+            metricsCollector.addBatchParallelism(batchExecutor.getChunkCount(distinctRequests.size()));
+            final List<DecodeResponseDTO> distinctResponses = batchExecutor.convert(distinctRequests, request ->
+                    createDecodeResponse(request, paramClient, allowLog));
+
+            final List<DecodeResponseDTO> responses = new ArrayList<>(requests.size());
+            for (final int index : indexes) {
+                metricsCollector.addOneMapcodeToLatLonRequest(paramClient);
+                final DecodeResponseDTO decodeResponse = distinctResponses.get(index);
+                if (decodeResponse.getResult() != null) {
+                    metricsCollector.addOneValidMapcodeToLatLonRequest(paramClient);
                 }
+                responses.add(decodeResponse);
             }
+            final DecodeResponseListDTO result = new DecodeResponseListDTO(responses);
 
             // Validate the result (internal consistency check).
             result.validate();
-            metricsCollector.addOneValidMapcodeToLatLonRequest(paramClient);
             response.resume(Response.ok(result).build());
 
             // The response is already set within this method body.
@@ -510,6 +419,73 @@ public class MapcodeResourceImpl implements MapcodeResource {
         });
     }
 
+    @Override
+    public void convertMapcodeToLatLon(
+            @Nonnull final InputStream requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) {
+        assert requests != null;
+        assert response != null;
+
+        processor.process("convertMapcodeToLatLonStream", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
+
+            LOG.info("convertMapcodeToLatLon: stream, client={}, allowLog={}", paramClient, paramAllowLog);
+            final StreamingOutput result = new NdjsonStreamingOutput<>(requests, DecodeRequestDTO.class,
+                    request -> {
+                        metricsCollector.addOneMapcodeToLatLonRequest(paramClient);
+                        final DecodeResponseDTO decodeResponse = createDecodeResponse(request, paramClient, allowLog);
+                        if (decodeResponse.getResult() != null) {
+                            metricsCollector.addOneValidMapcodeToLatLonRequest(paramClient);
+                        }
+                        return decodeResponse;
+                    },
+                    metricsCollector::addMapcodeToLatLonBatch);
+            response.resume(Response.ok(result, APPLICATION_NDJSON).build());
+
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
+
+    @Override
+    public void convertMapcodeToLatLon(
+            @Nonnull final InputStream requests,
+            @Nonnull final String paramColumns,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiException {
+        assert requests != null;
+        assert response != null;
+
+        processor.process("convertMapcodeToLatLonCsv", LOG, response, () -> {
+            // Get debug mode.
+            final boolean allowLog = "true".equalsIgnoreCase(paramAllowLog);
+
+            LOG.info("convertMapcodeToLatLon: csv, columns={}, client={}, allowLog={}", paramColumns, paramClient, paramAllowLog);
+            final StreamingOutput result = new CsvStreamingOutput(requests, CSV_DECODE_FIELDS, CSV_DECODE_REQUIRED_FIELDS,
+                    paramColumns, CSV_DECODE_RESULT_COLUMNS,
+                    fields -> {
+                        metricsCollector.addOneMapcodeToLatLonRequest(paramClient);
+                        try {
+                            final ApiDTO point = decode(StringUtils.nullToEmpty(fields[0]), fields[1], null,
+                                    StringUtils.nullToEmpty(fields[2]), "", paramClient, allowLog);
+                            metricsCollector.addOneValidMapcodeToLatLonRequest(paramClient);
+                            return createDecodeCsvColumns(Response.Status.OK.getStatusCode(), "", point);
+                        } catch (final ApiException e) {
+                            return createDecodeCsvColumns(getStatusCode(e), e.getMessage(), null);
+                        }
+                    },
+                    metricsCollector::addMapcodeToLatLonBatch);
+            response.resume(Response.ok(result, TEXT_CSV).build());
+
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
+
     @Override
     public void getTerritories(
             final int offset,
@@ -529,16 +505,11 @@ public class MapcodeResourceImpl implements MapcodeResource {
             }
             assert count >= 0;
 
-            // Create the response and validate it.
+            // Return the serialized response.
             final int nrTerritories = ALL_TERRITORY_DTO.size();
             final int fromIndex = (offset < 0) ? Math.max(0, nrTerritories + offset) : Math.min(nrTerritories, offset);
-            final int toIndex = Math.min(nrTerritories, fromIndex + count);
-            final TerritoryListDTO territoryList = new TerritoryListDTO(ALL_TERRITORY_DTO.subList(fromIndex, toIndex));
-            final TerritoriesDTO result = new TerritoriesDTO(ALL_TERRITORY_DTO.size(), territoryList);
-
-            // Validate the result (internal consistency check).
-            result.validate();
-            response.resume(Response.ok(result).build());
+            final int toIndex = (int) Math.min(nrTerritories, (long) fromIndex + count);
+            response.resume(Response.ok(TERRITORY_PAGES.getPage(fromIndex, toIndex)).build());
 
             // The response is already set within this method body.
             return Futures.successful(null);
@@ -560,25 +531,65 @@ public class MapcodeResourceImpl implements MapcodeResource {
             metricsCollector.addOneTerritoryRequest(paramClient);
 
             // Get the territory from the URL.
-            final Territory territory;
-            try {
-                territory = resolveTerritory(paramTerritory, StringEscapeUtils.unescapeHtml4(paramContext));
-            } catch (final IllegalArgumentException ignored) {
+            final Territory territory = resolveTerritory(paramTerritory, ParamParser.unescapeHtml(paramContext));
+            if (territory == null) {
                 throw new ApiInvalidFormatException(PARAM_TERRITORY, paramTerritory, API_ERROR_VALID_TERRITORY_CODES);
             }
 
             // Return the right territory information.
-            final Territory parentTerritory = territory.getParentTerritory();
-            final TerritoryDTO result = new TerritoryDTO(
-                    territory.toString(),
-                    territory.toAlphaCode(AlphaCodeFormat.MINIMAL_UNAMBIGUOUS),
-                    territory.toAlphaCode(AlphaCodeFormat.MINIMAL),
-                    territory.getFullName(),
-                    (parentTerritory == null) ? null : parentTerritory.toString(),
-                    territory.getAliases(),
-                    territory.getFullNameAliases(),
-                    territory.getAlphabets()
-            );
+            response.resume(Response.ok(TERRITORY_RESPONSES[territory.ordinal()]).build());
+
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
+
+    @Override
+    public void getTerritoriesAt(
+            @Nullable final String paramLatDegAsString,
+            @Nullable final String paramLonDegAsString,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiInvalidFormatException {
+        assert response != null;
+
+        processor.process("getTerritoriesAt", LOG, response, () -> {
+            LOG.info("getTerritoriesAt: lat={}, lon={}, client={}, allowLog={}", paramLatDegAsString, paramLonDegAsString,
+                    paramClient, paramAllowLog);
+            metricsCollector.addOneTerritoryRequest(paramClient);
+            final TerritoriesDTO result = getTerritoriesAt(paramLatDegAsString, paramLonDegAsString);
+
+            // Validate the result (internal consistency check).
+            result.validate();
+            response.resume(Response.ok(result).build());
+
+            // The response is already set within this method body.
+            return Futures.successful(null);
+        });
+    }
+
+    @Override
+    public void getTerritoriesAt(
+            @Nonnull final TerritoriesAtRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Nonnull final AsyncResponse response) throws ApiIntegerOutOfRangeException {
+        assert requests != null;
+        assert response != null;
+
+        processor.process("getTerritoriesAtBatch", LOG, response, () -> {
+            LOG.info("getTerritoriesAt: batch size={}, client={}, allowLog={}", requests.size(), paramClient, paramAllowLog);
+            if (requests.size() > batchMaxSize) {
+                throw new ApiIntegerOutOfRangeException("requests", requests.size(), 0, batchMaxSize);
+            }
+
+            // Finding the territories is cheap, so the requests are not converted in parallel.
+            final List<TerritoriesAtResponseDTO> responses = new ArrayList<>(requests.size());
+            for (final TerritoriesAtRequestDTO request : requests) {
+                metricsCollector.addOneTerritoryRequest(paramClient);
+                responses.add(createTerritoriesAtResponse(request));
+            }
+            final TerritoriesAtResponseListDTO result = new TerritoriesAtResponseListDTO(responses);
 
             // Validate the result (internal consistency check).
             result.validate();
@@ -608,16 +619,11 @@ public class MapcodeResourceImpl implements MapcodeResource {
             }
             assert count >= 0;
 
-            // Create the response and validate it.
+            // Return the serialized response.
             final int nrAlphabets = ALL_ALPHABET_DTO.size();
             final int fromIndex = (offset < 0) ? Math.max(0, nrAlphabets + offset) : Math.min(nrAlphabets, offset);
-            final int toIndex = Math.min(nrAlphabets, fromIndex + count);
-            final AlphabetListDTO alphabetList = new AlphabetListDTO(ALL_ALPHABET_DTO.subList(fromIndex, toIndex));
-            final AlphabetsDTO result = new AlphabetsDTO(ALL_ALPHABET_DTO.size(), alphabetList);
-
-            // Validate the result (internal consistency check).
-            result.validate();
-            response.resume(Response.ok(result).build());
+            final int toIndex = (int) Math.min(nrAlphabets, (long) fromIndex + count);
+            response.resume(Response.ok(ALPHABET_PAGES.getPage(fromIndex, toIndex)).build());
 
             // The response is already set within this method body.
             return Futures.successful(null);
@@ -639,120 +645,658 @@ public class MapcodeResourceImpl implements MapcodeResource {
             metricsCollector.addOneAlphabetRequest(paramClient);
 
             // Get the territory from the URL.
-            final Alphabet alphabet;
-            try {
-                alphabet = Alphabet.fromString(paramAlphabet);
-            } catch (final IllegalArgumentException ignored) {
-                throw new ApiInvalidFormatException("alphabet", paramAlphabet, API_ERROR_VALID_ALPHABET_CODES);
-            }
+            final Alphabet alphabet = ParamParser.parseAlphabet(paramAlphabet);
 
-            // Return the right territory information.
-            final AlphabetDTO result = new AlphabetDTO(alphabet);
-
-            // Validate the result (internal consistency check).
-            result.validate();
-            response.resume(Response.ok(result).build());
+            // Return the right alphabet information.
+            response.resume(Response.ok(ALPHABET_RESPONSES[alphabet.ordinal()]).build());
 
             // The response is already set within this method body.
             return Futures.successful(null);
         });
     }
 
+    /**
+     * Convert a lat/lon to one or more mapcodes. This method validates the parameters, which have the same
+     * semantics as the URL parameters of {@link #convertLatLonToMapcode(String, String, String, String, String,
+     * String, String, String, String, String, String, String, AsyncResponse)}.
+     *
+     * @return The response body: a {@link MapcodesDTO}, {@link MapcodeDTO} or {@link MapcodeListDTO}.
+     * @throws ApiException If a parameter is invalid or there is no mapcode of the requested type.
+     */
+    @SuppressWarnings("NestedTryStatement")
+    @Nonnull
+    private ApiDTO encode(
+            @Nullable final String paramLatDegAsString,
+            @Nullable final String paramLonDegAsString,
+            @Nullable final String paramType,
+            @Nullable final String paramPrecisionAsString,
+            @Nullable final String paramTerritory,
+            @Nullable final String paramCountry,
+            @Nullable final String paramContextMustBeNull,
+            @Nullable final String paramAlphabet,
+            @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
+            @Nonnull final String paramClient,
+            final boolean allowLog) throws ApiException {
+        // Prevent 'context' from inadvertently being specified.
+        if (paramContextMustBeNull != null) {
+            throw new ApiInvalidFormatException(PARAM_CONTEXT, paramContextMustBeNull, "null");
+        }
+
+        // Check lat range, lon and precision.
+        final double latDeg = ParamParser.parseLatDeg(paramLatDegAsString);
+        final double lonDeg = ParamParser.parseLonDeg(paramLonDegAsString);
+        final int precision = ParamParser.parsePrecision(paramPrecisionAsString);
+
+        // Check if either paramTerritory or paramCountry is set (or neither).
+        if ((paramTerritory != null) && (paramCountry != null)) {
+            throw new ApiConflictException("Cannot specify both " + PARAM_TERRITORY + " and " + PARAM_COUNTRY);
+        }
+
+        // Get the territory.
+        @Nullable Territory territory = null;
+        @Nullable String country = null;
+        if (paramTerritory != null) {
+            territory = resolveTerritory(ParamParser.unescapeHtml(paramTerritory), null);
+            if (territory == null) {
+                throw new ApiInvalidFormatException(PARAM_TERRITORY, paramTerritory, API_ERROR_VALID_TERRITORY_CODES);
+            }
+        } else if (paramCountry != null) {
+            final String countryUnescaped = ParamParser.unescapeHtml(paramCountry);
+            if (TerritoryIndex.fromCountryISO(countryUnescaped) == null) {
+                throw new ApiInvalidFormatException(PARAM_COUNTRY, paramCountry, API_ERROR_VALID_COUNTRY_CODES);
+            }
+
+            // Normalize the country to its uppercase ISO 3166 3-character code, so "nl", "NL" and "NLD" share a cache entry.
+            final String countryUpper = countryUnescaped.toUpperCase();
+            country = (countryUpper.length() == 2) ? Territory.getCountryISO3FromISO2(countryUpper) : countryUpper;
+        }
+
+        // Get the alphabet.
+        final Alphabet alphabet = ParamParser.parseAlphabet(paramAlphabet);
+
+        // Check type.
+        final ParamType type = ParamParser.parseType(paramType);
+
+        // Determine whether include=offset, territory, alphabet or rectangle were supplied as URL parameters.
+        final int includes = ParamParser.parseIncludes(paramInclude);
+
+        // Check the fields, which are fields of the mapcodes if a type is supplied.
+        final FieldSelection fields = ParamParser.parseFields(paramFields,
+                (type == null) ? FieldSelection.MAPCODES_FIELDS : FieldSelection.MAPCODE_FIELDS);
+
+        // Send a trace event with the lat/lon and other parameters.
+        if (allowLog) {
+            TRACER.eventLatLonToMapcode(latDeg, lonDeg, territory, precision, paramType,
+                    paramAlphabet, paramInclude, UTCTime.now(), paramClient);
+        }
+
+        // Snap the lat/lon of the cache key to the cache grid (if any), so lat/lons in the same grid cell share a
+        // cached response. The offset is relative to the requested lat/lon, so responses with an offset are only
+        // shared by identical lat/lons.
+        final double keyLatDeg;
+        final double keyLonDeg;
+        if ((encodeCacheGridDeg > 0.0) && !ParamParser.isIncluded(includes, ParamInclude.OFFSET)) {
+            keyLatDeg = Math.max(ApiConstants.API_LAT_MIN, Math.min(ApiConstants.API_LAT_MAX,
+                    Math.round(latDeg / encodeCacheGridDeg) * encodeCacheGridDeg));
+            keyLonDeg = Geo.mapToLon(Math.round(lonDeg / encodeCacheGridDeg) * encodeCacheGridDeg);
+        } else {
+            keyLatDeg = latDeg;
+            keyLonDeg = lonDeg;
+        }
+        final EncodeKey encodeKey = new EncodeKey(keyLatDeg, keyLonDeg, type, precision, territory, country, alphabet,
+                includes, fields);
+        final ApiDTO cachedResult = encodeCache.get(encodeKey);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        // Create the response, or wait for the response of an identical request that is creating it already.
+        return encodeFlights.execute(encodeKey, () -> computeEncode(encodeKey, latDeg, lonDeg));
+    }
+
+    /**
+     * Create the response of a lat/lon to mapcode request and cache it.
+     *
+     * @param encodeKey    Normalized request.
+     * @param encodeLatDeg Requested latitude, which is encoded (the latitude of the key may be snapped to the cache grid).
+     * @param encodeLonDeg Requested longitude, which is encoded.
+     * @return The response body: a {@link MapcodesDTO}, {@link MapcodeDTO} or {@link MapcodeListDTO}.
+     * @throws ApiNotFoundException If there is no mapcode of the requested type.
+     */
     @Nonnull
-    private static Territory resolveTerritory(@Nonnull final String paramTerritory, @Nullable final String paramParent) {
-        Territory parentTerritory;
-        if (paramParent != null) {
+    private ApiDTO computeEncode(
+            @Nonnull final EncodeKey encodeKey,
+            final double encodeLatDeg,
+            final double encodeLonDeg) throws ApiNotFoundException {
+        final ParamType type = encodeKey.getType();
+        final int precision = encodeKey.getPrecision();
+        final Territory territory = encodeKey.getTerritory();
+        final String country = encodeKey.getCountry();
+        final Alphabet alphabet = encodeKey.getAlphabet();
+        final boolean includeOffset = ParamParser.isIncluded(encodeKey.getIncludes(), ParamInclude.OFFSET);
+        final boolean includeTerritory = ParamParser.isIncluded(encodeKey.getIncludes(), ParamInclude.TERRITORY);
+        final boolean includeAlphabet = ParamParser.isIncluded(encodeKey.getIncludes(), ParamInclude.ALPHABET);
+        final boolean includeRectangle = ParamParser.isIncluded(encodeKey.getIncludes(), ParamInclude.RECTANGLE);
+        final FieldSelection fields = encodeKey.getFields();
+
+        // Create result body, which is an ApiDTO. The exact type of DTO is still to be determined below.
+        final ApiDTO result;
+        if (type == ParamType.INTERNATIONAL) {
+
+            // Encode the international mapcode only; it is the same for every territory or country.
+            result = createMapcodeDTO(EncodeResult.encodeToInternational(encodeLatDeg, encodeLonDeg), precision, alphabet,
+                    includeOffset, includeTerritory, includeAlphabet, includeRectangle, fields.getMapcodeFields(null));
+        } else if ((type == ParamType.LOCAL) && ((territory != null) || (country != null))) {
+
+            // Encode the shortest local mapcode of the territory or country only.
+            final MapcodeResult local = EncodeResult.encodeToShortest(encodeLatDeg, encodeLonDeg,
+                    (territory != null) ? territory : TerritoryIndex.fromCountryISO(country));
+            if (local == null) {
+                throw new ApiNotFoundException("No local mapcode for: " +
+                        MapcodeCodec.encodeToInternational(encodeLatDeg, encodeLonDeg).getCode());
+            }
+            result = createMapcodeDTO(local, precision, alphabet, includeOffset, includeTerritory,
+                    includeAlphabet, includeRectangle, fields.getMapcodeFields(null));
+        } else if (type == null) {
+
+            // No type was supplied, so we need to return the local, international and all mapcodes, as far as
+            // they are selected by the 'fields' parameter.
+            final int localFields = fields.getMapcodeFields("local");
+            final int internationalFields = fields.getMapcodeFields("international");
+            final int mapcodesFields = fields.getMapcodeFields("mapcodes");
+            if ((localFields == 0) && (mapcodesFields == 0)) {
+
+                // Only the international mapcode is selected, which does not require encoding the other mapcodes.
+                result = MapcodesDTO.createSelection(null,
+                        createMapcodeDTO(EncodeResult.encodeToInternational(encodeLatDeg, encodeLonDeg), precision, alphabet,
+                                includeOffset, includeTerritory, includeAlphabet, includeRectangle, internationalFields),
+                        null);
+            } else {
 
-            // Try to use the parent territory, if available.
-            Territory context;
-            try {
-                final String cleaned = paramParent.replace('-', '_').toUpperCase();
-                context = Territory.fromString(cleaned);
-                if (context.getParentTerritory() != null) {
-                    context = context.getParentTerritory();
+                // Encode the lat/lon only once, and use the result for all types.
+                final EncodeResult encodeResult = EncodeResult.encode(encodeLatDeg, encodeLonDeg, territory, country);
+                final MapcodeDTO local = ((localFields == 0) || (encodeResult.getLocal() == null)) ? null :
+                        createMapcodeDTO(encodeResult.getLocal(), precision, alphabet, includeOffset, includeTerritory,
+                                includeAlphabet, includeRectangle, localFields);
+                final MapcodeDTO international = (internationalFields == 0) ? null :
+                        createMapcodeDTO(encodeResult.getInternational(), precision, alphabet, includeOffset,
+                                includeTerritory, includeAlphabet, includeRectangle, internationalFields);
+                final MapcodeListDTO mapcodes = (mapcodesFields == 0) ? null :
+                        createMapcodeListDTO(encodeResult.getMapcodes().stream().
+                                map(mapcode -> createMapcodeDTO(mapcode, precision, alphabet, includeOffset, includeTerritory,
+                                        includeAlphabet, includeRectangle, mapcodesFields)).
+                                collect(Collectors.toList()), fields);
+                if (fields.isAll()) {
+                    assert (international != null) && (mapcodes != null);
+                    result = new MapcodesDTO(local, international, mapcodes);
+                } else {
+                    result = MapcodesDTO.createSelection(local, international, mapcodes);
                 }
-            } catch (final IllegalArgumentException ignored) {
+            }
+        } else {
 
-                // Check if it was an alias.
-                context = getTerritoryAlias(paramParent);
-                if (context == null) {
-                    throw new ApiInvalidFormatException("parent", paramParent, API_ERROR_VALID_TERRITORY_CODES);
+            // Return only the local or all mapcodes.
+            final EncodeResult encodeResult = EncodeResult.encode(encodeLatDeg, encodeLonDeg, territory, country);
+            switch (type) {
+                case LOCAL: {
+                    if (encodeResult.getLocal() == null) {
+                        throw new ApiNotFoundException("No local mapcode for: " + encodeResult.getInternational().getMapcode().getCode());
+                    }
+                    result = createMapcodeDTO(encodeResult.getLocal(), precision, alphabet, includeOffset, includeTerritory,
+                            includeAlphabet, includeRectangle, fields.getMapcodeFields(null));
+                    break;
                 }
+
+                case MAPCODES: {
+                    final int mapcodeFields = fields.getMapcodeFields(null);
+                    result = createMapcodeListDTO(encodeResult.getMapcodes().stream().
+                            map(mapcode -> createMapcodeDTO(mapcode, precision, alphabet, includeOffset, includeTerritory,
+                                    includeAlphabet, includeRectangle, mapcodeFields)).
+                            collect(Collectors.toList()), fields);
+                    break;
+                }
+
+                default:
+                    assert false;
+                    result = null;
             }
+        }
+
+        // Validate the DTO before returning it, to make sure it's valid (internal consistency check). A selection of
+        // fields is not validated, as it may omit required fields; it is created from the same (validated) values.
+        if (fields.isAll()) {
+            result.validate();
+        }
+        encodeCache.put(encodeKey, result);
+        return result;
+    }
+
+    /**
+     * Convert a single request of a batch. Errors are returned in the response, rather than thrown.
+     */
+    @Nonnull
+    private EncodeResponseDTO createEncodeResponse(
+            @Nonnull final EncodeRequestDTO request,
+            @Nonnull final String paramClient,
+            final boolean allowLog) {
+        try {
+            final ApiDTO result = encode(
+                    (request.getLatDeg() == null) ? null : request.getLatDeg().toString(),
+                    (request.getLonDeg() == null) ? null : request.getLonDeg().toString(),
+                    request.getType(),
+                    (request.getPrecision() == null) ? DEFAULT_PRECISION : request.getPrecision().toString(),
+                    request.getTerritory(),
+                    request.getCountry(),
+                    null,
+                    request.getAlphabet(),
+                    StringUtils.nullToEmpty(request.getInclude()),
+                    "",
+                    paramClient,
+                    allowLog);
+            return new EncodeResponseDTO(Response.Status.OK.getStatusCode(), null, result);
+        } catch (final ApiException e) {
+            return new EncodeResponseDTO(getStatusCode(e), e.getMessage(), null);
+        }
+    }
 
-            // Use the resolved context.
-            try {
-                parentTerritory = Territory.valueOf(context.toString());
-            } catch (final IllegalArgumentException ignored) {
+    /**
+     * Convert a mapcode to a lat/lon (or rectangle). This method validates the parameters, which have the same
+     * semantics as the URL parameters of {@link #convertMapcodeToLatLon(String, String, String, String, String,
+     * String, String, AsyncResponse)}.
+     *
+     * @return The response body: a {@link PointDTO} or {@link RectangleDTO}.
+     * @throws ApiException If a parameter is invalid or the mapcode does not exist.
+     */
+    @Nonnull
+    private ApiDTO decode(
+            @Nonnull final String paramCode,
+            @Nullable final String paramContext,
+            @Nullable final String paramTerritoryMustBeNull,
+            @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
+            @Nonnull final String paramClient,
+            final boolean allowLog) throws ApiException {
+        // Prevent 'territory' from inadvertently being specified.
+        if (paramTerritoryMustBeNull != null) {
+            throw new ApiInvalidFormatException(PARAM_TERRITORY, paramTerritoryMustBeNull, "null");
+        }
 
-                // Explicitly remove parent context.
-                parentTerritory = null;
+        // Check include parameter.
+        final boolean foundIncludeRectangle = ParamParser.isIncluded(ParamParser.parseIncludes(paramInclude), ParamInclude.RECTANGLE);
+
+        // Check the fields, which depend on whether a rectangle or a point is returned.
+        final FieldSelection fields = ParamParser.parseFields(paramFields,
+                foundIncludeRectangle ? FieldSelection.RECTANGLE_FIELDS : FieldSelection.POINT_FIELDS);
+
+        // International mapcodes decode to the same location in every territory, so without a context they are
+        // decoded directly. They are not cached: they are unique per location and would only evict local mapcodes.
+        if ((paramContext == null) && ParamParser.isInternationalMapcode(paramCode)) {
+            if (allowLog) {
+                TRACER.eventMapcodeToLatLon(paramCode, null, UTCTime.now(), paramClient);
             }
+            return selectFields(decodeInternational(paramCode, foundIncludeRectangle), fields);
+        }
+
+        // Return a cached response (or a cached unknown mapcode) if there is one.
+        final DecodeKey decodeKey = new DecodeKey(paramCode, paramContext, foundIncludeRectangle);
+        DecodeResult decodeResult = decodeCache.get(decodeKey);
+        if (decodeResult == null) {
+
+            // Create the response, or wait for the response of an identical request that is creating it already.
+            decodeResult = decodeFlights.execute(decodeKey, () ->
+                    computeDecode(decodeKey, paramCode, paramContext, foundIncludeRectangle));
+        }
+
+        // Send a trace event with the mapcode and territory.
+        if (allowLog) {
+            TRACER.eventMapcodeToLatLon(paramCode, decodeResult.getTerritoryContext(), UTCTime.now(), paramClient);
+        }
+
+        final ApiDTO result = decodeResult.getResult();
+        if (result == null) {
+            throw new ApiNotFoundException("No " + (foundIncludeRectangle ? "rectangle" : "location") +
+                    " found for mapcode='" + paramCode + "', context=" + decodeResult.getTerritoryContext());
+        }
+        return selectFields(result, fields);
+    }
+
+    /**
+     * Return a decoded point or rectangle with the selected fields only. The cached (complete) result is not
+     * modified, as it is shared between requests.
+     *
+     * @param result Point or rectangle.
+     * @param fields Selected fields.
+     * @return The result itself if all fields are selected, or a copy with the selected fields (which is not
+     * validated, as the result itself was validated already).
+     */
+    @Nonnull
+    private static ApiDTO selectFields(@Nonnull final ApiDTO result, @Nonnull final FieldSelection fields) {
+        if (fields.isAll()) {
+            return result;
+        }
+        final ApiDTO selected;
+        if (result instanceof RectangleDTO) {
+            final RectangleDTO rectangle = (RectangleDTO) result;
+            selected = RectangleDTO.createSelection(
+                    fields.isSelected("southWest") ? rectangle.getSouthWest() : null,
+                    fields.isSelected("northEast") ? rectangle.getNorthEast() : null,
+                    fields.isSelected("center") ? rectangle.getCenter() : null);
         } else {
-            parentTerritory = null;
+            final PointDTO point = (PointDTO) result;
+            selected = PointDTO.createSelection(
+                    fields.isSelected("latDeg") ? point.getLatDeg() : null,
+                    fields.isSelected("lonDeg") ? point.getLonDeg() : null);
         }
+        return selected;
+    }
 
-        // Try with parent if available.
-        if (parentTerritory != null) {
-            try {
-                return Territory.fromString(paramTerritory.toUpperCase(), parentTerritory);
-            } catch (final UnknownTerritoryException ignored) {
-                // If using the parent fails, try without the parent.
+    /**
+     * Decode a mapcode and cache the result.
+     *
+     * @param decodeKey        Normalized request.
+     * @param paramCode        Mapcode, as supplied in the request.
+     * @param paramContext     Territory context, as supplied in the request, or null.
+     * @param includeRectangle True if the rectangle, rather than the point, is requested.
+     * @return The result, which holds no response body if the mapcode is unknown.
+     * @throws ApiInvalidFormatException If the context or the format of the mapcode is invalid.
+     */
+    @Nonnull
+    private DecodeResult computeDecode(
+            @Nonnull final DecodeKey decodeKey,
+            @Nonnull final String paramCode,
+            @Nullable final String paramContext,
+            final boolean includeRectangle) throws ApiInvalidFormatException {
+        // Get the territory from the path (if specified).
+        final Territory territoryContext;
+        if (paramContext != null) {
+
+            // Query parameters are HTML escaped.
+            territoryContext = resolveTerritory(ParamParser.unescapeHtml(paramContext), null);
+            if (territoryContext == null) {
+                throw new ApiInvalidFormatException(PARAM_TERRITORY, paramContext, API_ERROR_VALID_TERRITORY_CODES);
             }
+        } else {
+            territoryContext = null;
+        }
+
+        // Check if the mapcode is correctly formatted.
+        if (!ParamParser.isValidMapcodeFormat(paramCode)) {
+            throw new ApiInvalidFormatException("mapcode", paramCode, "[XXX] XX.XX[-XX]");
+        }
+
+        // Create result body (always an ApiDTO), or null if the mapcode is unknown.
+        ApiDTO result;
+        try {
+            if (includeRectangle) {
+                final Rectangle rectangle = MapcodeCodec.decodeToRectangle(paramCode, territoryContext);
+                result = new RectangleDTO(rectangle);
+            } else {
+                final Point point = MapcodeCodec.decode(paramCode, territoryContext);
+                result = new PointDTO(point.getLatDeg(), point.getLonDeg());
+            }
+
+            // Validate the result (internal consistency check).
+            result.validate();
+        } catch (final UnknownMapcodeException ignored) {
+            result = null;
+        }
+
+        // Cache unknown mapcodes as well, so repeated misses are cheap.
+        final DecodeResult decodeResult = new DecodeResult(territoryContext, result);
+        decodeCache.put(decodeKey, decodeResult);
+        return decodeResult;
+    }
+
+    /**
+     * Decode an international mapcode, without a territory context.
+     *
+     * @return The response body: a {@link PointDTO} or {@link RectangleDTO}.
+     * @throws ApiNotFoundException If the mapcode does not exist.
+     */
+    @Nonnull
+    private static ApiDTO decodeInternational(
+            @Nonnull final String paramCode,
+            final boolean includeRectangle) throws ApiNotFoundException {
+        final ApiDTO result;
+        try {
+            if (includeRectangle) {
+                result = new RectangleDTO(MapcodeCodec.decodeToRectangle(paramCode, Territory.AAA));
+            } else {
+                final Point point = MapcodeCodec.decode(paramCode, Territory.AAA);
+                result = new PointDTO(point.getLatDeg(), point.getLonDeg());
+            }
+        } catch (final UnknownMapcodeException ignored) {
+            throw new ApiNotFoundException("No " + (includeRectangle ? "rectangle" : "location") +
+                    " found for mapcode='" + paramCode + "', context=null");
+        }
+
+        // Validate the result (internal consistency check).
+        result.validate();
+        return result;
+    }
+
+    /**
+     * Convert a single request of a batch. Errors are returned in the response, rather than thrown.
+     */
+    @Nonnull
+    private DecodeResponseDTO createDecodeResponse(
+            @Nonnull final DecodeRequestDTO request,
+            @Nonnull final String paramClient,
+            final boolean allowLog) {
+        try {
+            final ApiDTO result = decode(
+                    StringUtils.nullToEmpty(request.getMapcode()),
+                    request.getContext(),
+                    null,
+                    StringUtils.nullToEmpty(request.getInclude()),
+                    "",
+                    paramClient,
+                    allowLog);
+            return new DecodeResponseDTO(Response.Status.OK.getStatusCode(), null, result);
+        } catch (final ApiException e) {
+            return new DecodeResponseDTO(getStatusCode(e), e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Return the result columns of a row of a CSV file with lat/lons. If the result contains more than one
+     * mapcode, the first (shortest) mapcode is used.
+     */
+    @Nonnull
+    private static List<String> createEncodeCsvColumns(final int status, @Nonnull final String message, @Nullable final ApiDTO result) {
+        final MapcodeDTO mapcode;
+        if (result instanceof MapcodesDTO) {
+            final MapcodesDTO mapcodes = (MapcodesDTO) result;
+            mapcode = (mapcodes.getLocal() != null) ? mapcodes.getLocal() : mapcodes.getInternational();
+        } else if (result instanceof MapcodeListDTO) {
+            final MapcodeListDTO mapcodes = (MapcodeListDTO) result;
+            mapcode = mapcodes.isEmpty() ? null : mapcodes.get(0);
+        } else {
+            mapcode = (MapcodeDTO) result;
+        }
+        if (mapcode == null) {
+            return Arrays.asList(String.valueOf(status), message, "", "", "", "", "");
+        }
+        return Arrays.asList(String.valueOf(status), message,
+                mapcode.getMapcode(),
+                StringUtils.nullToEmpty(mapcode.getTerritory()),
+                StringUtils.nullToEmpty(mapcode.getMapcodeInAlphabet()),
+                StringUtils.nullToEmpty(mapcode.getTerritoryInAlphabet()),
+                (mapcode.getOffsetMeters() == null) ? "" : mapcode.getOffsetMeters().toString());
+    }
+
+    /**
+     * Return the result columns of a row of a CSV file with mapcodes. For a rectangle, the lat/lon is its center.
+     */
+    @Nonnull
+    private static List<String> createDecodeCsvColumns(final int status, @Nonnull final String message, @Nullable final ApiDTO result) {
+        if (result instanceof RectangleDTO) {
+            final RectangleDTO rectangle = (RectangleDTO) result;
+            return Arrays.asList(String.valueOf(status), message,
+                    rectangle.getCenter().getLatDeg().toString(), rectangle.getCenter().getLonDeg().toString(),
+                    rectangle.getSouthWest().getLatDeg().toString(), rectangle.getSouthWest().getLonDeg().toString(),
+                    rectangle.getNorthEast().getLatDeg().toString(), rectangle.getNorthEast().getLonDeg().toString());
+        }
+        if (result instanceof PointDTO) {
+            final PointDTO point = (PointDTO) result;
+            return Arrays.asList(String.valueOf(status), message,
+                    point.getLatDeg().toString(), point.getLonDeg().toString(), "", "", "", "");
+        }
+        return Arrays.asList(String.valueOf(status), message, "", "", "", "", "", "");
+    }
+
+    /**
+     * Get the territories which have a mapcode for a lat/lon. This method validates the parameters, which have the
+     * same semantics as the URL parameters of {@link #getTerritoriesAt(String, String, String, String, AsyncResponse)}.
+     *
+     * @return The response body.
+     * @throws ApiInvalidFormatException If the lat/lon is invalid.
+     */
+    @Nonnull
+    private TerritoriesDTO getTerritoriesAt(
+            @Nullable final String paramLatDegAsString,
+            @Nullable final String paramLonDegAsString) throws ApiInvalidFormatException {
+        final double latDeg = ParamParser.parseLatDeg(paramLatDegAsString);
+        final double lonDeg = ParamParser.parseLonDeg(paramLonDegAsString);
+
+        // The territory DTOs are immutable, so the DTOs of the full list are shared.
+        final List<TerritoryDTO> territories = EncodeResult.getTerritories(latDeg, lonDeg).stream().
+                map(territory -> ALL_TERRITORY_DTO.get(territory.ordinal())).
+                collect(Collectors.toList());
+        return new TerritoriesDTO(territories.size(), new TerritoryListDTO(territories));
+    }
+
+    /**
+     * Convert a single request of a batch. Errors are returned in the response, rather than thrown.
+     */
+    @Nonnull
+    private TerritoriesAtResponseDTO createTerritoriesAtResponse(@Nonnull final TerritoriesAtRequestDTO request) {
+        try {
+            final TerritoriesDTO result = getTerritoriesAt(
+                    (request.getLatDeg() == null) ? null : request.getLatDeg().toString(),
+                    (request.getLonDeg() == null) ? null : request.getLonDeg().toString());
+            return new TerritoriesAtResponseDTO(Response.Status.OK.getStatusCode(), null, result);
+        } catch (final ApiException e) {
+            return new TerritoriesAtResponseDTO(getStatusCode(e), e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Return the HTTP status code that a REST call would return for an API exception.
+     */
+    private static int getStatusCode(@Nonnull final ApiException exception) {
+        final Response.Status status;
+        if (exception instanceof ApiNotFoundException) {
+            status = Response.Status.NOT_FOUND;
+        } else if (exception instanceof ApiForbiddenException) {
+            status = Response.Status.FORBIDDEN;
+        } else if (exception instanceof ApiConflictException) {
+            status = Response.Status.CONFLICT;
+        } else {
+            status = Response.Status.BAD_REQUEST;
         }
-        return Territory.fromString(paramTerritory.toUpperCase());
+        return status.getStatusCode();
     }
 
+    /**
+     * Resolve a territory name, optionally within the context of a parent territory.
+     *
+     * @param paramTerritory Territory name.
+     * @param paramParent    Parent territory, or any subdivision of it, or null.
+     * @return Territory, or null if the name is unknown.
+     * @throws ApiInvalidFormatException If the parent territory is unknown.
+     */
     @Nullable
-    private static Territory getTerritoryAlias(@Nonnull final String paramAlias) {
-        Territory context;
-        final String aliasToLookFor = paramAlias.replace('_', '-').toUpperCase();
-        context = Arrays.stream(Territory.values()).
-                filter(aliasTerritory ->
-                        Arrays.asList(aliasTerritory.getAliases()).contains(aliasToLookFor)).
-                findFirst().orElse(null);
-        return context;
+    private static Territory resolveTerritory(@Nonnull final String paramTerritory, @Nullable final String paramParent)
+            throws ApiInvalidFormatException {
+        if (paramParent != null) {
+
+            // Try to use the parent territory, if available.
+            Territory context = TerritoryIndex.fromString(paramParent);
+            if (context == null) {
+
+                // Check if it was an alias.
+                context = TerritoryIndex.fromAlias(paramParent);
+                if (context == null) {
+                    throw new ApiInvalidFormatException("parent", paramParent, API_ERROR_VALID_TERRITORY_CODES);
+                }
+            } else if (context.getParentTerritory() != null) {
+                context = context.getParentTerritory();
+            }
+
+            // Use the resolved context, unless it is a subdivision itself (which can only be found as an alias).
+            if (context.getParentTerritory() == null) {
+
+                // Only territories with subdivisions can be used as a parent.
+                if (!Territory.PARENT_TERRITORIES.contains(context)) {
+                    return null;
+                }
+
+                // Try with parent. If using the parent fails, try without the parent.
+                final Territory territory = TerritoryIndex.fromString(paramTerritory, context);
+                if (territory != null) {
+                    return territory;
+                }
+            }
+        }
+        return TerritoryIndex.fromString(paramTerritory);
     }
 
+    /**
+     * Create a mapcode DTO with the selected fields only.
+     *
+     * @param fields Bit set of selected fields, as returned by {@link FieldSelection#getMapcodeFields(String)}.
+     */
     @Nonnull
-    private static MapcodeDTO createMapcodeDTO(@Nonnull final Tuple<Mapcode, Rectangle> mapcodeAndRectangle, final int precision,
+    private static MapcodeDTO createMapcodeDTO(@Nonnull final MapcodeResult mapcodeResult, final int precision,
                                                @Nullable final Alphabet alphabet, final boolean includeOffset,
                                                final boolean includeTerritory, final boolean includeAlphabet, final boolean includeRectangle,
-                                               final double latDeg, final double lonDeg) {
-        final Mapcode mapcode = mapcodeAndRectangle.getValue1();
-        final Rectangle rectangle = mapcodeAndRectangle.getValue2();
+                                               final int fields) {
+        final Mapcode mapcode = mapcodeResult.getMapcode();
         final String code = mapcode.getCode(precision);
-        final String codeInAlphabet = mapcode.getCode(precision, alphabet);
         final String territory = mapcode.getTerritory().toString();
-        final String territoryInAlphabet = mapcode.getTerritory().toString(alphabet);
         final boolean includeOrLocal = includeTerritory || (mapcode.getTerritory() != Territory.AAA);
-        return new MapcodeDTO(
-                code,
-                includeAlphabet ? codeInAlphabet : (codeInAlphabet.equals(code) ? null : codeInAlphabet),
-                includeOrLocal ? territory : null,
-                includeOrLocal ? (includeAlphabet ? territoryInAlphabet : (territoryInAlphabet.equals(territory) ? null : territoryInAlphabet)) : null,
-                includeOffset ? offsetFromLatLonInMeters(latDeg, lonDeg, mapcode, precision) : null,
-                includeRectangle ? new RectangleDTO(rectangle) : null);
-    }
-
-    private static double offsetFromLatLonInMeters(
-            final double latDeg,
-            final double lonDeg,
-            @Nonnull final Mapcode mapcode,
-            final int precision) {
-        assert mapcode != null;
-        final double million = 1.0e6;
-        final GeoPoint position = new GeoPoint(latDeg, lonDeg);
-        try {
-            final Point point = MapcodeCodec.decode(mapcode.getCode(precision), mapcode.getTerritory());
-            final GeoPoint center = new GeoPoint(point.getLatDeg(), point.getLonDeg());
-            final double distanceMeters = Geo.distanceInMeters(position, center);
-            return Math.round(distanceMeters * million) / million;
-
-        } catch (final UnknownMapcodeException ignore) {
-            // Simply ignore.
-            return 0.0;
+
+        // Only convert to the alphabet if it is selected.
+        String codeInAlphabet = null;
+        if ((fields & FieldSelection.MAPCODE_IN_ALPHABET) != 0) {
+            codeInAlphabet = mapcode.getCode(precision, alphabet);
+            if (!includeAlphabet && codeInAlphabet.equals(code)) {
+                codeInAlphabet = null;
+            }
+        }
+        String territoryInAlphabet = null;
+        if (includeOrLocal && ((fields & FieldSelection.TERRITORY_IN_ALPHABET) != 0)) {
+            territoryInAlphabet = mapcode.getTerritory().toString(alphabet);
+            if (!includeAlphabet && territoryInAlphabet.equals(territory)) {
+                territoryInAlphabet = null;
+            }
+        }
+
+        // Only decode the rectangle and offset if they are asked for.
+        final Rectangle rectangle = (includeRectangle && ((fields & FieldSelection.RECTANGLE) != 0)) ?
+                mapcodeResult.getRectangle() : null;
+        final String territoryOrNull = (includeOrLocal && ((fields & FieldSelection.TERRITORY) != 0)) ? territory : null;
+        final Double offsetMeters = (includeOffset && ((fields & FieldSelection.OFFSET_METERS) != 0)) ?
+                mapcodeResult.getOffsetMeters(precision) : null;
+        final RectangleDTO rectangleDTO = (rectangle != null) ? new RectangleDTO(rectangle) : null;
+        if (fields == FieldSelection.ALL_MAPCODE_FIELDS) {
+            return new MapcodeDTO(code, codeInAlphabet, territoryOrNull, territoryInAlphabet, offsetMeters, rectangleDTO);
         }
+        return MapcodeDTO.createSelection(((fields & FieldSelection.MAPCODE) != 0) ? code : null, codeInAlphabet,
+                territoryOrNull, territoryInAlphabet, offsetMeters, rectangleDTO);
+    }
+
+    /**
+     * Create a list of mapcode DTOs, created by {@link #createMapcodeDTO}.
+     *
+     * @param fields Selected fields. If not all fields are selected, the list is a selection.
+     */
+    @Nonnull
+    private static MapcodeListDTO createMapcodeListDTO(@Nonnull final List<MapcodeDTO> mapcodes,
+                                                       @Nonnull final FieldSelection fields) {
+        return fields.isAll() ? new MapcodeListDTO(mapcodes) : MapcodeListDTO.createSelection(mapcodes);
     }
 
     /**
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.*;
+import com.tomtom.speedtools.geometry.Geo;
+import com.tomtom.speedtools.geometry.GeoPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class holds a single encoded mapcode. Its encompassing rectangle and its offset to the
+ * encoded lat/lon are only decoded when they are asked for, and at most once.
+ */
+public final class MapcodeResult {
+    private static final Logger LOG = LoggerFactory.getLogger(MapcodeResult.class);
+
+    @Nonnull
+    private final Mapcode mapcode;
+    private final double latDeg;
+    private final double lonDeg;
+
+    // Lazily computed values.
+    @Nullable
+    private Rectangle rectangle = null;
+    private boolean rectangleDecoded = false;
+    @Nullable
+    private Double offsetMeters = null;
+    private int offsetPrecision = -1;
+
+    /**
+     * Create a result for a mapcode.
+     *
+     * @param mapcode Mapcode.
+     * @param latDeg  Latitude the mapcode was encoded from.
+     * @param lonDeg  Longitude the mapcode was encoded from.
+     */
+    public MapcodeResult(@Nonnull final Mapcode mapcode, final double latDeg, final double lonDeg) {
+        assert mapcode != null;
+        this.mapcode = mapcode;
+        this.latDeg = latDeg;
+        this.lonDeg = lonDeg;
+    }
+
+    @Nonnull
+    public Mapcode getMapcode() {
+        return mapcode;
+    }
+
+    /**
+     * Return the encompassing rectangle of the mapcode. The rectangle is decoded on first use.
+     *
+     * @return Rectangle, or null if the mapcode could not be decoded.
+     */
+    @Nullable
+    public synchronized Rectangle getRectangle() {
+        if (!rectangleDecoded) {
+            try {
+                rectangle = MapcodeCodec.decodeToRectangle(mapcode.getCode(), mapcode.getTerritory());
+            } catch (final UnknownMapcodeException e) {
+                LOG.warn("getRectangle: Unknown mapcode, exception=", e);
+            }
+            rectangleDecoded = true;
+        }
+        return rectangle;
+    }
+
+    /**
+     * Return the offset (in meters) from the center of the mapcode to the encoded lat/lon. The offset
+     * is decoded on first use.
+     *
+     * @param precision Precision of the mapcode.
+     * @return Offset in meters, rounded to micrometers.
+     */
+    public synchronized double getOffsetMeters(final int precision) {
+        if ((offsetMeters != null) && (offsetPrecision == precision)) {
+            return offsetMeters;
+        }
+        final double million = 1.0e6;
+        final GeoPoint position = new GeoPoint(latDeg, lonDeg);
+        double offset;
+        try {
+            final Point point = MapcodeCodec.decode(mapcode.getCode(precision), mapcode.getTerritory());
+            final GeoPoint center = new GeoPoint(point.getLatDeg(), point.getLonDeg());
+            final double distanceMeters = Geo.distanceInMeters(position, center);
+            offset = Math.round(distanceMeters * million) / million;
+
+        } catch (final UnknownMapcodeException ignore) {
+            // Simply ignore.
+            offset = 0.0;
+        }
+        offsetPrecision = precision;
+        offsetMeters = offset;
+        return offset;
+    }
+}
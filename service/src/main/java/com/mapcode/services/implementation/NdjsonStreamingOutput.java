@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+
+import javax.annotation.Nonnull;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * This class converts a stream of newline-delimited JSON requests into a stream of newline-delimited
+ * JSON responses (see http://ndjson.org). Requests are parsed one at a time and every response is written
+ * as soon as it is available, so the memory use does not depend on the size of the input.
+ *
+ * Conversion errors are returned per request by the converter. If the input itself cannot be parsed, a
+ * last response with status 400 is written and the rest of the input is ignored, as the HTTP status
+ * has been sent already.
+ *
+ * @param <T> Request type.
+ */
+final class NdjsonStreamingOutput<T extends ApiDTO> implements StreamingOutput {
+
+    @Nonnull
+    private static final ObjectMapper MAPPER = Serializers.JSON_MAPPER;
+
+    @Nonnull
+    private final InputStream input;
+    @Nonnull
+    private final Class<T> requestType;
+    @Nonnull
+    private final Function<T, ApiDTO> converter;
+    @Nonnull
+    private final IntConsumer onDone;
+
+    /**
+     * Create a streaming output.
+     *
+     * @param input       Request body.
+     * @param requestType Type of a single request.
+     * @param converter   Converts a single request into a response. Must not throw exceptions.
+     * @param onDone      Called with the number of converted requests when the input is exhausted.
+     */
+    NdjsonStreamingOutput(
+            @Nonnull final InputStream input,
+            @Nonnull final Class<T> requestType,
+            @Nonnull final Function<T, ApiDTO> converter,
+            @Nonnull final IntConsumer onDone) {
+        assert input != null;
+        assert requestType != null;
+        assert converter != null;
+        assert onDone != null;
+        this.input = input;
+        this.requestType = requestType;
+        this.converter = converter;
+        this.onDone = onDone;
+    }
+
+    @Override
+    public void write(@Nonnull final OutputStream output) throws IOException {
+        int count = 0;
+        try (final JsonParser parser = MAPPER.getFactory().createParser(input);
+             final JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+
+            // Root values are separated by newlines, rather than spaces.
+            generator.setRootValueSeparator(null);
+            try {
+                while (parser.nextToken() != null) {
+                    final T request = MAPPER.readValue(parser, requestType);
+                    MAPPER.writeValue(generator, converter.apply(request));
+                    generator.writeRaw('\n');
+                    ++count;
+                }
+            } catch (final JsonProcessingException e) {
+                generator.writeStartObject();
+                generator.writeNumberField("status", Response.Status.BAD_REQUEST.getStatusCode());
+                generator.writeStringField("message", "Invalid request after " + count + " requests: " +
+                        e.getOriginalMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        } finally {
+            onDone.accept(count);
+        }
+    }
+}
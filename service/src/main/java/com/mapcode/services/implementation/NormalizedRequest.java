@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.MapcodeResource;
+import com.mapcode.services.metrics.SystemMetricsCollector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class holds the normalized form of a GET request for codes, coords, territories or alphabets. The
+ * response of such a request only depends on its normalized form and the version of the service, which
+ * makes it suitable for entity tags and response caching.
+ *
+ * The normalized form consists of the negotiated media type (JSON, XML, CBOR, Smile or MessagePack), the
+ * path (without the "json/" or "xml/" prefix, which only selects the media type) and the query parameters
+ * (sorted by name), except the parameters which do not influence the response ("client" and "allowLog").
+ *
+ * Instances are immutable.
+ */
+final class NormalizedRequest {
+
+    // Paths of the requests that can be normalized. Group 1 is the "json/" or "xml/" prefix, if any,
+    // group 2 is the path without it and group 3 is the route.
+    private static final Pattern PATH = Pattern.compile("/?mapcode/(json/|xml/)?((codes|coords|territories|alphabets)(/.*)?)");
+
+    // Binary media types, in the order in which the resources produce them.
+    private static final MediaType[] BINARY_MEDIA_TYPES = {
+            Serializers.APPLICATION_CBOR_TYPE, Serializers.APPLICATION_SMILE_TYPE, Serializers.APPLICATION_MSGPACK_TYPE};
+
+    @Nonnull
+    private final String route;
+    @Nonnull
+    private final MediaType mediaType;
+    private final boolean negotiated;
+    @Nonnull
+    private final String key;
+    @Nonnull
+    private final String client;
+
+    private NormalizedRequest(
+            @Nonnull final String route,
+            @Nonnull final MediaType mediaType,
+            final boolean negotiated,
+            @Nonnull final String key,
+            @Nonnull final String client) {
+        this.route = route;
+        this.mediaType = mediaType;
+        this.negotiated = negotiated;
+        this.key = key;
+        this.client = client;
+    }
+
+    /**
+     * Normalize a request.
+     *
+     * @param requestContext Request.
+     * @return Normalized request, or null if the request is not a GET (or HEAD) request for codes, coords,
+     * territories or alphabets, or if it does not accept any of the media types of these requests.
+     */
+    @Nullable
+    static NormalizedRequest of(@Nonnull final ContainerRequestContext requestContext) {
+        assert requestContext != null;
+        final String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return null;
+        }
+        final Matcher matcher = PATH.matcher(requestContext.getUriInfo().getPath());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        // The /json and /xml resources produce a single media type, the others negotiate it.
+        final String prefix = matcher.group(1);
+        final MediaType mediaType;
+        if (prefix == null) {
+            mediaType = getMediaType(requestContext.getAcceptableMediaTypes());
+            if (mediaType == null) {
+                return null;
+            }
+        } else {
+            mediaType = prefix.startsWith("xml") ? MediaType.APPLICATION_XML_TYPE : MediaType.APPLICATION_JSON_TYPE;
+        }
+        final String path = matcher.group(2);
+        final StringBuilder sb = new StringBuilder(mediaType.toString()).append('\n').append(path).append('\n');
+        final MultivaluedMap<String, String> queryParameters = requestContext.getUriInfo().getQueryParameters();
+        final String client = queryParameters.getFirst(MapcodeResource.PARAM_CLIENT);
+        for (final Map.Entry<String, List<String>> entry : new TreeMap<>(queryParameters).entrySet()) {
+            final String name = entry.getKey();
+            if (!MapcodeResource.PARAM_CLIENT.equals(name) && !MapcodeResource.PARAM_ALLOW_LOG.equals(name)) {
+                for (final String value : entry.getValue()) {
+                    sb.append(name).append('=').append(value).append('\n');
+                }
+            }
+        }
+        return new NormalizedRequest(matcher.group(3), mediaType, prefix == null, sb.toString(),
+                (client == null) ? "" : client);
+    }
+
+    /**
+     * @return Route of the request: "codes", "coords", "territories" or "alphabets".
+     */
+    @Nonnull
+    String getRoute() {
+        return route;
+    }
+
+    /**
+     * @return Media type the response is produced in: JSON or XML.
+     */
+    @Nonnull
+    MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return True if the media type was negotiated from the Accept header, so responses vary by it.
+     */
+    boolean isNegotiated() {
+        return negotiated;
+    }
+
+    /**
+     * @return The normalized request, which is equal for all requests that have the same response.
+     */
+    @Nonnull
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Count the request in the request metrics of its route, like the resource method would. This is used
+     * for requests which are answered by a filter, without calling the resource method. Filters only answer
+     * requests which had a successful response before, so conversions are counted as valid as well.
+     *
+     * @param metricsCollector Metrics collector.
+     */
+    void addOneRequest(@Nonnull final SystemMetricsCollector metricsCollector) {
+        assert metricsCollector != null;
+        switch (route) {
+
+            case "codes":
+                metricsCollector.addOneLatLonToMapcodeRequest(client);
+                metricsCollector.addOneValidLatLonToMapcodeRequest(client);
+                break;
+
+            case "coords":
+                metricsCollector.addOneMapcodeToLatLonRequest(client);
+                metricsCollector.addOneValidMapcodeToLatLonRequest(client);
+                break;
+
+            case "territories":
+                metricsCollector.addOneTerritoryRequest(client);
+                break;
+
+            case "alphabets":
+                metricsCollector.addOneAlphabetRequest(client);
+                break;
+
+            default:
+                assert false;
+        }
+    }
+
+    /**
+     * Return the media type a request with an Accept header is served with: JSON, XML or one of the
+     * binary formats, whichever is accepted first (the resources prefer them in that order).
+     *
+     * @param acceptableMediaTypes Accepted media types, sorted by preference.
+     * @return Media type, or null if none of them is accepted.
+     */
+    @Nullable
+    private static MediaType getMediaType(@Nonnull final List<MediaType> acceptableMediaTypes) {
+        for (final MediaType acceptable : acceptableMediaTypes) {
+            if (MediaType.APPLICATION_JSON_TYPE.isCompatible(acceptable)) {
+                return MediaType.APPLICATION_JSON_TYPE;
+            }
+            if (MediaType.APPLICATION_XML_TYPE.isCompatible(acceptable)) {
+                return MediaType.APPLICATION_XML_TYPE;
+            }
+            for (final MediaType binary : BINARY_MEDIA_TYPES) {
+                if (binary.isCompatible(acceptable)) {
+                    return binary;
+                }
+            }
+        }
+        return null;
+    }
+}
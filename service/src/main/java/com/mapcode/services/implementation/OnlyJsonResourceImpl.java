@@ -19,6 +19,9 @@ package com.mapcode.services.implementation;
 import com.mapcode.services.MapcodeResource;
 import com.mapcode.services.OnlyJsonResource;
 import com.mapcode.services.RootResource;
+import com.mapcode.services.dto.DecodeRequestListDTO;
+import com.mapcode.services.dto.EncodeRequestListDTO;
+import com.mapcode.services.dto.TerritoriesAtRequestListDTO;
 import com.tomtom.speedtools.apivalidation.exceptions.ApiIntegerOutOfRangeException;
 import com.tomtom.speedtools.apivalidation.exceptions.ApiInvalidFormatException;
 import com.tomtom.speedtools.apivalidation.exceptions.ApiNotFoundException;
@@ -68,12 +71,13 @@ public class OnlyJsonResourceImpl implements OnlyJsonResource {
             @Nullable final String paramContextMustBeNull,
             @Nullable final String paramAlphabet,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramAllowLog,
             @Suspended @Nonnull final AsyncResponse response)
             throws ApiInvalidFormatException {
         mapcodeResource.convertLatLonToMapcode(paramLatDegAsString, paramLonDegAsString, paramPrecisionAsString, paramTerritory, paramCountry,
-                paramContextMustBeNull, paramAlphabet, paramInclude, paramClient, paramAllowLog, response);
+                paramContextMustBeNull, paramAlphabet, paramInclude, paramFields, paramClient, paramAllowLog, response);
     }
 
     @Override
@@ -87,12 +91,23 @@ public class OnlyJsonResourceImpl implements OnlyJsonResource {
             @Nullable final String paramContextMustBeNull,
             @Nullable final String paramAlphabet,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramDebug,
             @Suspended @Nonnull final AsyncResponse response)
             throws ApiInvalidFormatException {
         mapcodeResource.convertLatLonToMapcode(paramLatDegAsString, paramLonDegAsString, paramType, paramPrecisionAsString, paramTerritory, paramCountry,
-                paramContextMustBeNull, paramAlphabet, paramInclude, paramClient, paramDebug, response);
+                paramContextMustBeNull, paramAlphabet, paramInclude, paramFields, paramClient, paramDebug, response);
+    }
+
+    @Override
+    public void convertLatLonToMapcodeJson(
+            @Nonnull final EncodeRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramDebug,
+            @Suspended @Nonnull final AsyncResponse response)
+            throws ApiIntegerOutOfRangeException {
+        mapcodeResource.convertLatLonToMapcode(requests, paramClient, paramDebug, response);
     }
 
     @Override
@@ -102,17 +117,28 @@ public class OnlyJsonResourceImpl implements OnlyJsonResource {
         mapcodeResource.convertMapcodeToLatLon(response);
     }
 
+    @Override
+    public void convertMapcodeToLatLonJson(
+            @Nonnull final DecodeRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramDebug,
+            @Suspended @Nonnull final AsyncResponse response)
+            throws ApiIntegerOutOfRangeException {
+        mapcodeResource.convertMapcodeToLatLon(requests, paramClient, paramDebug, response);
+    }
+
     @Override
     public void convertMapcodeToLatLonJson(
             @Nonnull final String paramCode,
             @Nullable final String paramContext,
             @Nullable final String paramTerritoryMustBeNull,
             @Nonnull final String paramInclude,
+            @Nonnull final String paramFields,
             @Nonnull final String paramClient,
             @Nonnull final String paramDebug,
             @Suspended @Nonnull final AsyncResponse response)
             throws ApiNotFoundException, ApiInvalidFormatException {
-        mapcodeResource.convertMapcodeToLatLon(paramCode, paramContext, paramTerritoryMustBeNull, paramInclude, paramClient, paramDebug, response);
+        mapcodeResource.convertMapcodeToLatLon(paramCode, paramContext, paramTerritoryMustBeNull, paramInclude, paramFields, paramClient, paramDebug, response);
     }
 
     @Override
@@ -137,6 +163,27 @@ public class OnlyJsonResourceImpl implements OnlyJsonResource {
         mapcodeResource.getTerritory(paramTerritory, paramContext, paramClient, paramAllowLog, response);
     }
 
+    @Override
+    public void getTerritoriesAtJson(
+            @Nullable final String paramLatDegAsString,
+            @Nullable final String paramLonDegAsString,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Suspended @Nonnull final AsyncResponse response)
+            throws ApiInvalidFormatException {
+        mapcodeResource.getTerritoriesAt(paramLatDegAsString, paramLonDegAsString, paramClient, paramAllowLog, response);
+    }
+
+    @Override
+    public void getTerritoriesAtJson(
+            @Nonnull final TerritoriesAtRequestListDTO requests,
+            @Nonnull final String paramClient,
+            @Nonnull final String paramAllowLog,
+            @Suspended @Nonnull final AsyncResponse response)
+            throws ApiIntegerOutOfRangeException {
+        mapcodeResource.getTerritoriesAt(requests, paramClient, paramAllowLog, response);
+    }
+
     @Override
     public void getAlphabetsJson(
             final int offset,
@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.google.common.base.Joiner;
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.services.ApiConstants;
+import com.mapcode.services.MapcodeResource.ParamInclude;
+import com.mapcode.services.MapcodeResource.ParamType;
+import com.tomtom.speedtools.apivalidation.exceptions.ApiInvalidFormatException;
+import com.tomtom.speedtools.geometry.Geo;
+import com.tomtom.speedtools.utils.MathUtils;
+import org.apache.commons.text.StringEscapeUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static com.mapcode.services.MapcodeResource.*;
+
+/**
+ * This utility class parses the URL parameters of the mapcode conversions. It produces the same values
+ * and throws the same exceptions as the straightforward implementation (using Double.valueOf, ParamType.valueOf,
+ * etc.), but avoids most intermediate objects:
+ *
+ * - simple decimal numbers, like "52.376514", are parsed without creating objects;
+ * - the (few) distinct 'type' and 'include' values clients send are parsed only once;
+ * - HTML unescaping is skipped for strings without a '&amp;'.
+ *
+ * Invalid values are detected by checking their syntax, rather than by catching exceptions of the parse
+ * methods of the JDK or the mapcode library, so the only exception thrown for invalid input is the
+ * ApiInvalidFormatException which is returned to the client.
+ */
+public final class ParamParser {
+
+    private static final String API_ERROR_VALID_TYPES = Joiner.on('|').join(ParamType.values()).toLowerCase();
+    private static final String API_ERROR_VALID_INCLUDES = Joiner.on('|').join(ParamInclude.values()).toLowerCase();
+    private static final String API_ERROR_VALID_ALPHABET_CODES = Joiner.on('|').join(Alphabet.values());
+
+    // Enum constants, looked up by name.
+    @Nonnull
+    private static final ParamType[] TYPE_VALUES = ParamType.values();
+    @Nonnull
+    private static final ParamInclude[] INCLUDE_VALUES = ParamInclude.values();
+    @Nonnull
+    private static final Alphabet[] ALPHABET_VALUES = Alphabet.values();
+
+    // Syntax of a mapcode, used for mapcodes with ASCII characters only.
+    @Nonnull
+    private static final Pattern PATTERN_MAPCODE = Pattern.compile(Mapcode.REGEX_MAPCODE);
+
+    // Length of an international mapcode without precision ("XXXXX.XXXX") and the position of its '.'.
+    private static final int INTERNATIONAL_MAPCODE_LENGTH = 10;
+    private static final int INTERNATIONAL_MAPCODE_DOT = 5;
+
+    // Maximum number of distinct 'type' and 'include' values that are remembered.
+    private static final int MAX_MEMOIZED_VALUES = 64;
+
+    // Parsed 'type' and 'include' values. Only valid values are stored.
+    @Nonnull
+    private static final Map<String, ParamType> TYPES = new ConcurrentHashMap<>();
+    @Nonnull
+    private static final Map<String, Integer> INCLUDES = new ConcurrentHashMap<>();
+
+    // Numbers with more significant digits or decimals are parsed by Double.parseDouble.
+    private static final int MAX_FAST_DIGITS = 15;
+    @Nonnull
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private ParamParser() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Parse a latitude.
+     *
+     * @param paramLatDeg Latitude. Range: [-90, 90].
+     * @return Latitude.
+     * @throws ApiInvalidFormatException If the latitude is missing, not a number or out of range.
+     */
+    public static double parseLatDeg(@Nullable final String paramLatDeg) throws ApiInvalidFormatException {
+        if (isDouble(paramLatDeg)) {
+            final double latDeg = parseDouble(paramLatDeg);
+            if (MathUtils.isBetween(latDeg, ApiConstants.API_LAT_MIN, ApiConstants.API_LAT_MAX)) {
+                return latDeg;
+            }
+        }
+        throw new ApiInvalidFormatException(PARAM_LAT_DEG, paramLatDeg,
+                "[" + ApiConstants.API_LAT_MIN + ", " + ApiConstants.API_LAT_MAX + ']');
+    }
+
+    /**
+     * Parse a longitude and map it to [-180, 180).
+     *
+     * @param paramLonDeg Longitude.
+     * @return Longitude.
+     * @throws ApiInvalidFormatException If the longitude is missing or not a number. The exception names
+     *                                   the latitude parameter, as it always has.
+     */
+    public static double parseLonDeg(@Nullable final String paramLonDeg) throws ApiInvalidFormatException {
+        if (!isDouble(paramLonDeg)) {
+            throw new ApiInvalidFormatException(PARAM_LAT_DEG, paramLonDeg, "Double");
+        }
+        return Geo.mapToLon(parseDouble(paramLonDeg));
+    }
+
+    /**
+     * Parse a precision.
+     *
+     * @param paramPrecision Precision. Range: [0, 8].
+     * @return Precision.
+     * @throws ApiInvalidFormatException If the precision is missing, not an integer or out of range.
+     */
+    public static int parsePrecision(@Nullable final String paramPrecision) throws ApiInvalidFormatException {
+
+        // Same syntax as Integer.parseInt: an optional sign and at least one (Unicode) digit.
+        final int length = (paramPrecision == null) ? 0 : paramPrecision.length();
+        final int start = ((length > 0) && ((paramPrecision.charAt(0) == '-') || (paramPrecision.charAt(0) == '+'))) ? 1 : 0;
+        int precision = 0;
+        int i = start;
+        while ((i < length) && (precision <= ApiConstants.API_PRECISION_MAX)) {
+            final int digit = Character.digit(paramPrecision.charAt(i), 10);
+            if (digit < 0) {
+                break;
+            }
+            precision = (precision * 10) + digit;
+            ++i;
+        }
+        if ((i == length) && (length > start) && MathUtils.isBetween(precision, ApiConstants.API_PRECISION_MIN, ApiConstants.API_PRECISION_MAX) &&
+                ((precision == 0) || (paramPrecision.charAt(0) != '-'))) {
+            return precision;
+        }
+        throw new ApiInvalidFormatException(PARAM_PRECISION, paramPrecision, "[" + ApiConstants.API_PRECISION_MIN +
+                ", " + ApiConstants.API_PRECISION_MAX + ']');
+    }
+
+    /**
+     * Parse a mapcode type (case-insensitive).
+     *
+     * @param paramType Type, or null.
+     * @return Type, or null if paramType is null.
+     * @throws ApiInvalidFormatException If the type is unknown.
+     */
+    @Nullable
+    public static ParamType parseType(@Nullable final String paramType) throws ApiInvalidFormatException {
+        if (paramType == null) {
+            return null;
+        }
+        final ParamType memoized = TYPES.get(paramType);
+        if (memoized != null) {
+            return memoized;
+        }
+        final ParamType type = valueOf(TYPE_VALUES, paramType.toUpperCase());
+        if (type == null) {
+            throw new ApiInvalidFormatException(PARAM_TYPE, paramType, API_ERROR_VALID_TYPES);
+        }
+        if (TYPES.size() < MAX_MEMOIZED_VALUES) {
+            TYPES.put(paramType, type);
+        }
+        return type;
+    }
+
+    /**
+     * Parse a comma-separated list of includes (case-insensitive). Empty elements are ignored.
+     *
+     * @param paramInclude Includes, possibly empty.
+     * @return Bit set of includes: bit N is set for ParamInclude.values()[N].
+     * @throws ApiInvalidFormatException If an include is unknown.
+     */
+    public static int parseIncludes(@Nonnull final String paramInclude) throws ApiInvalidFormatException {
+        assert paramInclude != null;
+        if (paramInclude.isEmpty()) {
+            return 0;
+        }
+        final Integer memoized = INCLUDES.get(paramInclude);
+        if (memoized != null) {
+            return memoized;
+        }
+        int includes = 0;
+        for (final String arg : paramInclude.toUpperCase().split(",")) {
+            if (!arg.isEmpty()) {
+                final ParamInclude include = valueOf(INCLUDE_VALUES, arg);
+                if (include == null) {
+                    throw new ApiInvalidFormatException(PARAM_INCLUDE, paramInclude, API_ERROR_VALID_INCLUDES);
+                }
+                includes = includes | (1 << include.ordinal());
+            }
+        }
+        if (INCLUDES.size() < MAX_MEMOIZED_VALUES) {
+            INCLUDES.put(paramInclude, includes);
+        }
+        return includes;
+    }
+
+    /**
+     * Check if an include is set in a bit set of includes.
+     *
+     * @param includes Bit set, as returned by {@link #parseIncludes(String)}.
+     * @param include  Include.
+     * @return True if the include is set.
+     */
+    public static boolean isIncluded(final int includes, @Nonnull final ParamInclude include) {
+        return (includes & (1 << include.ordinal())) != 0;
+    }
+
+    /**
+     * Parse a 'fields' parameter, which selects the fields of a response.
+     *
+     * @param paramFields Comma-separated field names (case-sensitive), or empty for all fields.
+     * @param validFields Valid field names of the response, like {@link FieldSelection#MAPCODES_FIELDS}.
+     * @return Selection of fields.
+     * @throws ApiInvalidFormatException If a field name is not valid for the response.
+     */
+    @Nonnull
+    public static FieldSelection parseFields(
+            @Nonnull final String paramFields,
+            @Nonnull final List<String> validFields) throws ApiInvalidFormatException {
+        assert paramFields != null;
+        assert validFields != null;
+        if (paramFields.isEmpty()) {
+            return FieldSelection.ALL;
+        }
+        final FieldSelection fields = FieldSelection.parse(paramFields, validFields);
+        if (fields == null) {
+            throw new ApiInvalidFormatException(PARAM_FIELDS, paramFields, Joiner.on('|').join(validFields));
+        }
+        return fields;
+    }
+
+    /**
+     * Parse an alphabet, like {@link Alphabet#fromString(String)}.
+     *
+     * @param paramAlphabet Alphabet (case-insensitive), or null.
+     * @return Alphabet, or null if paramAlphabet is null.
+     * @throws ApiInvalidFormatException If the alphabet is unknown.
+     */
+    @Nullable
+    public static Alphabet parseAlphabet(@Nullable final String paramAlphabet) throws ApiInvalidFormatException {
+        if (paramAlphabet == null) {
+            return null;
+        }
+        final Alphabet alphabet = valueOf(ALPHABET_VALUES, paramAlphabet.trim().toUpperCase());
+        if (alphabet == null) {
+            throw new ApiInvalidFormatException(PARAM_ALPHABET, paramAlphabet, API_ERROR_VALID_ALPHABET_CODES);
+        }
+        return alphabet;
+    }
+
+    /**
+     * Check if a mapcode is correctly formatted, like {@link Mapcode#isValidMapcodeFormat(String)}, which
+     * uses exceptions for incorrectly formatted mapcodes. Mapcodes with non-ASCII characters (other alphabets)
+     * are still checked by the mapcode library.
+     *
+     * @param mapcode Mapcode.
+     * @return True if the mapcode is correctly formatted.
+     */
+    public static boolean isValidMapcodeFormat(@Nonnull final String mapcode) {
+        assert mapcode != null;
+        if (mapcode.indexOf('.') < 0) {
+            return false;
+        }
+        for (int i = 0; i < mapcode.length(); ++i) {
+            if (mapcode.charAt(i) > 127) {
+                return Mapcode.isValidMapcodeFormat(mapcode);
+            }
+        }
+        return PATTERN_MAPCODE.matcher(mapcode.trim().toUpperCase()).matches();
+    }
+
+    /**
+     * Check if a mapcode is a correctly formatted international mapcode without a territory: "XXXXX.XXXX",
+     * optionally followed by "-" and precision characters. International mapcodes decode to the same
+     * location for every territory context, and local mapcodes never have this format.
+     *
+     * @param mapcode Mapcode.
+     * @return True if the mapcode is an international mapcode.
+     */
+    public static boolean isInternationalMapcode(@Nonnull final String mapcode) {
+        assert mapcode != null;
+        final int length = mapcode.length();
+        if ((length < INTERNATIONAL_MAPCODE_LENGTH) || (mapcode.charAt(INTERNATIONAL_MAPCODE_DOT) != '.') ||
+                ((length > INTERNATIONAL_MAPCODE_LENGTH) && (mapcode.charAt(INTERNATIONAL_MAPCODE_LENGTH) != '-'))) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            final char c = mapcode.charAt(i);
+            if ((i != INTERNATIONAL_MAPCODE_DOT) && (i != INTERNATIONAL_MAPCODE_LENGTH) &&
+                    ((c < '0') || (c > '9')) && ((c < 'A') || (c > 'Z')) && ((c < 'a') || (c > 'z'))) {
+                return false;
+            }
+        }
+        return PATTERN_MAPCODE.matcher(mapcode.toUpperCase()).matches();
+    }
+
+    /**
+     * Unescape HTML entities, like StringEscapeUtils.unescapeHtml4.
+     *
+     * @param value Value, or null.
+     * @return Unescaped value (the same instance if it contains no entities), or null if value is null.
+     */
+    @Nullable
+    public static String unescapeHtml(@Nullable final String value) {
+        return ((value == null) || (value.indexOf('&') < 0)) ? value : StringEscapeUtils.unescapeHtml4(value);
+    }
+
+    /**
+     * Check if a value has the syntax of Double.parseDouble: optional whitespace, an optional sign, followed
+     * by "NaN", "Infinity", a decimal number or a hexadecimal number, optionally followed by 'f' or 'd', and
+     * optional whitespace.
+     *
+     * @param value Value, or null.
+     * @return True if Double.parseDouble accepts the value.
+     */
+    static boolean isDouble(@Nullable final String value) {
+        if (value == null) {
+            return false;
+        }
+
+        // Skip whitespace, like String.trim.
+        int i = 0;
+        int end = value.length();
+        while ((i < end) && (value.charAt(i) <= ' ')) {
+            ++i;
+        }
+        while ((end > i) && (value.charAt(end - 1) <= ' ')) {
+            --end;
+        }
+        if ((i < end) && ((value.charAt(i) == '-') || (value.charAt(i) == '+'))) {
+            ++i;
+        }
+        if (value.startsWith("NaN", i)) {
+            return (i + 3) == end;
+        }
+        if (value.startsWith("Infinity", i)) {
+            return (i + 8) == end;
+        }
+
+        // Skip the optional type suffix.
+        if ((end > i) && ("fFdD".indexOf(value.charAt(end - 1)) >= 0)) {
+            --end;
+        }
+        final boolean hex = ((i + 1) < end) && (value.charAt(i) == '0') && ((value.charAt(i + 1) == 'x') || (value.charAt(i + 1) == 'X'));
+        if (hex) {
+            i = i + 2;
+        }
+
+        // Significand.
+        final int radix = hex ? 16 : 10;
+        int digits = 0;
+        while ((i < end) && (Character.digit(value.charAt(i), radix) >= 0) && (value.charAt(i) < 128)) {
+            ++digits;
+            ++i;
+        }
+        if ((i < end) && (value.charAt(i) == '.')) {
+            ++i;
+            while ((i < end) && (Character.digit(value.charAt(i), radix) >= 0) && (value.charAt(i) < 128)) {
+                ++digits;
+                ++i;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        // Exponent, which is required for hexadecimal numbers.
+        final boolean hasExponent = (i < end) && ("eEpP".indexOf(value.charAt(i)) >= 0);
+        if (hex != (hasExponent && ((value.charAt(i) == 'p') || (value.charAt(i) == 'P')))) {
+            return false;
+        }
+        if (hasExponent) {
+            ++i;
+            if ((i < end) && ((value.charAt(i) == '-') || (value.charAt(i) == '+'))) {
+                ++i;
+            }
+            final int exponentStart = i;
+            while ((i < end) && (value.charAt(i) >= '0') && (value.charAt(i) <= '9')) {
+                ++i;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    /**
+     * Parse a number, like Double.parseDouble. Plain decimal numbers with at most 15 significant digits and 22
+     * decimals are parsed here: their digits form an exact long, which is divided by an exact power of ten, so
+     * the result is correctly rounded, exactly like Double.parseDouble. Anything else (exponents, whitespace,
+     * "NaN", etc.) is passed on to Double.parseDouble.
+     *
+     * @param value Number, or null.
+     * @return Value.
+     * @throws NumberFormatException If value is null or not a number.
+     */
+    static double parseDouble(@Nullable final String value) {
+        if (value == null) {
+            throw new NumberFormatException("null");
+        }
+        final int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if ((length > 0) && ((value.charAt(0) == '-') || (value.charAt(0) == '+'))) {
+            negative = (value.charAt(0) == '-');
+            i = 1;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int decimals = 0;
+        boolean foundDigit = false;
+        boolean foundPoint = false;
+        while (i < length) {
+            final char c = value.charAt(i);
+            if ((c >= '0') && (c <= '9')) {
+                foundDigit = true;
+                if ((mantissa != 0) || (c != '0')) {
+                    ++significantDigits;
+                }
+                mantissa = (mantissa * 10) + (c - '0');
+                if (foundPoint) {
+                    ++decimals;
+                }
+            } else if ((c == '.') && !foundPoint) {
+                foundPoint = true;
+            } else {
+                return Double.parseDouble(value);
+            }
+            if ((significantDigits > MAX_FAST_DIGITS) || (decimals >= POWERS_OF_TEN.length)) {
+                return Double.parseDouble(value);
+            }
+            ++i;
+        }
+        if (!foundDigit) {
+            return Double.parseDouble(value);
+        }
+        final double result = mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -result : result;
+    }
+
+    /**
+     * Return the enum constant with a specific name, like Enum.valueOf, but without an exception.
+     */
+    @Nullable
+    private static <T extends Enum<T>> T valueOf(@Nonnull final T[] values, @Nonnull final String name) {
+        for (final T value : values) {
+            if (value.name().equals(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.MapcodeProperties;
+import com.mapcode.services.metrics.SystemMetricsCollector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * This class implements a cache of serialized responses of GET requests for codes, coords, territories
+ * and alphabets, keyed by their {@link NormalizedRequest}. It applies to the mapcode resource and the JSON
+ * and XML only resources alike.
+ *
+ * - The request filter looks up the request, after it was matched to a resource method. On a hit, the
+ * request is aborted with the cached bytes, so it is neither processed nor serialized again. The request is
+ * still counted in the request metrics of its route.
+ * - On a miss, the response filter marks successful responses to be stored, and the writer interceptor
+ * stores the serialized bytes, as they are written.
+ *
+ * The cache is bounded by the total size of its responses (Mapcode.responseCacheMaxBytes) and can be
+ * enabled per route (Mapcode.responseCacheRoutes). {@link ConditionalRequestFilter} runs before it (before
+ * matching), so requests answered with 304 Not Modified never reach the cache, and cached responses get
+ * their entity tags from that filter as well.
+ *
+ * Note that this class must not be annotated with @PreMatching: RESTEasy does not apply the writer
+ * interceptors of pre-matching providers.
+ *
+ * This provider must be registered with RESTEasy (see ResourcesModule and the standalone server).
+ */
+@Provider
+@Priority(Priorities.USER + 100)
+public final class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    // Name of the request property that holds the cache key of a request that was not found in the cache.
+    private static final String PROPERTY_MISS = ResponseCacheFilter.class.getName() + ".miss";
+
+    // Name of the request property that holds the cache key and media type of a response that must be stored.
+    private static final String PROPERTY_STORE = ResponseCacheFilter.class.getName() + ".store";
+
+    // Approximate size (in bytes) of a cache entry, excluding the response and key.
+    private static final int ENTRY_OVERHEAD = 128;
+
+    @Nonnull
+    private final Set<String> routes;
+    @Nonnull
+    private final BoundedCache<String, CachedResponse> cache;
+    @Nonnull
+    private final SystemMetricsCollector metricsCollector;
+
+    @Inject
+    public ResponseCacheFilter(
+            @Nonnull final MapcodeProperties mapcodeProperties,
+            @Nonnull final SystemMetricsCollector metricsCollector) {
+        assert mapcodeProperties != null;
+        assert metricsCollector != null;
+        this.routes = mapcodeProperties.getResponseCacheRoutes();
+        this.cache = new BoundedCache<>(
+                mapcodeProperties.getResponseCacheMaxBytes(),
+                (key, value) -> ENTRY_OVERHEAD + (key.length() * 2) + ((value.bytes == null) ? 0 : value.bytes.length),
+                mapcodeProperties.getCacheConcurrencyLevel(),
+                metricsCollector::addOneResponseCacheHit,
+                metricsCollector::addOneResponseCacheMiss,
+                metricsCollector::addOneResponseCacheEviction);
+        this.metricsCollector = metricsCollector;
+    }
+
+    @Override
+    public void filter(@Nonnull final ContainerRequestContext requestContext) {
+        assert requestContext != null;
+        final NormalizedRequest request = NormalizedRequest.of(requestContext);
+        if ((request == null) || !routes.contains(request.getRoute())) {
+            return;
+        }
+        final String key = request.getKey();
+        final CachedResponse cachedResponse = cache.get(key);
+        if (cachedResponse == null) {
+            requestContext.setProperty(PROPERTY_MISS, key);
+        } else {
+
+            // The resource method is not called, so count the request here.
+            request.addOneRequest(metricsCollector);
+            requestContext.abortWith(Response.ok(cachedResponse.bytes, cachedResponse.mediaType).build());
+        }
+    }
+
+    @Override
+    public void filter(
+            @Nonnull final ContainerRequestContext requestContext,
+            @Nonnull final ContainerResponseContext responseContext) {
+        assert requestContext != null;
+        assert responseContext != null;
+        final Object key = requestContext.getProperty(PROPERTY_MISS);
+        final MediaType mediaType = responseContext.getMediaType();
+        if ((key instanceof String) && (mediaType != null) &&
+                (responseContext.getStatus() == Response.Status.OK.getStatusCode()) && responseContext.hasEntity()) {
+
+            // Store the media type of the response headers, as the one passed to the writer may differ.
+            requestContext.setProperty(PROPERTY_STORE, new CachedResponse((String) key, null, mediaType));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(@Nonnull final WriterInterceptorContext context) throws IOException {
+        assert context != null;
+        final Object property = context.getProperty(PROPERTY_STORE);
+        if (!(property instanceof CachedResponse)) {
+            context.proceed();
+            return;
+        }
+
+        // Serialize the response into a buffer, write it and store it. Nothing is stored if serialization fails.
+        final OutputStream outputStream = context.getOutputStream();
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        context.setOutputStream(buffer);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(outputStream);
+        }
+        final byte[] bytes = buffer.toByteArray();
+        outputStream.write(bytes);
+        final CachedResponse response = (CachedResponse) property;
+        cache.put(response.key, new CachedResponse(response.key, bytes, response.mediaType));
+    }
+
+    /**
+     * Cache key, serialized response body and media type of a response. Instances are immutable.
+     */
+    private static final class CachedResponse {
+        @Nonnull
+        private final String key;
+        @Nullable
+        private final byte[] bytes;     // Null until the response is serialized.
+        @Nonnull
+        private final MediaType mediaType;
+
+        private CachedResponse(@Nonnull final String key, @Nullable final byte[] bytes, @Nonnull final MediaType mediaType) {
+            this.key = key;
+            this.bytes = bytes;
+            this.mediaType = mediaType;
+        }
+    }
+}
@@ -61,7 +61,9 @@ public class RootResourceImpl implements RootResource {
 
             "All REST services (except 'metrics') are able to return both JSON and XML. Use the HTTP\n" +
             "'Accept:' header to specify the expected format: application/json or application/xml\n" +
-            "If the 'Accept:' header is omitted, JSON is assumed.\n\n" +
+            "If the 'Accept:' header is omitted, JSON is assumed. The mapcode services (codes, coords,\n" +
+            "territories and alphabets) also return application/cbor, application/x-jackson-smile and\n" +
+            "application/msgpack, with the same structure as JSON.\n\n" +
 
             "GET /mapcode         Returns this help page.\n" +
             "GET /mapcode/version Returns the software version.\n" +
@@ -70,7 +72,7 @@ public class RootResourceImpl implements RootResource {
 
             "GET /mapcode/codes/{lat},{lon}[/[mapcodes|local|international]]\n" +
             "     [?precision=[0..8] & territory={restrictToTerritory} & country={restrictToCountry}\n" +
-            "     alphabet={alphabet} & include={offset|territory|alphabet|rectangle}]\n\n" +
+            "     alphabet={alphabet} & include={offset|territory|alphabet|rectangle} & fields={fields}]\n\n" +
 
             "   Convert latitude/longitude to one or more mapcodes. The response always contains the 'international' mapcode and\n" +
             "   only contains a 'local' mapcode if there are any non-international mapcode AND they are all of the same territory.\n\n" +
@@ -110,9 +112,23 @@ public class RootResourceImpl implements RootResource {
 
             "                       Note that you can use 'include=territory,alphabet' to ensure the territory code\n" +
             "                       is always present, as well as the translated territory and mapcode codes.\n" +
-            "                       This can make processing the records easier in scripts, for example.\n\n" +
-
-            "GET /mapcode/coords/{code} [?context={territory} & include={include}]\n" +
+            "                       This can make processing the records easier in scripts, for example.\n" +
+            "     fields          : Return only these fields, separated by comma's, like 'international.mapcode,local'.\n" +
+            "                       Without a filter, a field is 'local', 'international' or 'mapcodes', optionally followed\n" +
+            "                       by a field of a mapcode, like '.mapcode' or '.territory'. With a filter, a field is a field\n" +
+            "                       of a mapcode, like 'mapcode'. Fields which are not returned are not computed either.\n\n" +
+
+            "POST /mapcode/codes\n" +
+            "   Convert a list of latitude/longitudes to mapcodes in a single call. The body is a JSON array (or XML\n" +
+            "   <requests> element) of requests like {\"latDeg\":52.1,\"lonDeg\":4.5,\"type\":\"local\"}. Every request\n" +
+            "   can specify its own 'type', 'precision', 'territory', 'country', 'alphabet' and 'include' attributes,\n" +
+            "   which have the same meaning as for the GET method above. Identical requests are converted only once.\n\n" +
+
+            "   The response is a list with a response for each request, in the same order. Every response contains the\n" +
+            "   HTTP 'status' code the GET method would have returned and either the 'result' or an error 'message'.\n" +
+            "   The maximum number of requests in a batch is configured in 'mapcode-tuning.properties'.\n\n" +
+
+            "GET /mapcode/coords/{code} [?context={territory} & include={include} & fields={fields}]\n" +
             "   Convert a mapcode into a latitude/longitude pair.\n\n" +
 
             "   Path parameters:\n" +
@@ -125,7 +141,26 @@ public class RootResourceImpl implements RootResource {
             "                       code is ambiguous without it, otherwise it is ignored. For example, the context is ignored\n" +
             "                       when converting an international code (but it is not considered an error to provide it).\n" +
             "     include         : An additional option may be set:\n" +
-            "                         rectangle = Include the encompassing rectangle of a mapcode.\n\n" +
+            "                         rectangle = Include the encompassing rectangle of a mapcode.\n" +
+            "     fields          : Return only these fields, separated by comma's: 'latDeg' or 'lonDeg', or 'southWest',\n" +
+            "                       'northEast' or 'center' for 'include=rectangle'.\n\n" +
+
+            "POST /mapcode/coords\n" +
+            "   Convert a list of mapcodes to latitude/longitudes in a single call. The body is a JSON array (or XML\n" +
+            "   <requests> element) of requests like {\"mapcode\":\"49.4V\",\"context\":\"NLD\",\"include\":\"rectangle\"}.\n" +
+            "   The 'context' and 'include' attributes are optional and have the same meaning as for the GET method above.\n" +
+            "   The response is a list with a 'status' and a 'result' or error 'message' per request, like for POST /mapcode/codes.\n\n" +
+            "   Both POST methods also accept a stream of newline-delimited JSON requests (one request per line), with\n" +
+            "   'Content-Type: application/x-ndjson'. The responses are then streamed back as newline-delimited JSON as well,\n" +
+            "   one line per request, in the same order. Streams are not limited in size. If a line cannot be parsed, the\n" +
+            "   last response line has status 400 and the rest of the stream is ignored.\n\n" +
+            "   Both POST methods also accept CSV files, with 'Content-Type: text/csv'. The first row must contain the column\n" +
+            "   names. By default, the columns are named after the request fields (like 'latDeg', 'lonDeg' and 'type', or\n" +
+            "   'mapcode' and 'context'). Use the parameter 'columns' to map fields to other columns, for example\n" +
+            "   POST /mapcode/codes?columns=latDeg:lat,lonDeg:lon. Every output row contains the input row, followed by\n" +
+            "   a 'status' and error 'message' column and the result columns ('mapcode', 'territory', 'mapcodeInAlphabet',\n" +
+            "   'territoryInAlphabet' and 'offsetMeters', or 'latDeg', 'lonDeg' and the rectangle corners). The shortest\n" +
+            "   mapcode is returned if there is more than one. CSV files are streamed and not limited in size.\n\n" +
 
             "GET /mapcode/territories [?offset={offset}&count={count}]\n" +
             "   Return a list of all territories.\n\n" +
@@ -140,6 +175,18 @@ public class RootResourceImpl implements RootResource {
             "     context         : Territory context (optional, for disambiguation, name or alphacode).\n" +
             "                       The context can only be: USA IND CAN AUS MEX BRA RUS CHN ATA\n\n" +
 
+            "GET /mapcode/territories/at/{lat},{lon}\n" +
+            "   Return the territories which have a mapcode for a latitude/longitude. The coordinate is encoded to all its\n" +
+            "   mapcodes, just like 'GET /mapcode/codes', so the lookup costs about as much, but the response only holds the\n" +
+            "   territories. The territories are returned in the same order as the mapcodes. The international territory\n" +
+            "   'AAA' is not returned, so the list is empty if the coordinate only has an international mapcode.\n\n" +
+
+            "POST /mapcode/territories/at\n" +
+            "   Return the territories for a list of latitude/longitudes in a single call. The body is a JSON array (or XML\n" +
+            "   <requests> element) of requests like {\"latDeg\":52.1,\"lonDeg\":4.5}. The response is a list with a response\n" +
+            "   for each request, in the same order, with the HTTP 'status' code the GET method would have returned and\n" +
+            "   either the 'result' or an error 'message'.\n\n" +
+
             "GET /mapcode/alphabets [?offset={offset}&count={count}]\n" +
             "   Return a list of all alphabet codes.\n\n" +
 
@@ -240,7 +287,7 @@ public class RootResourceImpl implements RootResource {
             final String allowLog = "false";
             final TestAsyncResponse asyncResponse1 = new TestAsyncResponse();
             mapcodeResource.convertLatLonToMapcode(String.valueOf(latDeg), String.valueOf(lonDeg), "local",
-                    String.valueOf(precision), territory, null, null, null, include, client,
+                    String.valueOf(precision), territory, null, null, null, include, "", client,
                     allowLog, asyncResponse1);
             waitForResponse(asyncResponse1);
 
@@ -257,7 +304,7 @@ public class RootResourceImpl implements RootResource {
                         // Now execute a mapcode to lat/lon conversion.
                         final TestAsyncResponse asyncResponse2 = new TestAsyncResponse();
                         mapcodeResource.convertMapcodeToLatLon(mapcode, territory,
-                                null, include, client, allowLog, asyncResponse2);
+                                null, include, "", client, allowLog, asyncResponse2);
                         waitForResponse(asyncResponse2);
 
                         if (asyncResponse2.getResponse() instanceof Response) {
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * This class holds the pre-serialized pages of a static list, like the list of territories. A page is
+ * the sublist [fromIndex, toIndex) of the list, wrapped in a response object.
+ *
+ * There are too many possible pages to serialize them all, so only the elements are serialized up-front.
+ * A page is assembled by copying the bytes of its elements between the bytes of the response object
+ * around them (the "prefix" and "suffix") and the bytes between elements (the "separator"). These bytes
+ * are derived from serialized pages of 1 and 2 elements, so they do not depend on any formatting
+ * details of the serializers. The empty page and the full list are serialized directly.
+ */
+final class SerializedPages<E extends ApiDTO> {
+    private static final Logger LOG = LoggerFactory.getLogger(SerializedPages.class);
+
+    @Nonnull
+    private final BiFunction<Integer, Integer, ApiDTO> createPage;
+    private final int size;
+    @Nonnull
+    private final SerializedResponse emptyPage;
+    @Nonnull
+    private final SerializedResponse fullPage;
+
+    // Null if a page cannot be assembled from its elements; pages are serialized on demand then.
+    @Nullable
+    private final Assembler json;
+    @Nullable
+    private final Assembler xml;
+
+    /**
+     * Serialize the elements, the empty page and the full page.
+     *
+     * @param elements   All elements of the list.
+     * @param createPage Creates the response object for the page [fromIndex, toIndex).
+     * @throws IllegalStateException If the elements or pages cannot be serialized.
+     */
+    SerializedPages(
+            @Nonnull final List<E> elements,
+            @Nonnull final BiFunction<Integer, Integer, ApiDTO> createPage) {
+        assert elements != null;
+        assert createPage != null;
+        this.createPage = createPage;
+        this.size = elements.size();
+        this.emptyPage = SerializedResponse.of(createPage.apply(0, 0));
+        this.fullPage = SerializedResponse.of(createPage.apply(0, size));
+        if (size >= 2) {
+            final ApiDTO page1 = createPage.apply(0, 1);
+            final ApiDTO page2 = createPage.apply(0, 2);
+            json = Assembler.create(elements, Serializers::toJson, Serializers.toJson(page1), Serializers.toJson(page2));
+            xml = Assembler.create(elements, Serializers::toXmlFragment, Serializers.toXml(page1), Serializers.toXml(page2));
+            if ((json == null) || (xml == null)) {
+                LOG.warn("SerializedPages: Cannot assemble pages of {} from their elements, pages are serialized on demand",
+                        page1.getClass().getSimpleName());
+            }
+        } else {
+            json = null;
+            xml = null;
+        }
+    }
+
+    /**
+     * Return the serialized page [fromIndex, toIndex).
+     *
+     * @param fromIndex Index of first element, in [0, size].
+     * @param toIndex   Index after the last element, in [fromIndex, size].
+     * @return Serialized page.
+     */
+    @Nonnull
+    SerializedResponse getPage(final int fromIndex, final int toIndex) {
+        assert (0 <= fromIndex) && (fromIndex <= toIndex) && (toIndex <= size);
+        if (fromIndex == toIndex) {
+            return emptyPage;
+        }
+        if ((fromIndex == 0) && (toIndex == size)) {
+            return fullPage;
+        }
+        if ((json == null) || (xml == null)) {
+            return SerializedResponse.of(createPage.apply(fromIndex, toIndex));
+        }
+        return SerializedResponse.of(() -> createPage.apply(fromIndex, toIndex), json.assemble(fromIndex, toIndex),
+                xml.assemble(fromIndex, toIndex));
+    }
+
+    /**
+     * Assembles the pages of a single format.
+     */
+    private static final class Assembler {
+        @Nonnull
+        private final byte[][] elements;
+        @Nonnull
+        private final byte[] prefix;
+        @Nonnull
+        private final byte[] separator;
+        @Nonnull
+        private final byte[] suffix;
+
+        private Assembler(
+                @Nonnull final byte[][] elements,
+                @Nonnull final byte[] prefix,
+                @Nonnull final byte[] separator,
+                @Nonnull final byte[] suffix) {
+            this.elements = elements;
+            this.prefix = prefix;
+            this.separator = separator;
+            this.suffix = suffix;
+        }
+
+        /**
+         * Derive the prefix, separator and suffix from the serialized pages [0, 1) and [0, 2).
+         *
+         * @return Assembler, or null if the pages do not consist of their serialized elements.
+         */
+        @Nullable
+        static <E> Assembler create(
+                @Nonnull final List<E> elements,
+                @Nonnull final Function<E, byte[]> serializer,
+                @Nonnull final byte[] page1,
+                @Nonnull final byte[] page2) {
+            final byte[][] bytes = new byte[elements.size()][];
+            for (int i = 0; i < bytes.length; ++i) {
+                bytes[i] = serializer.apply(elements.get(i));
+            }
+
+            // Page 1 is: prefix, element 0, suffix.
+            final int index = indexOf(page1, bytes[0]);
+            if (index < 0) {
+                return null;
+            }
+            final byte[] prefix = Arrays.copyOfRange(page1, 0, index);
+            final byte[] suffix = Arrays.copyOfRange(page1, index + bytes[0].length, page1.length);
+
+            // Page 2 is: prefix, element 0, separator, element 1, suffix.
+            final int separatorStart = prefix.length + bytes[0].length;
+            final int separatorEnd = page2.length - suffix.length - bytes[1].length;
+            if ((separatorEnd < separatorStart) ||
+                    !regionEquals(page2, 0, prefix) ||
+                    !regionEquals(page2, prefix.length, bytes[0]) ||
+                    !regionEquals(page2, separatorEnd, bytes[1]) ||
+                    !regionEquals(page2, separatorEnd + bytes[1].length, suffix)) {
+                return null;
+            }
+            return new Assembler(bytes, prefix, Arrays.copyOfRange(page2, separatorStart, separatorEnd), suffix);
+        }
+
+        @Nonnull
+        byte[] assemble(final int fromIndex, final int toIndex) {
+            int length = prefix.length + suffix.length + ((toIndex - fromIndex - 1) * separator.length);
+            for (int i = fromIndex; i < toIndex; ++i) {
+                length = length + elements[i].length;
+            }
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length);
+            outputStream.write(prefix, 0, prefix.length);
+            for (int i = fromIndex; i < toIndex; ++i) {
+                if (i > fromIndex) {
+                    outputStream.write(separator, 0, separator.length);
+                }
+                outputStream.write(elements[i], 0, elements[i].length);
+            }
+            outputStream.write(suffix, 0, suffix.length);
+            return outputStream.toByteArray();
+        }
+
+        private static int indexOf(@Nonnull final byte[] bytes, @Nonnull final byte[] part) {
+            for (int i = 0; i <= (bytes.length - part.length); ++i) {
+                if (regionEquals(bytes, i, part)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean regionEquals(@Nonnull final byte[] bytes, final int offset, @Nonnull final byte[] part) {
+            if ((offset < 0) || ((offset + part.length) > bytes.length)) {
+                return false;
+            }
+            for (int i = 0; i < part.length; ++i) {
+                if (bytes[offset + i] != part[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.google.common.hash.Hashing;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+
+import javax.annotation.Nonnull;
+import javax.ws.rs.core.MediaType;
+import java.util.function.Supplier;
+
+/**
+ * This class holds a response body which has already been serialized to JSON and XML, so it can be
+ * written directly to the response stream by {@link SerializedResponseWriter}. Both representations
+ * have a strong entity tag, derived from their contents. The binary formats (CBOR, Smile and MessagePack)
+ * are requested far less often, so they are serialized from the response object when they are written.
+ *
+ * Instances are immutable and can be shared between requests.
+ */
+public final class SerializedResponse {
+
+    // Creates the response object, to serialize it to a binary format.
+    @Nonnull
+    private final Supplier<ApiDTO> dto;
+    @Nonnull
+    private final byte[] json;
+    @Nonnull
+    private final byte[] xml;
+    @Nonnull
+    private final String jsonETag;
+    @Nonnull
+    private final String xmlETag;
+
+    private SerializedResponse(@Nonnull final Supplier<ApiDTO> dto, @Nonnull final byte[] json, @Nonnull final byte[] xml) {
+        this.dto = dto;
+        this.json = json;
+        this.xml = xml;
+        this.jsonETag = createETag(json);
+        this.xmlETag = createETag(xml);
+    }
+
+    /**
+     * Validate and serialize a response body.
+     *
+     * @param dto Response body.
+     * @return Serialized response body.
+     * @throws IllegalStateException If the response body cannot be serialized.
+     */
+    @Nonnull
+    public static SerializedResponse of(@Nonnull final ApiDTO dto) {
+        assert dto != null;
+
+        // Validate the result (internal consistency check).
+        dto.validate();
+        return new SerializedResponse(() -> dto, Serializers.toJson(dto), Serializers.toXml(dto));
+    }
+
+    /**
+     * Create a response from an already serialized response body.
+     *
+     * @param dto  Creates the (valid) response body, only if it needs to be serialized to a binary format.
+     * @param json UTF-8 encoded JSON. The caller must not modify the array afterwards.
+     * @param xml  UTF-8 encoded XML, including the XML declaration. The caller must not modify the array afterwards.
+     * @return Serialized response body.
+     */
+    @Nonnull
+    static SerializedResponse of(@Nonnull final Supplier<ApiDTO> dto, @Nonnull final byte[] json, @Nonnull final byte[] xml) {
+        assert dto != null;
+        assert json != null;
+        assert xml != null;
+        return new SerializedResponse(dto, json, xml);
+    }
+
+    /**
+     * Return the serialized response body for a media type.
+     *
+     * @param mediaType Media type, which must be JSON, XML or one of the binary formats.
+     * @return Response body. The caller must not modify the array.
+     * @throws IllegalStateException If the response body cannot be serialized to a binary format.
+     */
+    @Nonnull
+    public byte[] getBytes(@Nonnull final MediaType mediaType) {
+        if (isXml(mediaType)) {
+            return xml;
+        }
+        return (Serializers.getBinaryMapper(mediaType) == null) ? json : Serializers.toBinary(dto.get(), mediaType);
+    }
+
+    /**
+     * Return the entity tag of the response body for a media type.
+     *
+     * @param mediaType Media type, which must be JSON, XML or one of the binary formats.
+     * @return Strong entity tag, including the quotes.
+     * @throws IllegalStateException If the response body cannot be serialized to a binary format.
+     */
+    @Nonnull
+    public String getETag(@Nonnull final MediaType mediaType) {
+        if (isXml(mediaType)) {
+            return xmlETag;
+        }
+        return (Serializers.getBinaryMapper(mediaType) == null) ? jsonETag : createETag(getBytes(mediaType));
+    }
+
+    private static boolean isXml(@Nonnull final MediaType mediaType) {
+        assert mediaType != null;
+        return MediaType.APPLICATION_XML_TYPE.isCompatible(mediaType);
+    }
+
+    @Nonnull
+    private static String createETag(@Nonnull final byte[] bytes) {
+        return '"' + Hashing.murmur3_128().hashBytes(bytes).toString() + '"';
+    }
+}
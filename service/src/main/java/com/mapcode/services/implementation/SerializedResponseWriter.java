@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.MapcodeResource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * This class writes a {@link SerializedResponse} in the media type negotiated by JAX-RS, without
+ * serializing it again. It sets the Content-Length header of the response and the ETag header, unless
+ * an entity tag was already set by {@link ConditionalRequestFilter}. The binary formats are serialized
+ * when they are written (see {@link SerializedResponse}).
+ *
+ * This provider must be registered with RESTEasy (see web.xml and the standalone server).
+ */
+@Provider
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML,
+        MapcodeResource.APPLICATION_CBOR, MapcodeResource.APPLICATION_SMILE, MapcodeResource.APPLICATION_MSGPACK})
+public final class SerializedResponseWriter implements MessageBodyWriter<SerializedResponse> {
+
+    @Override
+    public boolean isWriteable(
+            @Nonnull final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType) {
+        return SerializedResponse.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(
+            @Nonnull final SerializedResponse response,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nonnull final MediaType mediaType) {
+        // Do not serialize binary formats twice.
+        return (Serializers.getBinaryMapper(mediaType) == null) ? response.getBytes(mediaType).length : -1;
+    }
+
+    @Override
+    public void writeTo(
+            @Nonnull final SerializedResponse response,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nonnull final MediaType mediaType,
+            @Nonnull final MultivaluedMap<String, Object> httpHeaders,
+            @Nonnull final OutputStream entityStream) throws IOException {
+        final byte[] bytes = response.getBytes(mediaType);
+
+        // Headers can still be changed, as nothing has been written yet. The length is only known if
+        // the body is not encoded (compressed) on its way out.
+        if (!httpHeaders.containsKey(HttpHeaders.ETAG)) {
+            httpHeaders.putSingle(HttpHeaders.ETAG, response.getETag(mediaType));
+        }
+        if (!httpHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, bytes.length);
+        }
+        entityStream.write(bytes);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import com.mapcode.services.MapcodeResource;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class serializes response objects to JSON and XML outside of the JAX-RS providers, producing the
+ * same bytes as the JSON provider (Jackson) and XML provider (JAXB) of RESTEasy. It also holds the mappers of
+ * the binary formats (CBOR, Smile and MessagePack), which produce the same structure as JSON.
+ */
+final class Serializers {
+
+    // The streams are owned (and closed) by the callers.
+    @Nonnull
+    static final ObjectMapper JSON_MAPPER = createMapper(JsonFactory.builder().
+            disable(StreamReadFeature.AUTO_CLOSE_SOURCE).
+            disable(StreamWriteFeature.AUTO_CLOSE_TARGET).
+            build());
+
+    @Nonnull
+    static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(MapcodeResource.APPLICATION_CBOR);
+    @Nonnull
+    static final MediaType APPLICATION_SMILE_TYPE = MediaType.valueOf(MapcodeResource.APPLICATION_SMILE);
+    @Nonnull
+    static final MediaType APPLICATION_MSGPACK_TYPE = MediaType.valueOf(MapcodeResource.APPLICATION_MSGPACK);
+
+    @Nonnull
+    private static final ObjectMapper CBOR_MAPPER = createMapper(CBORFactory.builder().
+            disable(StreamReadFeature.AUTO_CLOSE_SOURCE).
+            disable(StreamWriteFeature.AUTO_CLOSE_TARGET).
+            build());
+    @Nonnull
+    private static final ObjectMapper SMILE_MAPPER = createMapper(SmileFactory.builder().
+            disable(StreamReadFeature.AUTO_CLOSE_SOURCE).
+            disable(StreamWriteFeature.AUTO_CLOSE_TARGET).
+            build());
+
+    // The MessagePack factory has no builder.
+    @Nonnull
+    private static final ObjectMapper MSGPACK_MAPPER = createMapper(new MessagePackFactory().
+            disable(JsonParser.Feature.AUTO_CLOSE_SOURCE).
+            disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+
+    // JAXB contexts are expensive to create, but thread-safe.
+    @Nonnull
+    private static final Map<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
+    private Serializers() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Serialize an object to JSON.
+     *
+     * @param value Object.
+     * @return UTF-8 encoded JSON.
+     * @throws IllegalStateException If the object cannot be serialized.
+     */
+    @Nonnull
+    static byte[] toJson(@Nonnull final Object value) {
+        assert value != null;
+        try {
+            return JSON_MAPPER.writeValueAsBytes(value);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize to JSON: " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Return the mapper of a binary media type.
+     *
+     * @param mediaType Media type.
+     * @return Mapper for CBOR, Smile or MessagePack, or null if the media type is none of these.
+     */
+    @Nullable
+    static ObjectMapper getBinaryMapper(@Nonnull final MediaType mediaType) {
+        assert mediaType != null;
+        if (isSameType(APPLICATION_CBOR_TYPE, mediaType)) {
+            return CBOR_MAPPER;
+        } else if (isSameType(APPLICATION_SMILE_TYPE, mediaType)) {
+            return SMILE_MAPPER;
+        } else if (isSameType(APPLICATION_MSGPACK_TYPE, mediaType)) {
+            return MSGPACK_MAPPER;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Serialize an object to a binary format.
+     *
+     * @param value     Object.
+     * @param mediaType Media type, for which {@link #getBinaryMapper(MediaType)} must not return null.
+     * @return Serialized object.
+     * @throws IllegalStateException If the object cannot be serialized.
+     */
+    @Nonnull
+    static byte[] toBinary(@Nonnull final Object value, @Nonnull final MediaType mediaType) {
+        assert value != null;
+        final ObjectMapper mapper = getBinaryMapper(mediaType);
+        assert mapper != null;
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize to " + mediaType + ": " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Serialize an object to XML, including the XML declaration.
+     *
+     * @param value Object, which must be annotated with @XmlRootElement.
+     * @return UTF-8 encoded XML.
+     * @throws IllegalStateException If the object cannot be serialized.
+     */
+    @Nonnull
+    static byte[] toXml(@Nonnull final Object value) {
+        return toXml(value, false);
+    }
+
+    /**
+     * Serialize an object to an XML fragment, without the XML declaration.
+     *
+     * @param value Object, which must be annotated with @XmlRootElement.
+     * @return UTF-8 encoded XML element.
+     * @throws IllegalStateException If the object cannot be serialized.
+     */
+    @Nonnull
+    static byte[] toXmlFragment(@Nonnull final Object value) {
+        return toXml(value, true);
+    }
+
+    @Nonnull
+    private static byte[] toXml(@Nonnull final Object value, final boolean fragment) {
+        assert value != null;
+        try {
+            final JAXBContext context = JAXB_CONTEXTS.computeIfAbsent(value.getClass(), type -> {
+                try {
+                    return JAXBContext.newInstance(type);
+                } catch (final JAXBException e) {
+                    throw new IllegalStateException("Cannot create JAXB context: " + type.getName(), e);
+                }
+            });
+            final Marshaller marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, StandardCharsets.UTF_8.name());
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            marshaller.marshal(value, outputStream);
+            return outputStream.toByteArray();
+        } catch (final JAXBException e) {
+            throw new IllegalStateException("Cannot serialize to XML: " + value.getClass().getName(), e);
+        }
+    }
+
+    // Same annotation handling as the JSON provider of RESTEasy: Jackson annotations first, then JAXB.
+    @Nonnull
+    private static ObjectMapper createMapper(@Nonnull final JsonFactory factory) {
+        return new ObjectMapper(factory).
+                setAnnotationIntrospector(AnnotationIntrospector.pair(
+                        new JacksonAnnotationIntrospector(),
+                        new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()))).
+                disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Compare the type and subtype only (unlike isCompatible(), wildcards do not match).
+    private static boolean isSameType(@Nonnull final MediaType expected, @Nonnull final MediaType mediaType) {
+        return expected.getType().equalsIgnoreCase(mediaType.getType()) &&
+                expected.getSubtype().equalsIgnoreCase(mediaType.getSubtype());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class coalesces concurrent computations of the same key ("single flight"): the first caller of a
+ * key computes the value, and callers with the same key that arrive while it is computing wait for it and
+ * get the same value (or exception), rather than computing it again. Once the computation has finished,
+ * the next caller of the key computes it again, so results should be cached by the computation itself.
+ *
+ * @param <K> Key type. Must implement equals() and hashCode().
+ * @param <V> Value type. Values must be immutable, as they are shared between requests.
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * Computation of a value, which may throw a (checked) exception.
+     *
+     * @param <V> Value type.
+     * @param <E> Exception type.
+     */
+    @FunctionalInterface
+    public interface Computation<V, E extends Exception> {
+
+        @Nonnull
+        V compute() throws E;
+    }
+
+    @Nonnull
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Runnable onCoalesced;
+
+    /**
+     * Create a single flight group.
+     *
+     * @param onCoalesced Called for every caller that waits for the computation of another caller.
+     */
+    public SingleFlight(@Nonnull final Runnable onCoalesced) {
+        assert onCoalesced != null;
+        this.onCoalesced = onCoalesced;
+    }
+
+    /**
+     * Compute a value, or wait for the computation of the same key by another caller.
+     *
+     * @param key         Key.
+     * @param computation Computation of the value of the key.
+     * @param <E>         Exception type of the computation.
+     * @return Value.
+     * @throws E If the computation (of this or another caller) threw it.
+     */
+    @Nonnull
+    public <E extends Exception> V execute(@Nonnull final K key, @Nonnull final Computation<V, E> computation) throws E {
+        assert key != null;
+        assert computation != null;
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            onCoalesced.run();
+            return await(existing, computation);
+        }
+        try {
+            final V value = computation.compute();
+            future.complete(value);
+            return value;
+        } catch (final Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Return the number of computations in progress.
+     *
+     * @return Number of keys being computed.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private static <V, E extends Exception> V await(
+            @Nonnull final CompletableFuture<V> future,
+            @Nonnull final Computation<V, E> computation) throws E {
+        try {
+            return future.get();
+        } catch (final InterruptedException ignored) {
+
+            // Stop waiting, but do not leave the caller without a value.
+            Thread.currentThread().interrupt();
+            return computation.compute();
+        } catch (final ExecutionException e) {
+
+            // The other caller got the same computation, so it can only have thrown an E or an unchecked exception.
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (E) cause;
+        }
+    }
+}
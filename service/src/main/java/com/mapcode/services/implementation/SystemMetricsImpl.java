@@ -54,6 +54,27 @@ public class SystemMetricsImpl implements SystemMetrics, SystemMetricsCollector
     private final MultiMetricsCollector allTerritoryRequests = MultiMetricsCollector.all();
     private final MultiMetricsCollector warningsAndErrors = MultiMetricsCollector.all();
 
+    private final MultiMetricsCollector encodeCacheHits = MultiMetricsCollector.all();
+    private final MultiMetricsCollector encodeCacheMisses = MultiMetricsCollector.all();
+    private final MultiMetricsCollector encodeCacheEvictions = MultiMetricsCollector.all();
+
+    private final MultiMetricsCollector decodeCacheHits = MultiMetricsCollector.all();
+    private final MultiMetricsCollector decodeCacheMisses = MultiMetricsCollector.all();
+    private final MultiMetricsCollector decodeCacheEvictions = MultiMetricsCollector.all();
+
+    private final MultiMetricsCollector latLonToMapcodeBatchSizes = MultiMetricsCollector.all();
+    private final MultiMetricsCollector mapcodeToLatLonBatchSizes = MultiMetricsCollector.all();
+    private final MultiMetricsCollector batchParallelism = MultiMetricsCollector.all();
+
+    private final MultiMetricsCollector notModifiedResponses = MultiMetricsCollector.all();
+
+    private final MultiMetricsCollector responseCacheHits = MultiMetricsCollector.all();
+    private final MultiMetricsCollector responseCacheMisses = MultiMetricsCollector.all();
+    private final MultiMetricsCollector responseCacheEvictions = MultiMetricsCollector.all();
+
+    private final MultiMetricsCollector coalescedLatLonToMapcodeRequests = MultiMetricsCollector.all();
+    private final MultiMetricsCollector coalescedMapcodeToLatLonRequests = MultiMetricsCollector.all();
+
     @SuppressWarnings("ClassExtendsConcreteCollection")
     @Nonnull
     private final EnumMap<Metric, MultiMetricsCollector> all =
@@ -75,6 +96,27 @@ public class SystemMetricsImpl implements SystemMetrics, SystemMetricsCollector
                 put(Metric.ALL_ALPHABET_REQUESTS, allAlphabetRequests);
                 put(Metric.ALL_TERRITORY_REQUESTS, allTerritoryRequests);
                 put(Metric.WARNINGS_AND_ERRORS, warningsAndErrors);
+
+                put(Metric.ENCODE_CACHE_HITS, encodeCacheHits);
+                put(Metric.ENCODE_CACHE_MISSES, encodeCacheMisses);
+                put(Metric.ENCODE_CACHE_EVICTIONS, encodeCacheEvictions);
+
+                put(Metric.DECODE_CACHE_HITS, decodeCacheHits);
+                put(Metric.DECODE_CACHE_MISSES, decodeCacheMisses);
+                put(Metric.DECODE_CACHE_EVICTIONS, decodeCacheEvictions);
+
+                put(Metric.LATLON_TO_MAPCODE_BATCH_SIZES, latLonToMapcodeBatchSizes);
+                put(Metric.MAPCODE_TO_LATLON_BATCH_SIZES, mapcodeToLatLonBatchSizes);
+                put(Metric.BATCH_PARALLELISM, batchParallelism);
+
+                put(Metric.NOT_MODIFIED_RESPONSES, notModifiedResponses);
+
+                put(Metric.RESPONSE_CACHE_HITS, responseCacheHits);
+                put(Metric.RESPONSE_CACHE_MISSES, responseCacheMisses);
+                put(Metric.RESPONSE_CACHE_EVICTIONS, responseCacheEvictions);
+
+                put(Metric.COALESCED_LATLON_TO_MAPCODE_REQUESTS, coalescedLatLonToMapcodeRequests);
+                put(Metric.COALESCED_MAPCODE_TO_LATLON_REQUESTS, coalescedMapcodeToLatLonRequests);
             }};
 
     @Inject
@@ -208,6 +250,96 @@ public class SystemMetricsImpl implements SystemMetrics, SystemMetricsCollector
         return warningsAndErrors;
     }
 
+    @Nonnull
+    @Override
+    public MultiMetricsData getEncodeCacheHits() {
+        return encodeCacheHits;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getEncodeCacheMisses() {
+        return encodeCacheMisses;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getEncodeCacheEvictions() {
+        return encodeCacheEvictions;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getDecodeCacheHits() {
+        return decodeCacheHits;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getDecodeCacheMisses() {
+        return decodeCacheMisses;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getDecodeCacheEvictions() {
+        return decodeCacheEvictions;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getLatLonToMapcodeBatchSizes() {
+        return latLonToMapcodeBatchSizes;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getMapcodeToLatLonBatchSizes() {
+        return mapcodeToLatLonBatchSizes;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getNotModifiedResponses() {
+        return notModifiedResponses;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getResponseCacheHits() {
+        return responseCacheHits;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getResponseCacheMisses() {
+        return responseCacheMisses;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getResponseCacheEvictions() {
+        return responseCacheEvictions;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getCoalescedLatLonToMapcodeRequests() {
+        return coalescedLatLonToMapcodeRequests;
+    }
+
+    @Nonnull
+    @Override
+    public MultiMetricsData getCoalescedMapcodeToLatLonRequests() {
+        return coalescedMapcodeToLatLonRequests;
+    }
+
     @Override
     public void addOneMapcodeToLatLonRequest(@Nullable final String client) {
         allMapcodeToLatLonRequests.addValue(1);
@@ -282,6 +414,81 @@ public class SystemMetricsImpl implements SystemMetrics, SystemMetricsCollector
         allTerritoryRequests.addValue(1);
     }
 
+    @Override
+    public void addOneEncodeCacheHit() {
+        encodeCacheHits.addValue(1);
+    }
+
+    @Override
+    public void addOneEncodeCacheMiss() {
+        encodeCacheMisses.addValue(1);
+    }
+
+    @Override
+    public void addOneEncodeCacheEviction() {
+        encodeCacheEvictions.addValue(1);
+    }
+
+    @Override
+    public void addOneDecodeCacheHit() {
+        decodeCacheHits.addValue(1);
+    }
+
+    @Override
+    public void addOneDecodeCacheMiss() {
+        decodeCacheMisses.addValue(1);
+    }
+
+    @Override
+    public void addOneDecodeCacheEviction() {
+        decodeCacheEvictions.addValue(1);
+    }
+
+    @Override
+    public void addLatLonToMapcodeBatch(final int size) {
+        latLonToMapcodeBatchSizes.addValue(size);
+    }
+
+    @Override
+    public void addMapcodeToLatLonBatch(final int size) {
+        mapcodeToLatLonBatchSizes.addValue(size);
+    }
+
+    @Override
+    public void addBatchParallelism(final int threads) {
+        batchParallelism.addValue(threads);
+    }
+
+    @Override
+    public void addOneNotModifiedResponse() {
+        notModifiedResponses.addValue(1);
+    }
+
+    @Override
+    public void addOneResponseCacheHit() {
+        responseCacheHits.addValue(1);
+    }
+
+    @Override
+    public void addOneResponseCacheMiss() {
+        responseCacheMisses.addValue(1);
+    }
+
+    @Override
+    public void addOneResponseCacheEviction() {
+        responseCacheEvictions.addValue(1);
+    }
+
+    @Override
+    public void addOneCoalescedLatLonToMapcodeRequest() {
+        coalescedLatLonToMapcodeRequests.addValue(1);
+    }
+
+    @Override
+    public void addOneCoalescedMapcodeToLatLonRequest() {
+        coalescedMapcodeToLatLonRequests.addValue(1);
+    }
+
     private static Client getClient(@Nullable final String client) {
         final Client id;
         if (client == null) {
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Territory;
+import com.mapcode.Territory.AlphaCodeFormat;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * This class resolves territory names, aliases and country codes without throwing exceptions. It
+ * returns the same territories as {@link Territory#fromString(String)}, {@link Territory#fromString(String, Territory)},
+ * {@link Territory#fromCountryISO(String)} and {@link Territory#getAliases()}, but uses hash maps which are
+ * built once, when the class is loaded.
+ *
+ * The mapcode library does not expose its list of names, so the maps are built by resolving every
+ * name that can be derived from the territories (codes, aliases, full names, their parts, optionally
+ * prefixed with the parent territory) through the library itself.
+ */
+public final class TerritoryIndex {
+
+    // Normalized name to territory, like Territory.fromString(name).
+    @Nonnull
+    private static final Map<String, Territory> NAMES;
+
+    // Parent territory to (normalized name to territory), like Territory.fromString(name, parent).
+    @Nonnull
+    private static final Map<Territory, Map<String, Territory>> NAMES_WITH_PARENT;
+
+    // Uppercase alias to first territory with that alias.
+    @Nonnull
+    private static final Map<String, Territory> ALIASES;
+
+    // Uppercase ISO 3166 2- or 3-character country code to territory, like Territory.fromCountryISO(code).
+    @Nonnull
+    private static final Map<String, Territory> COUNTRIES;
+
+    // Highest number used as a territory name by the mapcode library.
+    private static final int MAX_NUMERIC_NAME = 99;
+
+    static {
+        final Map<String, Territory> names = new HashMap<>();
+        final Map<Territory, Map<String, Territory>> namesWithParent = new EnumMap<>(Territory.class);
+        final Map<String, Territory> aliases = new HashMap<>();
+        final Map<String, Territory> countries = new HashMap<>();
+        for (final Territory parent : Territory.PARENT_TERRITORIES) {
+            namesWithParent.put(parent, new HashMap<>());
+        }
+
+        // Collect all name candidates per territory.
+        final Set<String> candidates = new HashSet<>();
+        for (final Territory territory : Territory.values()) {
+            final Set<String> territoryCandidates = getCandidates(territory);
+            candidates.addAll(territoryCandidates);
+
+            // A name with a parent can only resolve to a territory with that parent.
+            final Territory parent = territory.getParentTerritory();
+            if (parent != null) {
+                final Map<String, Territory> parentNames = namesWithParent.get(parent);
+                for (final String candidate : territoryCandidates) {
+                    final Territory resolved = resolveOrNull(candidate, parent);
+                    if (resolved != null) {
+                        parentNames.put(candidate, resolved);
+                    }
+                }
+            }
+
+            // The first territory with an alias wins.
+            for (final String alias : territory.getAliases()) {
+                aliases.putIfAbsent(alias.toUpperCase(), territory);
+            }
+        }
+        for (int i = 0; i <= MAX_NUMERIC_NAME; ++i) {
+            candidates.add(String.valueOf(i));
+        }
+        for (final String candidate : candidates) {
+            final Territory resolved = resolveOrNull(candidate, null);
+            if (resolved != null) {
+                names.put(candidate, resolved);
+            }
+        }
+
+        // Country codes.
+        for (final String iso2 : Territory.allCountryISO2Codes()) {
+            countries.put(iso2.toUpperCase(), Territory.fromCountryISO2(iso2));
+        }
+        for (final String iso3 : Territory.allCountryISO3Codes()) {
+            countries.put(iso3.toUpperCase(), Territory.fromCountryISO3(iso3));
+        }
+
+        NAMES = Collections.unmodifiableMap(names);
+        NAMES_WITH_PARENT = Collections.unmodifiableMap(namesWithParent);
+        ALIASES = Collections.unmodifiableMap(aliases);
+        COUNTRIES = Collections.unmodifiableMap(countries);
+    }
+
+    private TerritoryIndex() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Get a territory from a name, like {@link Territory#fromString(String)}.
+     *
+     * @param name Territory name, code or alias (case-insensitive).
+     * @return Territory, or null if the name is unknown.
+     */
+    @Nullable
+    public static Territory fromString(@Nonnull final String name) {
+        assert name != null;
+        final String normalized = normalize(name);
+        if (normalized == null) {
+            return resolveOrNull(name, null);
+        }
+        return fromNormalized(normalized, null);
+    }
+
+    /**
+     * Get a territory from a name within a parent territory, like {@link Territory#fromString(String, Territory)}.
+     *
+     * @param name   Territory name, code or alias (case-insensitive).
+     * @param parent Parent territory. Must be one of {@link Territory#PARENT_TERRITORIES}.
+     * @return Territory, or null if the name is unknown within the parent territory.
+     */
+    @Nullable
+    public static Territory fromString(@Nonnull final String name, @Nonnull final Territory parent) {
+        assert name != null;
+        assert parent != null;
+        assert Territory.PARENT_TERRITORIES.contains(parent);
+        final String normalized = normalize(name);
+        if (normalized == null) {
+            return resolveOrNull(name, parent);
+        }
+        return fromNormalized(normalized, parent);
+    }
+
+    /**
+     * Get the first territory (in {@link Territory#values()} order) that has a specific alias.
+     *
+     * @param alias Alias (case-insensitive, '_' is treated as '-').
+     * @return Territory, or null if no territory has this alias.
+     */
+    @Nullable
+    public static Territory fromAlias(@Nonnull final String alias) {
+        assert alias != null;
+        return ALIASES.get(alias.replace('_', '-').toUpperCase());
+    }
+
+    /**
+     * Get a territory from an ISO 3166 country code, like {@link Territory#fromCountryISO(String)}.
+     *
+     * @param countryISO ISO 3166 2- or 3-character country code (case-insensitive).
+     * @return Territory, or null if the code is not a valid country code.
+     */
+    @Nullable
+    public static Territory fromCountryISO(@Nonnull final String countryISO) {
+        assert countryISO != null;
+        final Territory territory = COUNTRIES.get(countryISO);
+        return (territory != null) ? territory : COUNTRIES.get(countryISO.toUpperCase());
+    }
+
+    /**
+     * Resolve a normalized name, following the same steps as the mapcode library: first try the
+     * name itself, then try to interpret it as "parent-name" or "parent name".
+     */
+    @Nullable
+    private static Territory fromNormalized(@Nonnull final String normalized, @Nullable final Territory parent) {
+        final Territory territory = (parent == null) ? NAMES.get(normalized) : NAMES_WITH_PARENT.get(parent).get(normalized);
+        if ((territory != null) || (parent != null)) {
+
+            // A name with a parent never resolves to a "parent-name" combination.
+            return territory;
+        }
+        final int index = Math.max(normalized.lastIndexOf('-'), normalized.lastIndexOf(' '));
+        if (index < 0) {
+            return null;
+        }
+        final Territory prefix = fromNormalized(normalized.substring(0, index), null);
+        if ((prefix == null) || !Territory.PARENT_TERRITORIES.contains(prefix)) {
+            return null;
+        }
+        final Territory suffix = fromNormalized(normalized.substring(index + 1), null);
+        return ((suffix != null) && (suffix.getParentTerritory() == prefix)) ? suffix : null;
+    }
+
+    /**
+     * Normalize a name the way the mapcode library does: trimmed, '_' replaced by '-' and in uppercase.
+     *
+     * @param name Name.
+     * @return Normalized name (the same instance if it was already normalized), or null if the name contains
+     * non-ASCII characters, which need to be converted by the mapcode library itself.
+     */
+    @Nullable
+    private static String normalize(@Nonnull final String name) {
+        final int length = name.length();
+        boolean normalized = (length == 0) || ((name.charAt(0) > ' ') && (name.charAt(length - 1) > ' '));
+        for (int i = 0; i < length; ++i) {
+            final char c = name.charAt(i);
+            if (c > 127) {
+                return null;
+            }
+            normalized = normalized && (c != '_') && ((c < 'a') || (c > 'z'));
+        }
+        return normalized ? name : name.trim().replace('_', '-').toUpperCase();
+    }
+
+    /**
+     * Resolve a name through the mapcode library. Only used to build the index and for names
+     * with non-ASCII characters.
+     */
+    @Nullable
+    private static Territory resolveOrNull(@Nonnull final String name, @Nullable final Territory parent) {
+        try {
+            return (parent == null) ? Territory.fromString(name) : Territory.fromString(name, parent);
+        } catch (final IllegalArgumentException | IllegalStateException ignored) {
+
+            // Unknown territory, or the name contains characters which cannot be converted to ASCII.
+            return null;
+        }
+    }
+
+    /**
+     * Return all names that the mapcode library may use for a territory, in normalized form. These
+     * are its codes, aliases and full names, all their parts after a '-' or ' ', the parts with '-'
+     * and ' ' swapped, and all of those prefixed by the parent territory code or aliases.
+     */
+    @Nonnull
+    private static Set<String> getCandidates(@Nonnull final Territory territory) {
+        final List<String> names = new ArrayList<>();
+        names.add(territory.toString());
+        names.add(territory.name());
+        names.add(territory.getFullName());
+        names.addAll(Arrays.asList(territory.getAliases()));
+        names.addAll(Arrays.asList(territory.getFullNameAliases()));
+        for (final AlphaCodeFormat format : AlphaCodeFormat.values()) {
+            names.add(territory.toAlphaCode(format));
+        }
+
+        // Add the parts of the names.
+        final Set<String> parts = new HashSet<>();
+        for (final String name : names) {
+            final String normalized = name.replace('_', '-').toUpperCase();
+            parts.add(normalized);
+            for (int i = 0; i < normalized.length(); ++i) {
+                if ((normalized.charAt(i) == '-') || (normalized.charAt(i) == ' ')) {
+                    parts.add(normalized.substring(i + 1));
+                }
+            }
+        }
+
+        // Add the separator variants, with and without the parent.
+        final List<String> parentNames = new ArrayList<>();
+        final Territory parent = territory.getParentTerritory();
+        if (parent != null) {
+            parentNames.add(parent.toString());
+            for (final String alias : parent.getAliases()) {
+                parentNames.add(alias.toUpperCase());
+            }
+        }
+        final Set<String> candidates = new HashSet<>();
+        for (final String part : parts) {
+            for (final String variant : Arrays.asList(part, part.replace(' ', '-'), part.replace('-', ' '))) {
+                candidates.add(variant);
+                for (final String parentName : parentNames) {
+                    candidates.add(parentName + '-' + variant);
+                    candidates.add(parentName + ' ' + variant);
+                }
+            }
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.dto.XmlFieldWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class writes the DTOs of the conversions as XML with a StAX writer (see {@link XmlFieldWriter}),
+ * rather than having the JAXB provider of RESTEasy marshal them. The output is the same as the output
+ * of the JAXB provider, including the XML declaration. Other objects, and other character sets than UTF-8,
+ * are left to the JAXB provider.
+ *
+ * This provider must be registered with RESTEasy (see web.xml and the standalone server).
+ */
+@Provider
+@Produces(MediaType.APPLICATION_XML)
+public final class XmlResponseWriter implements MessageBodyWriter<Object> {
+
+    // The XML declaration written by JAXB (StAX cannot write the standalone declaration).
+    @Nonnull
+    private static final byte[] XML_DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>".getBytes(StandardCharsets.UTF_8);
+
+    // The factory is thread-safe, once it has been configured.
+    @Nonnull
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    // Buffer to write the document in, per thread.
+    @Nonnull
+    private static final ThreadLocal<DocumentBuffer> DOCUMENT_BUFFER = ThreadLocal.withInitial(DocumentBuffer::new);
+
+    @Override
+    public boolean isWriteable(
+            @Nonnull final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType) {
+        if (!XmlFieldWriter.isWriteable(type)) {
+            return false;
+        }
+        final String charset = (mediaType == null) ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return (charset == null) || StandardCharsets.UTF_8.name().equalsIgnoreCase(charset);
+    }
+
+    @Override
+    public long getSize(
+            @Nonnull final Object value,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(
+            @Nonnull final Object value,
+            @Nullable final Class<?> type,
+            @Nullable final Type genericType,
+            @Nullable final Annotation[] annotations,
+            @Nullable final MediaType mediaType,
+            @Nullable final MultivaluedMap<String, Object> httpHeaders,
+            @Nonnull final OutputStream entityStream) throws IOException {
+
+        // The StAX writer of the JDK writes every byte to an output stream separately, so the document
+        // is written to a buffer first, which is encoded and written to the stream at once.
+        final DocumentBuffer buffer = DOCUMENT_BUFFER.get();
+        buffer.reset();
+        try {
+            final XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(buffer);
+            XmlFieldWriter.writeRoot(xml, value);
+            xml.writeEndDocument();
+            xml.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException("Cannot write as XML: " + value.getClass().getName(), e);
+        }
+        entityStream.write(XML_DECLARATION);
+        buffer.writeTo(entityStream);
+    }
+
+    /**
+     * Growing character buffer, which is reused by the requests of a thread, and encodes its contents
+     * as UTF-8. Buffers which have grown beyond {@link #MAX_RETAINED_SIZE} are shrunk again when they are reset.
+     */
+    private static final class DocumentBuffer extends Writer {
+        private static final int INITIAL_SIZE = 4096;
+        private static final int MAX_RETAINED_SIZE = 65536;
+
+        @Nonnull
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        @Nonnull
+        private final ByteBuffer bytes = ByteBuffer.allocate(INITIAL_SIZE);
+        @Nonnull
+        private char[] chars = new char[INITIAL_SIZE];
+        private int length = 0;
+
+        void reset() {
+            if (chars.length > MAX_RETAINED_SIZE) {
+                chars = new char[INITIAL_SIZE];
+            }
+            length = 0;
+        }
+
+        void writeTo(@Nonnull final OutputStream outputStream) throws IOException {
+            final CharBuffer input = CharBuffer.wrap(chars, 0, length);
+            encoder.reset();
+            CoderResult result;
+            do {
+                bytes.clear();
+
+                // The UTF-8 encoder keeps no state, so it does not need to be flushed.
+                result = encoder.encode(input, bytes, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                outputStream.write(bytes.array(), 0, bytes.position());
+            } while (result.isOverflow());
+        }
+
+        @Override
+        public void write(final int c) {
+            ensureCapacity(1);
+            chars[length] = (char) c;
+            ++length;
+        }
+
+        @Override
+        public void write(@Nonnull final char[] buffer, final int offset, final int count) {
+            ensureCapacity(count);
+            System.arraycopy(buffer, offset, chars, length, count);
+            length = length + count;
+        }
+
+        @Override
+        public void write(@Nonnull final String string, final int offset, final int count) {
+            ensureCapacity(count);
+            string.getChars(offset, offset + count, chars, length);
+            length = length + count;
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to flush.
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close.
+        }
+
+        private void ensureCapacity(final int count) {
+            if ((length + count) > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+            }
+        }
+    }
+}
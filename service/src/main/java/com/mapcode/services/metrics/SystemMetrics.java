@@ -51,7 +51,28 @@ public interface SystemMetrics {
 
         ALL_ALPHABET_REQUESTS,
         ALL_TERRITORY_REQUESTS,
-        WARNINGS_AND_ERRORS
+        WARNINGS_AND_ERRORS,
+
+        ENCODE_CACHE_HITS,                              // Lat/lon to mapcode cache.
+        ENCODE_CACHE_MISSES,
+        ENCODE_CACHE_EVICTIONS,
+
+        DECODE_CACHE_HITS,                              // Mapcode to lat/lon cache.
+        DECODE_CACHE_MISSES,
+        DECODE_CACHE_EVICTIONS,
+
+        LATLON_TO_MAPCODE_BATCH_SIZES,                  // Batch requests.
+        MAPCODE_TO_LATLON_BATCH_SIZES,
+        BATCH_PARALLELISM,
+
+        NOT_MODIFIED_RESPONSES,                         // Conditional requests.
+
+        RESPONSE_CACHE_HITS,                            // Response cache.
+        RESPONSE_CACHE_MISSES,
+        RESPONSE_CACHE_EVICTIONS,
+
+        COALESCED_LATLON_TO_MAPCODE_REQUESTS,           // Coalesced requests.
+        COALESCED_MAPCODE_TO_LATLON_REQUESTS
     }
 
     enum Client {
@@ -135,4 +156,94 @@ public interface SystemMetrics {
      */
     @Nonnull
     MultiMetricsData getWarningsAndErrors();
+
+    /**
+     * @return The number of lat/lon to mapcode requests served from the cache.
+     */
+    @Nonnull
+    MultiMetricsData getEncodeCacheHits();
+
+    /**
+     * @return The number of lat/lon to mapcode requests not found in the cache.
+     */
+    @Nonnull
+    MultiMetricsData getEncodeCacheMisses();
+
+    /**
+     * @return The number of entries evicted from the lat/lon to mapcode cache.
+     */
+    @Nonnull
+    MultiMetricsData getEncodeCacheEvictions();
+
+    /**
+     * @return The number of mapcode to lat/lon requests served from the cache (including unknown mapcodes).
+     */
+    @Nonnull
+    MultiMetricsData getDecodeCacheHits();
+
+    /**
+     * @return The number of mapcode to lat/lon requests not found in the cache.
+     */
+    @Nonnull
+    MultiMetricsData getDecodeCacheMisses();
+
+    /**
+     * @return The number of entries evicted from the mapcode to lat/lon cache.
+     */
+    @Nonnull
+    MultiMetricsData getDecodeCacheEvictions();
+
+    /**
+     * @return The sizes (number of requests) of the lat/lon to mapcode batch requests.
+     */
+    @Nonnull
+    MultiMetricsData getLatLonToMapcodeBatchSizes();
+
+    /**
+     * @return The sizes (number of requests) of the mapcode to lat/lon batch requests.
+     */
+    @Nonnull
+    MultiMetricsData getMapcodeToLatLonBatchSizes();
+
+    /**
+     * @return The number of threads used to convert a batch request.
+     */
+    @Nonnull
+    MultiMetricsData getBatchParallelism();
+
+    /**
+     * @return The number of requests answered with 304 Not Modified, because the client already had the response.
+     */
+    @Nonnull
+    MultiMetricsData getNotModifiedResponses();
+
+    /**
+     * @return The number of GET requests served from the response cache.
+     */
+    @Nonnull
+    MultiMetricsData getResponseCacheHits();
+
+    /**
+     * @return The number of cacheable GET requests not found in the response cache.
+     */
+    @Nonnull
+    MultiMetricsData getResponseCacheMisses();
+
+    /**
+     * @return The number of responses evicted from the response cache.
+     */
+    @Nonnull
+    MultiMetricsData getResponseCacheEvictions();
+
+    /**
+     * @return The number of lat/lon to mapcode requests that waited for the response of an identical request.
+     */
+    @Nonnull
+    MultiMetricsData getCoalescedLatLonToMapcodeRequests();
+
+    /**
+     * @return The number of mapcode to lat/lon requests that waited for the response of an identical request.
+     */
+    @Nonnull
+    MultiMetricsData getCoalescedMapcodeToLatLonRequests();
 }
@@ -70,4 +70,85 @@ public interface SystemMetricsCollector {
      * @param client Client that issued the call. Can be null
      */
     public void addOneTerritoryRequest(@Nullable String client);
+
+    /**
+     * Called whenever a lat/lon to mapcode request is served from the cache.
+     */
+    public void addOneEncodeCacheHit();
+
+    /**
+     * Called whenever a lat/lon to mapcode request is not found in the cache.
+     */
+    public void addOneEncodeCacheMiss();
+
+    /**
+     * Called whenever an entry is evicted from the lat/lon to mapcode cache.
+     */
+    public void addOneEncodeCacheEviction();
+
+    /**
+     * Called whenever a mapcode to lat/lon request is served from the cache.
+     */
+    public void addOneDecodeCacheHit();
+
+    /**
+     * Called whenever a mapcode to lat/lon request is not found in the cache.
+     */
+    public void addOneDecodeCacheMiss();
+
+    /**
+     * Called whenever an entry is evicted from the mapcode to lat/lon cache.
+     */
+    public void addOneDecodeCacheEviction();
+
+    /**
+     * Called whenever a lat/lon to mapcode batch request is received.
+     *
+     * @param size Number of requests in the batch.
+     */
+    public void addLatLonToMapcodeBatch(int size);
+
+    /**
+     * Called whenever a mapcode to lat/lon batch request is received.
+     *
+     * @param size Number of requests in the batch.
+     */
+    public void addMapcodeToLatLonBatch(int size);
+
+    /**
+     * Called whenever a batch request is converted.
+     *
+     * @param threads Number of threads used to convert the batch.
+     */
+    public void addBatchParallelism(int threads);
+
+    /**
+     * Called whenever a request is answered with 304 Not Modified.
+     */
+    public void addOneNotModifiedResponse();
+
+    /**
+     * Called whenever a GET request is served from the response cache.
+     */
+    public void addOneResponseCacheHit();
+
+    /**
+     * Called whenever a cacheable GET request is not found in the response cache.
+     */
+    public void addOneResponseCacheMiss();
+
+    /**
+     * Called whenever a response is evicted from the response cache.
+     */
+    public void addOneResponseCacheEviction();
+
+    /**
+     * Called whenever a lat/lon to mapcode request waits for the response of an identical request.
+     */
+    public void addOneCoalescedLatLonToMapcodeRequest();
+
+    /**
+     * Called whenever a mapcode to lat/lon request waits for the response of an identical request.
+     */
+    public void addOneCoalescedMapcodeToLatLonRequest();
 }
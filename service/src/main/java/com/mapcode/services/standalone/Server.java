@@ -17,6 +17,7 @@
 package com.mapcode.services.standalone;
 
 import com.google.inject.Inject;
+import com.mapcode.services.MapcodeProperties;
 import com.mapcode.services.implementation.*;
 import com.tomtom.speedtools.maven.MavenProperties;
 import com.tomtom.speedtools.rest.Reactor;
@@ -43,12 +44,16 @@ public class Server {
     private static final Logger LOG = LoggerFactory.getLogger(Server.class);
 
     private final MavenProperties mavenProperties;
+    private final MapcodeProperties mapcodeProperties;
     private boolean started = false;
     private final TJWSEmbeddedJaxrsServer server;
 
     @Inject
-    public Server(@Nonnull final MavenProperties mavenProperties) {
+    public Server(
+            @Nonnull final MavenProperties mavenProperties,
+            @Nonnull final MapcodeProperties mapcodeProperties) {
         this.mavenProperties = mavenProperties;
+        this.mapcodeProperties = mapcodeProperties;
         server = new TJWSEmbeddedJaxrsServer();
     }
 
@@ -85,7 +90,8 @@ public class Server {
         // Add mapcode resource.
         final MapcodeResourceImpl mapcodeResource = new MapcodeResourceImpl(
                 resourceProcessor,
-                metrics
+                metrics,
+                mapcodeProperties
         );
         resources.add(mapcodeResource);
 
@@ -151,6 +157,13 @@ public class Server {
         providerFactory.registerProvider(XopWithMultipartRelatedReader.class, true);
         providerFactory.registerProvider(XopWithMultipartRelatedWriter.class, true);
 
+        // Register the providers of the mapcode service itself.
+        providerFactory.registerProvider(SerializedResponseWriter.class, false);
+        providerFactory.registerProvider(XmlResponseWriter.class, false);
+        providerFactory.registerProvider(BinaryResponseWriter.class, false);
+        providerFactory.registerProviderInstance(new ConditionalRequestFilter(mavenProperties, mapcodeProperties, metrics));
+        providerFactory.registerProviderInstance(new ResponseCacheFilter(mapcodeProperties, metrics));
+
         LOG.debug("Server: server is ready");
         started = true;
     }
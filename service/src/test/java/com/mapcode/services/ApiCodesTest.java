@@ -16,7 +16,14 @@
 
 package com.mapcode.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.google.gson.Gson;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Point;
+import com.mapcode.UnknownMapcodeException;
 import com.mapcode.services.dto.MapcodeDTO;
 import com.mapcode.services.dto.MapcodesDTO;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
@@ -24,11 +31,15 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.util.List;
 
 @SuppressWarnings("JUnitTestMethodWithNoAssertions")
@@ -227,6 +238,51 @@ public class ApiCodesTest {
         Assert.assertEquals(200, response.getStatus());
     }
 
+    @Test
+    public void checkCodesBinary() throws IOException {
+        LOG.info("checkCodesBinary");
+        final String url = server.url("/mapcode/codes/" + TEST_LATLON1 + "?include=offset,rectangle&alphabet=greek");
+        Response response = new ResteasyClientBuilder().build().
+                target(url).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertEquals(200, response.getStatus());
+        final String eTagJson = response.getHeaderString(HttpHeaders.ETAG);
+        final JsonNode expected = new ObjectMapper().readTree(response.readEntity(String.class));
+
+        for (final String mediaType : new String[]{
+                MapcodeResource.APPLICATION_CBOR, MapcodeResource.APPLICATION_SMILE, MapcodeResource.APPLICATION_MSGPACK}) {
+            response = new ResteasyClientBuilder().build().
+                    target(url).
+                    request().
+                    accept(mediaType).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals(mediaType, response.getMediaType().toString());
+            Assert.assertNotNull(response.getHeaderString(HttpHeaders.ETAG));
+            Assert.assertNotEquals(eTagJson, response.getHeaderString(HttpHeaders.ETAG));
+            Assert.assertEquals(mediaType, expected, createBinaryMapper(mediaType).readTree(response.readEntity(byte[].class)));
+
+            // Errors get the same status code as for JSON.
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/52,5?context=NLD")).
+                    request().
+                    accept(mediaType).get();
+            Assert.assertEquals(400, response.getStatus());
+        }
+    }
+
+    static ObjectMapper createBinaryMapper(final String mediaType) {
+        switch (mediaType) {
+            case MapcodeResource.APPLICATION_CBOR:
+                return new ObjectMapper(new CBORFactory());
+            case MapcodeResource.APPLICATION_SMILE:
+                return new ObjectMapper(new SmileFactory());
+            default:
+                return new ObjectMapper(new MessagePackFactory());
+        }
+    }
+
     @Test
     public void checkCodesJson() {
         LOG.info("checkCodesJson");
@@ -386,6 +442,47 @@ public class ApiCodesTest {
         Assert.assertEquals(404, response.getStatus());
     }
 
+    @Test
+    public void checkCodesLocalWithTerritoryOrCountryJson() {
+        LOG.info("checkCodesLocalWithTerritoryOrCountryJson");
+        Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON1 + "/local?territory=BEL")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcode\":\"SQB.NR3\",\"territory\":\"BEL\"}",
+                response.readEntity(String.class));
+
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON1 + "/local?country=DE")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcode\":\"0L46.LG9\",\"territory\":\"DEU\"}",
+                response.readEntity(String.class));
+
+        // Country codes are case-insensitive and can be 2 or 3 characters (they share a cache entry).
+        for (final String country : new String[]{"de", "DEU", "deu", "DE"}) {
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + TEST_LATLON1 + "/local?country=" + country)).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals("{\"mapcode\":\"0L46.LG9\",\"territory\":\"DEU\"}",
+                    response.readEntity(String.class));
+        }
+
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON1 + "/local?territory=NLD")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(404, response.getStatus());
+    }
+
     @Test
     public void checkCodesMapcodesJson() {
         LOG.info("checkCodesMapcodesJson");
@@ -493,6 +590,19 @@ public class ApiCodesTest {
                 response.readEntity(String.class));
     }
 
+    @Test
+    public void checkCodesInternationalWithTerritoryJson() {
+        LOG.info("checkCodesInternationalWithTerritoryJson");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/international?territory=NLD&precision=2&include=offset,territory,rectangle")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcode\":\"VHVN4.YZ74-HF\",\"territory\":\"AAA\",\"offsetMeters\":0.055578,\"rectangle\":{\"southWest\":{\"latDeg\":52.159829,\"lonDeg\":4.499787},\"northEast\":{\"latDeg\":52.159871,\"lonDeg\":4.499848},\"center\":{\"latDeg\":52.159850000000006,\"lonDeg\":4.499817500000001}}}",
+                response.readEntity(String.class));
+    }
+
     @Test
     public void checkCodesIncludeJson() {
         LOG.info("checkCodesIncludeJson");
@@ -518,4 +628,312 @@ public class ApiCodesTest {
         Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><mapcodes><local><mapcode>QKM.N4</mapcode><mapcodeInAlphabet>QKM.N4</mapcodeInAlphabet><territory>NLD</territory><territoryInAlphabet>NLD</territoryInAlphabet><offsetMeters>2.843693</offsetMeters></local><international><mapcode>VHVN4.YZ74</mapcode><mapcodeInAlphabet>VHVN4.YZ74</mapcodeInAlphabet><territory>AAA</territory><territoryInAlphabet>AAA</territoryInAlphabet><offsetMeters>1.907245</offsetMeters></international><mapcodes><mapcode><mapcode>QKM.N4</mapcode><mapcodeInAlphabet>QKM.N4</mapcodeInAlphabet><territory>NLD</territory><territoryInAlphabet>NLD</territoryInAlphabet><offsetMeters>2.843693</offsetMeters></mapcode><mapcode><mapcode>CZQ.376</mapcode><mapcodeInAlphabet>CZQ.376</mapcodeInAlphabet><territory>NLD</territory><territoryInAlphabet>NLD</territoryInAlphabet><offsetMeters>5.004936</offsetMeters></mapcode><mapcode><mapcode>N39J.QW0</mapcode><mapcodeInAlphabet>N39J.QW0</mapcodeInAlphabet><territory>NLD</territory><territoryInAlphabet>NLD</territoryInAlphabet><offsetMeters>2.836538</offsetMeters></mapcode><mapcode><mapcode>VHVN4.YZ74</mapcode><mapcodeInAlphabet>VHVN4.YZ74</mapcodeInAlphabet><territory>AAA</territory><territoryInAlphabet>AAA</territoryInAlphabet><offsetMeters>1.907245</offsetMeters></mapcode></mapcodes></mapcodes>",
                 response.readEntity(String.class));
     }
+
+    @Test
+    public void checkCodesFieldsJson() {
+        LOG.info("checkCodesFieldsJson");
+        Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "?include=offset&fields=international.mapcode,local")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"local\":{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\",\"offsetMeters\":2.843693},\"international\":{\"mapcode\":\"VHVN4.YZ74\"}}",
+                response.readEntity(String.class));
+
+        // Only the international mapcode.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "?fields=international")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"international\":{\"mapcode\":\"VHVN4.YZ74\"}}",
+                response.readEntity(String.class));
+
+        // Fields of all mapcodes.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "?include=rectangle&fields=mapcodes.territory,mapcodes.mapcode")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcodes\":[{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"},{\"mapcode\":\"CZQ.376\",\"territory\":\"NLD\"},{\"mapcode\":\"N39J.QW0\",\"territory\":\"NLD\"},{\"mapcode\":\"VHVN4.YZ74\"}]}",
+                response.readEntity(String.class));
+
+        // Fields of the mapcode of a type.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/local?include=offset&fields=offsetMeters")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"offsetMeters\":2.843693}",
+                response.readEntity(String.class));
+
+        // Unknown fields, and fields of the other type of response.
+        for (final String fields : new String[]{"x", "local.x", "international,mapcode", "mapcodes.rectangle.center"}) {
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + TEST_LATLON2 + "?fields=" + fields)).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(400, response.getStatus());
+        }
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/local?fields=local")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void checkCodesFieldsXml() {
+        LOG.info("checkCodesFieldsXml");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "?fields=international.mapcode,local")).
+                request().
+                accept(MediaType.APPLICATION_XML_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><mapcodes><local><mapcode>QKM.N4</mapcode><territory>NLD</territory></local><international><mapcode>VHVN4.YZ74</mapcode></international></mapcodes>",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCodesCachedJson() {
+        LOG.info("checkCodesCachedJson");
+        final String expected = "{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}";
+        final String expectedWithOffset = "{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\",\"offsetMeters\":2.843693}";
+        for (int i = 0; i < 3; ++i) {
+            Response response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/local")).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals(expected, response.readEntity(String.class));
+
+            // The include parameter is part of the cache key.
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/local?include=offset")).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals(expectedWithOffset, response.readEntity(String.class));
+        }
+    }
+
+    @Test
+    public void checkCodesCacheGridJson() throws UnknownMapcodeException {
+        LOG.info("checkCodesCacheGridJson");
+
+        // Restart the server with a cache grid of 0.01 degrees.
+        server.stop();
+        server = new LocalTestServer("1.0", 8081, new MapcodeProperties(1000, 0.01, 1000, 4, 100, 4, 3600,
+                1000000, MapcodeProperties.RESPONSE_CACHE_ROUTES));
+        server.start();
+
+        // The requested lat/lon is encoded, not the center of its grid cell.
+        Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + TEST_LATLON2 + "/local")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}", response.readEntity(String.class));
+
+        // Lat/lons in the same grid cell share the cached response.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/" + (TEST_LAT2 + 0.001) + ',' + TEST_LON2 + "/local")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}", response.readEntity(String.class));
+
+        // Offsets are relative to the requested lat/lon, so they are never shared.
+        for (final String latLon : new String[]{TEST_LATLON2, (TEST_LAT2 + 0.001) + "," + TEST_LON2}) {
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + latLon + "/local?include=offset")).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            final MapcodeDTO mapcode = new Gson().fromJson(response.readEntity(String.class), MapcodeDTO.class);
+            final Point center = MapcodeCodec.decode(mapcode.getTerritory() + ' ' + mapcode.getMapcode());
+            Assert.assertEquals(Point.distanceInMeters(center, Point.fromDeg(Double.valueOf(latLon.split(",")[0]),
+                    Double.valueOf(latLon.split(",")[1]))), mapcode.getOffsetMeters(), 0.001);
+        }
+    }
+
+    @Test
+    public void checkCodesBatchJson() {
+        LOG.info("checkCodesBatchJson");
+        final String requests = "[" +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"local\"}," +
+                "{\"latDeg\":91,\"lonDeg\":" + TEST_LON2 + "}," +
+                "{\"latDeg\":" + TEST_LAT_INTL + ",\"lonDeg\":" + TEST_LON_INTL + ",\"type\":\"local\"}," +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"local\"}," +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"international\",\"include\":\"territory\"}]";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                post(Entity.json(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        final String result = response.readEntity(String.class);
+        Assert.assertTrue(result.startsWith("[" +
+                "{\"status\":200,\"result\":{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}}," +
+                "{\"status\":400,\"message\":"));
+        Assert.assertTrue(result.endsWith("" +
+                "{\"status\":404,\"message\":\"No local mapcode for: WHWZG.5Q6Q\"}," +
+                "{\"status\":200,\"result\":{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}}," +
+                "{\"status\":200,\"result\":{\"mapcode\":\"VHVN4.YZ74\",\"territory\":\"AAA\"}}]"));
+    }
+
+    @Test
+    public void checkCodesStream() {
+        LOG.info("checkCodesStream");
+        final String requests = "" +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"local\"}\n" +
+                "{\"latDeg\":91,\"lonDeg\":" + TEST_LON2 + "}\n" +
+                "\n" +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"international\",\"include\":\"territory\"}\n";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                post(Entity.entity(requests, "application/x-ndjson"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("application/x-ndjson", response.getMediaType().toString());
+        final String[] lines = response.readEntity(String.class).split("\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertEquals("{\"status\":200,\"result\":{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}}", lines[0]);
+        Assert.assertTrue(lines[1].startsWith("{\"status\":400,\"message\":"));
+        Assert.assertEquals("{\"status\":200,\"result\":{\"mapcode\":\"VHVN4.YZ74\",\"territory\":\"AAA\"}}", lines[2]);
+    }
+
+    @Test
+    public void checkCodesStreamInvalid() {
+        LOG.info("checkCodesStreamInvalid");
+        final String requests = "" +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"local\"}\n" +
+                "{\"latDeg\":\n" +
+                "{\"latDeg\":" + TEST_LAT2 + ",\"lonDeg\":" + TEST_LON2 + ",\"type\":\"local\"}\n";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                post(Entity.entity(requests, "application/x-ndjson"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        final String[] lines = response.readEntity(String.class).split("\n");
+        Assert.assertEquals(2, lines.length);
+        Assert.assertEquals("{\"status\":200,\"result\":{\"mapcode\":\"QKM.N4\",\"territory\":\"NLD\"}}", lines[0]);
+        Assert.assertTrue(lines[1].startsWith("{\"status\":400,\"message\":\"Invalid request after 1 requests: "));
+    }
+
+    @Test
+    public void checkCodesCsv() {
+        LOG.info("checkCodesCsv");
+        final String requests = "" +
+                "id,lat,lon,type\n" +
+                "1," + TEST_LAT2 + ',' + TEST_LON2 + ",local\n" +
+                "\"2,a\",91," + TEST_LON2 + ",\n" +
+                "3," + TEST_LAT2 + ',' + TEST_LON2 + ",international\r\n";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes?columns=latDeg:lat,lonDeg:lon")).
+                request().
+                post(Entity.entity(requests, "text/csv"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertTrue(response.getMediaType().isCompatible(new MediaType("text", "csv")));
+        final String[] lines = response.readEntity(String.class).split("\r\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertEquals("id,lat,lon,type,status,message,mapcode,territory,mapcodeInAlphabet,territoryInAlphabet,offsetMeters", lines[0]);
+        Assert.assertEquals("1," + TEST_LAT2 + ',' + TEST_LON2 + ",local,200,,QKM.N4,NLD,,,", lines[1]);
+        Assert.assertTrue(lines[2].startsWith("\"2,a\",91," + TEST_LON2 + ",,400,\"[{\"\"errorCode\"\":"));
+        Assert.assertEquals("3," + TEST_LAT2 + ',' + TEST_LON2 + ",international,200,,VHVN4.YZ74,,,,", lines[3]);
+    }
+
+    @Test
+    public void checkCodesCsvMissingColumn() {
+        LOG.info("checkCodesCsvMissingColumn");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                post(Entity.entity("lat,lon\n" + TEST_LAT2 + ',' + TEST_LON2 + '\n', "text/csv"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void checkCodesBatchXml() {
+        LOG.info("checkCodesBatchXml");
+        final String requests = "<requests>" +
+                "<request><latDeg>" + TEST_LAT2 + "</latDeg><lonDeg>" + TEST_LON2 + "</lonDeg><type>local</type></request>" +
+                "<request><latDeg>" + TEST_LAT2 + "</latDeg><lonDeg>" + TEST_LON2 + "</lonDeg><type>mapcodes</type>" +
+                "<territory>NLD</territory></request>" +
+                "</requests>";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/xml/codes")).
+                request().
+                post(Entity.xml(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><responses>" +
+                        "<response><status>200</status><mapcode><mapcode>QKM.N4</mapcode><territory>NLD</territory></mapcode></response>" +
+                        "<response><status>200</status><mapcodeList><mapcode><mapcode>QKM.N4</mapcode><territory>NLD</territory></mapcode>" +
+                        "<mapcode><mapcode>CZQ.376</mapcode><territory>NLD</territory></mapcode>" +
+                        "<mapcode><mapcode>N39J.QW0</mapcode><territory>NLD</territory></mapcode></mapcodeList></response>" +
+                        "</responses>",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCodesBatchTooLarge() {
+        LOG.info("checkCodesBatchTooLarge");
+        final StringBuilder requests = new StringBuilder("[");
+        for (int i = 0; i <= 100; ++i) {
+            requests.append((i == 0) ? "" : ",").append("{\"latDeg\":0,\"lonDeg\":").append(i).append('}');
+        }
+        requests.append(']');
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                post(Entity.json(requests.toString()));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void checkCodesBatchParallel() {
+        LOG.info("checkCodesBatchParallel");
+
+        // The test server uses 4 threads, so this batch is split into 4 chunks.
+        final StringBuilder requests = new StringBuilder("[");
+        final StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 100; ++i) {
+            final double lonDeg = i * 0.01;
+            requests.append((i == 0) ? "" : ",").
+                    append("{\"latDeg\":52,\"lonDeg\":").append(lonDeg).append(",\"type\":\"international\"}");
+            expected.append((i == 0) ? "" : ",").
+                    append("{\"status\":200,\"result\":{\"mapcode\":\"").
+                    append(MapcodeCodec.encodeToInternational(52.0, lonDeg).getCode()).append("\"}}");
+        }
+        requests.append(']');
+        expected.append(']');
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                post(Entity.json(requests.toString()));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(expected.toString(), response.readEntity(String.class));
+    }
 }
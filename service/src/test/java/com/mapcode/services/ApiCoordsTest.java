@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -99,4 +100,182 @@ public class ApiCoordsTest {
         Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><point><latDeg>50.141735</latDeg><lonDeg>6.135845</lonDeg></point>",
                 response.readEntity(String.class));
     }
+
+    @Test
+    public void checkCoordsInternationalRectangleJson() {
+        LOG.info("checkCoordsInternationalRectangleJson");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE1.toLowerCase() + "-k?include=rectangle")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"southWest\":{\"latDeg\":50.141726,\"lonDeg\":6.135881400000001},\"northEast\":{\"latDeg\":50.141733,\"lonDeg\":6.1358936},\"center\":{\"latDeg\":50.1417295,\"lonDeg\":6.135887500000001}}",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCoordsInternationalWithContextJson() {
+        LOG.info("checkCoordsInternationalWithContextJson");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE1 + "?context=" + TEST_CONTEXT2)).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"latDeg\":50.141726,\"lonDeg\":6.1358875}",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCoordsFieldsJson() {
+        LOG.info("checkCoordsFieldsJson");
+        Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE2 + "?context=" + TEST_CONTEXT2 + "&fields=latDeg")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"latDeg\":50.141735}",
+                response.readEntity(String.class));
+
+        // The cached response still has all fields.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE2 + "?context=" + TEST_CONTEXT2)).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"latDeg\":50.141735,\"lonDeg\":6.135845}",
+                response.readEntity(String.class));
+
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE1 + "?include=rectangle&fields=center")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"center\":{\"latDeg\":50.141726000000006,\"lonDeg\":6.1358875}}",
+                response.readEntity(String.class));
+
+        // The fields of a point are not the fields of a rectangle.
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords/" + TEST_CODE1 + "?include=rectangle&fields=latDeg")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void checkCoordsCachedJson() {
+        LOG.info("checkCoordsCachedJson");
+        for (int i = 0; i < 3; ++i) {
+            Response response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/coords/" + TEST_CODE2 + "?context=" + TEST_CONTEXT2)).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals("{\"latDeg\":50.141735,\"lonDeg\":6.135845}",
+                    response.readEntity(String.class));
+
+            // The include parameter is part of the cache key.
+            response = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/coords/" + TEST_CODE2 + "?context=" + TEST_CONTEXT2 + "&include=rectangle")).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertNotNull(response);
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertTrue(response.readEntity(String.class).startsWith("{\"southWest\":"));
+        }
+    }
+
+    @Test
+    public void checkCoordsBatchJson() {
+        LOG.info("checkCoordsBatchJson");
+        final String requests = "[" +
+                "{\"mapcode\":\"" + TEST_CODE2 + "\",\"context\":\"" + TEST_CONTEXT2 + "\"}," +
+                "{\"mapcode\":\"" + TEST_CODE2 + "\"}," +
+                "{\"mapcode\":\"" + TEST_CODE1 + "\",\"include\":\"rectangle\"}," +
+                "{\"mapcode\":\"" + TEST_CODE2 + "\",\"context\":\"" + TEST_CONTEXT2 + "\"}," +
+                "{\"mapcode\":\"XX\"}]";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                post(Entity.json(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        final String result = response.readEntity(String.class);
+        Assert.assertTrue(result.startsWith("[" +
+                "{\"status\":200,\"result\":{\"latDeg\":50.141735,\"lonDeg\":6.135845}}," +
+                "{\"status\":404,\"message\":\"No location found for mapcode='JL0.KP', context=null\"}," +
+                "{\"status\":200,\"result\":{\"southWest\":{\"latDeg\":50.141705,\"lonDeg\":6.135857}," +
+                "\"northEast\":{\"latDeg\":50.141747,\"lonDeg\":6.135918},"));
+        Assert.assertTrue(result.endsWith("" +
+                "{\"status\":200,\"result\":{\"latDeg\":50.141735,\"lonDeg\":6.135845}}," +
+                "{\"status\":400,\"message\":\"[{\\\"errorCode\\\":\\\"INVALID_FORMAT\\\",\\\"parameter\\\":\\\"mapcode\\\"," +
+                "\\\"actual\\\":\\\"XX\\\",\\\"expected\\\":\\\"[XXX] XX.XX[-XX]\\\"}]\"}]"));
+    }
+
+    @Test
+    public void checkCoordsStream() {
+        LOG.info("checkCoordsStream");
+        final String requests = "" +
+                "{\"mapcode\":\"" + TEST_CODE2 + "\",\"context\":\"" + TEST_CONTEXT2 + "\"}\n" +
+                "{\"mapcode\":\"" + TEST_CODE2 + "\"}\n" +
+                "{\"mapcode\":\"" + TEST_CODE1 + "\"}";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords")).
+                request().
+                post(Entity.entity(requests, "application/x-ndjson"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("" +
+                        "{\"status\":200,\"result\":{\"latDeg\":50.141735,\"lonDeg\":6.135845}}\n" +
+                        "{\"status\":404,\"message\":\"No location found for mapcode='JL0.KP', context=null\"}\n" +
+                        "{\"status\":200,\"result\":{\"latDeg\":50.141726,\"lonDeg\":6.1358875}}\n",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCoordsCsv() {
+        LOG.info("checkCoordsCsv");
+        final String requests = "" +
+                "Mapcode,Context,Include\r\n" +
+                TEST_CODE2 + ',' + TEST_CONTEXT2 + ",\r\n" +
+                TEST_CODE2 + ",,\r\n" +
+                TEST_CODE1 + ",,rectangle\r\n";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/coords")).
+                request().
+                post(Entity.entity(requests, "text/csv"));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("" +
+                        "Mapcode,Context,Include,status,message,latDeg,lonDeg,southWestLatDeg,southWestLonDeg,northEastLatDeg,northEastLonDeg\r\n" +
+                        TEST_CODE2 + ',' + TEST_CONTEXT2 + ",,200,,50.141735,6.135845,,,,\r\n" +
+                        TEST_CODE2 + ",,,404,\"No location found for mapcode='JL0.KP', context=null\",,,,,,\r\n" +
+                        TEST_CODE1 + ",,rectangle,200,,50.141726000000006,6.1358875,50.141705,6.135857,50.141747,6.135918\r\n",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkCoordsBatchXml() {
+        LOG.info("checkCoordsBatchXml");
+        final String requests = "<requests>" +
+                "<request><mapcode>" + TEST_CODE2 + "</mapcode><context>" + TEST_CONTEXT2 + "</context></request>" +
+                "</requests>";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/xml/coords")).
+                request().
+                post(Entity.xml(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><responses>" +
+                        "<response><status>200</status><point><latDeg>50.141735</latDeg><lonDeg>6.135845</lonDeg></point></response>" +
+                        "</responses>",
+                response.readEntity(String.class));
+    }
 }
@@ -18,6 +18,7 @@ package com.mapcode.services;
 
 import com.mapcode.Alphabet;
 import com.mapcode.services.dto.*;
+import com.tomtom.speedtools.apivalidation.exceptions.ApiException;
 import com.tomtom.speedtools.objects.Immutables;
 import org.junit.Assert;
 import org.junit.Test;
@@ -141,6 +142,40 @@ public class ApiDTOTest {
         assertEquals("CAN", x.getMapcodes().get(0).getTerritoryInAlphabet());
     }
 
+    @Test
+    public void checkSelectionDTO() {
+        LOG.info("checkSelectionDTO");
+
+        // Required fields are required, unless the DTO is a selection of fields.
+        try {
+            //noinspection ConstantConditions
+            new MapcodeDTO(null, "YY.YY", "NLD", "BEL", 1.0).getMapcodeInAlphabet();
+            Assert.fail();
+        } catch (final ApiException ignored) {
+            // Expected.
+        }
+        final MapcodeDTO mapcode = MapcodeDTO.createSelection(null, "YY.YY", null, null, null, null);
+        assertEquals("YY.YY", mapcode.getMapcodeInAlphabet());
+
+        final MapcodesDTO mapcodes = MapcodesDTO.createSelection(null, null,
+                MapcodeListDTO.createSelection(Immutables.listOf(mapcode)));
+        assertEquals("YY.YY", mapcodes.getMapcodes().get(0).getMapcodeInAlphabet());
+
+        try {
+            //noinspection ConstantConditions
+            new PointDTO(1.0, null).getLatDeg();
+            Assert.fail();
+        } catch (final ApiException ignored) {
+            // Expected.
+        }
+        final PointDTO point = PointDTO.createSelection(1.0, null);
+        assertEquals(1.0, point.getLatDeg(), 0.01);
+
+        final RectangleDTO rectangle = RectangleDTO.createSelection(null, null, point);
+        Assert.assertNotNull(rectangle.getCenter());
+        assertEquals(1.0, rectangle.getCenter().getLatDeg(), 0.01);
+    }
+
     @Test
     public void checkTerritoryDTO() {
         LOG.info("checkTerritoryDTO");
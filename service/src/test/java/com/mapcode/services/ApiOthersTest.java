@@ -16,6 +16,8 @@
 
 package com.mapcode.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.mapcode.services.dto.VersionDTO;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
@@ -26,8 +28,10 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnull;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 
 @SuppressWarnings("JUnitTestMethodWithNoAssertions")
 public class ApiOthersTest {
@@ -153,4 +157,193 @@ public class ApiOthersTest {
         Assert.assertEquals("Duration\":86400000,\"values\":[],\"sum\":0.0,\"count\":0,\"sumSquares\":0.0},{\"totalMetricDuration\":604800000,\"timeSlotDuration\":3600000,\"values\":[],\"sum\":0.0,\"count\":0,\"sumSquares\":0.0},{\"totalMetricDuration\":86400000,\"timeSlotDuration\":1800000,\"values\":[],\"sum\":0.0,\"count\":0,\"sumSquares\":0.0},{\"totalMetricDuration\":3600000,\"timeSlotDuration\":60000,\"values\":[],\"sum\":0.0,\"count\":0,\"sumSquares\":0.0},{\"totalMetricDuration\":60000,\"timeSlotDuration\":2000,\"values\":[],\"sum\":0.0,\"count\":0,\"sumSquares\":0.0}]}}}",
                 s.substring(s.length() - 500, s.length()));
     }
+
+    @Test
+    public void checkConditionalCodesJson() {
+        LOG.info("checkConditionalCodesJson");
+        final Response response1 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5?include=territory&client=web")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response1);
+        Assert.assertEquals(200, response1.getStatus());
+        final String etag = response1.getHeaderString("ETag");
+        Assert.assertNotNull(etag);
+        Assert.assertEquals("public, max-age=3600", response1.getHeaderString("Cache-Control"));
+        Assert.assertEquals("Accept", response1.getHeaderString("Vary"));
+        response1.close();
+
+        // The client parameter does not influence the response.
+        final Response response2 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5?include=territory")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                header("If-None-Match", etag).get();
+        Assert.assertNotNull(response2);
+        Assert.assertEquals(304, response2.getStatus());
+        Assert.assertEquals(etag, response2.getHeaderString("ETag"));
+        Assert.assertEquals("public, max-age=3600", response2.getHeaderString("Cache-Control"));
+        Assert.assertFalse(response2.hasEntity());
+        response2.close();
+
+        // The /json resource produces the same representation.
+        final Response response3 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/json/codes/50.2,4.5?include=territory")).
+                request().
+                header("If-None-Match", "\"other\", W/" + etag).get();
+        Assert.assertNotNull(response3);
+        Assert.assertEquals(304, response3.getStatus());
+        Assert.assertNull(response3.getHeaderString("Vary"));
+        response3.close();
+
+        // Other parameters or media types have other entity tags.
+        final Response response4 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                header("If-None-Match", etag).get();
+        Assert.assertNotNull(response4);
+        Assert.assertEquals(200, response4.getStatus());
+        Assert.assertNotNull(response4.getHeaderString("ETag"));
+        Assert.assertNotEquals(etag, response4.getHeaderString("ETag"));
+        response4.close();
+
+        final Response response5 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5?include=territory")).
+                request().
+                accept(MediaType.APPLICATION_XML_TYPE).
+                header("If-None-Match", etag).get();
+        Assert.assertNotNull(response5);
+        Assert.assertEquals(200, response5.getStatus());
+        Assert.assertNotNull(response5.getHeaderString("ETag"));
+        Assert.assertNotEquals(etag, response5.getHeaderString("ETag"));
+        response5.close();
+    }
+
+    @Test
+    public void checkConditionalCoordsAlphabetsXml() {
+        LOG.info("checkConditionalCoordsAlphabetsXml");
+        for (final String path : new String[]{"/mapcode/xml/coords/NLD%2049.4V", "/mapcode/xml/alphabets/greek"}) {
+            final Response response1 = new ResteasyClientBuilder().build().
+                    target(server.url(path)).
+                    request().
+                    get();
+            Assert.assertNotNull(response1);
+            Assert.assertEquals(200, response1.getStatus());
+            final String etag = response1.getHeaderString("ETag");
+            Assert.assertNotNull(etag);
+            response1.close();
+
+            final Response response2 = new ResteasyClientBuilder().build().
+                    target(server.url(path)).
+                    request().
+                    header("If-None-Match", etag).get();
+            Assert.assertNotNull(response2);
+            Assert.assertEquals(304, response2.getStatus());
+            Assert.assertEquals(etag, response2.getHeaderString("ETag"));
+            response2.close();
+        }
+    }
+
+    @Test
+    public void checkConditionalNotForErrors() {
+        LOG.info("checkConditionalNotForErrors");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/91,0")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+        Assert.assertNull(response.getHeaderString("ETag"));
+        Assert.assertNull(response.getHeaderString("Cache-Control"));
+        response.close();
+
+        // "If-None-Match: *" does not match, so the request is processed.
+        for (final String latLon : new String[]{"91,0", "50.2,4.5"}) {
+            final Response responseAny = new ResteasyClientBuilder().build().
+                    target(server.url("/mapcode/codes/" + latLon)).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).
+                    header("If-None-Match", "*").get();
+            Assert.assertNotNull(responseAny);
+            Assert.assertEquals(latLon.startsWith("91") ? 400 : 200, responseAny.getStatus());
+            responseAny.close();
+        }
+    }
+
+    @Test
+    public void checkConditionalMetrics() throws IOException {
+        LOG.info("checkConditionalMetrics");
+        final Response response1 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertEquals(200, response1.getStatus());
+        final String etag = response1.getHeaderString("ETag");
+        response1.close();
+
+        // Requests answered with 304 Not Modified are counted as requests of their route as well.
+        final Response response2 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/50.2,4.5?client=web")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                header("If-None-Match", etag).get();
+        Assert.assertEquals(304, response2.getStatus());
+        response2.close();
+
+        final JsonNode metrics = new ObjectMapper().readTree(getString("/mapcode/metrics", MediaType.APPLICATION_JSON_TYPE, 200));
+        Assert.assertEquals(1, getCount(metrics, "notModifiedResponses"));
+        Assert.assertEquals(2, getCount(metrics, "allLatLonToMapcodeRequests"));
+        Assert.assertEquals(2, getCount(metrics, "validLatLonToMapcodeRequests"));
+        Assert.assertEquals(1, getCount(metrics, "allClientWebLatLonToMapcodeRequests"));
+    }
+
+    @Test
+    public void checkResponseCache() throws IOException {
+        LOG.info("checkResponseCache");
+        final String json1 = getString("/mapcode/codes/52.376514,4.908542", MediaType.APPLICATION_JSON_TYPE, 200);
+        final String json2 = getString("/mapcode/json/codes/52.376514,4.908542?client=web", MediaType.WILDCARD_TYPE, 200);
+        Assert.assertEquals(json1, json2);
+        final String xml = getString("/mapcode/codes/52.376514,4.908542", MediaType.APPLICATION_XML_TYPE, 200);
+        Assert.assertTrue(xml.startsWith("<?xml"));
+
+        // Cached responses have the same headers.
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/codes/52.376514,4.908542")).
+                request().
+                accept(MediaType.APPLICATION_XML_TYPE).get();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertNotNull(response.getHeaderString("ETag"));
+        Assert.assertEquals("public, max-age=3600", response.getHeaderString("Cache-Control"));
+        Assert.assertTrue(MediaType.APPLICATION_XML_TYPE.isCompatible(response.getMediaType()));
+        Assert.assertEquals(xml, response.readEntity(String.class));
+
+        // Errors are not cached.
+        getString("/mapcode/codes/91,0", MediaType.APPLICATION_JSON_TYPE, 400);
+        getString("/mapcode/codes/91,0", MediaType.APPLICATION_JSON_TYPE, 400);
+
+        final JsonNode metrics = new ObjectMapper().readTree(getString("/mapcode/metrics", MediaType.APPLICATION_JSON_TYPE, 200));
+        Assert.assertEquals(2, getCount(metrics, "responseCacheHits"));
+        Assert.assertEquals(4, getCount(metrics, "responseCacheMisses"));
+
+        // Cache hits are counted as requests of their route as well.
+        Assert.assertEquals(6, getCount(metrics, "allLatLonToMapcodeRequests"));
+        Assert.assertEquals(4, getCount(metrics, "validLatLonToMapcodeRequests"));
+        Assert.assertEquals(1, getCount(metrics, "allClientWebLatLonToMapcodeRequests"));
+    }
+
+    @Nonnull
+    private String getString(@Nonnull final String url, @Nonnull final MediaType mediaType, final int expectedStatus) {
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url(url)).
+                request().
+                accept(mediaType).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(expectedStatus, response.getStatus());
+        return response.readEntity(String.class);
+    }
+
+    private static long getCount(@Nonnull final JsonNode metrics, @Nonnull final String name) {
+        return metrics.get(name).get("calculators").get(0).get("count").asLong();
+    }
 }
@@ -16,6 +16,8 @@
 
 package com.mapcode.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.junit.After;
 import org.junit.Assert;
@@ -24,13 +26,18 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 
 @SuppressWarnings("JUnitTestMethodWithNoAssertions")
 public class ApiTerritoriesTest {
     private static final Logger LOG = LoggerFactory.getLogger(ApiTerritoriesTest.class);
 
+    private static final String TEST_LATLON1 = "50.141706,6.135864";
+    private static final String TEST_LATLON_INTL = "53.80065082633023,4.504394531250001";
+
     private LocalTestServer server;
 
     @Before
@@ -110,6 +117,73 @@ public class ApiTerritoriesTest {
         Assert.assertEquals(expectedJson2, sub2);
     }
 
+    @Test
+    public void checkTerritoriesBinary() throws IOException {
+        LOG.info("checkTerritoriesBinary");
+        for (final String path : new String[]{"/mapcode/territories?offset=3&count=5", "/mapcode/territories/NLD"}) {
+            Response response = new ResteasyClientBuilder().build().
+                    target(server.url(path)).
+                    request().
+                    accept(MediaType.APPLICATION_JSON_TYPE).get();
+            Assert.assertEquals(200, response.getStatus());
+            final JsonNode expected = new ObjectMapper().readTree(response.readEntity(String.class));
+
+            for (final String mediaType : new String[]{
+                    MapcodeResource.APPLICATION_CBOR, MapcodeResource.APPLICATION_SMILE, MapcodeResource.APPLICATION_MSGPACK}) {
+                response = new ResteasyClientBuilder().build().
+                        target(server.url(path)).
+                        request().
+                        accept(mediaType).get();
+                Assert.assertNotNull(response);
+                Assert.assertEquals(200, response.getStatus());
+                Assert.assertEquals(mediaType, response.getMediaType().toString());
+                Assert.assertEquals(path + ", " + mediaType, expected,
+                        ApiCodesTest.createBinaryMapper(mediaType).readTree(response.readEntity(byte[].class)));
+            }
+        }
+    }
+
+    @Test
+    public void checkTerritoriesETagJsonXml() {
+        LOG.info("checkTerritoriesETagJsonXml");
+        final Response responseJson1 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(responseJson1);
+        Assert.assertEquals(200, responseJson1.getStatus());
+        final String etagJson = responseJson1.getHeaderString("ETag");
+        Assert.assertNotNull(etagJson);
+        Assert.assertEquals(responseJson1.getLength(), responseJson1.readEntity(byte[].class).length);
+
+        final Response responseJson2 = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/json/territories")).
+                request().
+                get();
+        Assert.assertNotNull(responseJson2);
+        Assert.assertEquals(200, responseJson2.getStatus());
+        Assert.assertEquals(etagJson, responseJson2.getHeaderString("ETag"));
+
+        final Response responseXml = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories")).
+                request().
+                accept(MediaType.APPLICATION_XML_TYPE).get();
+        Assert.assertNotNull(responseXml);
+        Assert.assertEquals(200, responseXml.getStatus());
+        Assert.assertNotNull(responseXml.getHeaderString("ETag"));
+        Assert.assertNotEquals(etagJson, responseXml.getHeaderString("ETag"));
+        Assert.assertEquals(responseXml.getLength(), responseXml.readEntity(byte[].class).length);
+
+        final Response responsePage = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories?count=1")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(responsePage);
+        Assert.assertEquals(200, responsePage.getStatus());
+        Assert.assertNotNull(responsePage.getHeaderString("ETag"));
+        Assert.assertNotEquals(etagJson, responsePage.getHeaderString("ETag"));
+    }
+
     @Test
     public void checkTerritoriesCountJsonError() {
         LOG.info("checkTerritoriesCountJsonError");
@@ -121,6 +195,19 @@ public class ApiTerritoriesTest {
         Assert.assertEquals(400, response.getStatus());
     }
 
+    @Test
+    public void checkTerritoriesLargeCountJson() {
+        LOG.info("checkTerritoriesLargeCountJson");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories?offset=532&count=" + Integer.MAX_VALUE)).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"total\":533,\"territories\":[{\"fullNameAliases\":[\"Worldwide\",\"Earth\"],\"alphaCode\":\"AAA\",\"alphaCodeMinimalUnambiguous\":\"AAA\",\"alphaCodeMinimal\":\"AAA\",\"fullName\":\"International\",\"alphabets\":[{\"name\":\"ROMAN\"}]}]}",
+                response.readEntity(String.class));
+    }
+
     @Test
     public void checkTerritories2Json() {
         LOG.info("checkTerritories2Json");
@@ -333,4 +420,96 @@ public class ApiTerritoriesTest {
         Assert.assertEquals("{\"alphaCode\":\"RU-IN\",\"alphaCodeMinimalUnambiguous\":\"RU-IN\",\"alphaCodeMinimal\":\"IN\",\"fullName\":\"Ingushetia Republic\",\"parentTerritory\":\"RUS\",\"alphabets\":[{\"name\":\"CYRILLIC\"},{\"name\":\"ROMAN\"}]}",
                 response.readEntity(String.class));
     }
+
+    @Test
+    public void checkTerritoriesAtJson() {
+        LOG.info("checkTerritoriesAtJson");
+        Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories/at/" + TEST_LATLON1)).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"total\":4,\"territories\":[" +
+                        "{\"alphaCode\":\"LUX\",\"alphaCodeMinimalUnambiguous\":\"LUX\",\"alphaCodeMinimal\":\"LUX\",\"fullName\":\"Luxembourg\",\"alphabets\":[{\"name\":\"ROMAN\"}]}," +
+                        "{\"alphaCode\":\"BEL\",\"alphaCodeMinimalUnambiguous\":\"BEL\",\"alphaCodeMinimal\":\"BEL\",\"fullName\":\"Belgium\",\"alphabets\":[{\"name\":\"ROMAN\"}]}," +
+                        "{\"alphaCode\":\"DEU\",\"alphaCodeMinimalUnambiguous\":\"DEU\",\"alphaCodeMinimal\":\"DEU\",\"fullName\":\"Germany\",\"alphabets\":[{\"name\":\"ROMAN\"}]}," +
+                        "{\"alphaCode\":\"FRA\",\"alphaCodeMinimalUnambiguous\":\"FRA\",\"alphaCodeMinimal\":\"FRA\",\"fullName\":\"France\",\"alphabets\":[{\"name\":\"ROMAN\"}]}]}",
+                response.readEntity(String.class));
+
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/json/territories/at/" + TEST_LATLON_INTL)).
+                request().
+                get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("{\"total\":0}", response.readEntity(String.class));
+
+        response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories/at/91,0")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void checkTerritoriesAtXml() {
+        LOG.info("checkTerritoriesAtXml");
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/xml/territories/at/" + TEST_LATLON1)).
+                request().
+                get();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><territories><total>4</total>" +
+                        "<territory><alphaCode>LUX</alphaCode><alphaCodeMinimalUnambiguous>LUX</alphaCodeMinimalUnambiguous><alphaCodeMinimal>LUX</alphaCodeMinimal><fullName>Luxembourg</fullName><aliases/><fullNameAliases/><alphabets><alphabet><name>ROMAN</name></alphabet></alphabets></territory>" +
+                        "<territory><alphaCode>BEL</alphaCode><alphaCodeMinimalUnambiguous>BEL</alphaCodeMinimalUnambiguous><alphaCodeMinimal>BEL</alphaCodeMinimal><fullName>Belgium</fullName><aliases/><fullNameAliases/><alphabets><alphabet><name>ROMAN</name></alphabet></alphabets></territory>" +
+                        "<territory><alphaCode>DEU</alphaCode><alphaCodeMinimalUnambiguous>DEU</alphaCodeMinimalUnambiguous><alphaCodeMinimal>DEU</alphaCodeMinimal><fullName>Germany</fullName><aliases/><fullNameAliases/><alphabets><alphabet><name>ROMAN</name></alphabet></alphabets></territory>" +
+                        "<territory><alphaCode>FRA</alphaCode><alphaCodeMinimalUnambiguous>FRA</alphaCodeMinimalUnambiguous><alphaCodeMinimal>FRA</alphaCodeMinimal><fullName>France</fullName><aliases/><fullNameAliases/><alphabets><alphabet><name>ROMAN</name></alphabet></alphabets></territory>" +
+                        "</territories>",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkTerritoriesAtBatchJson() {
+        LOG.info("checkTerritoriesAtBatchJson");
+        final String requests = "[" +
+                "{\"latDeg\":52.159853,\"lonDeg\":4.49979}," +
+                "{\"latDeg\":91,\"lonDeg\":4.49979}," +
+                "{\"lonDeg\":4.49979}," +
+                "{\"latDeg\":53.80065082633023,\"lonDeg\":4.504394531250001}]";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/territories/at")).
+                request().
+                accept(MediaType.APPLICATION_JSON_TYPE).
+                post(Entity.json(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("[{\"status\":200,\"result\":{\"total\":1,\"territories\":[{\"alphaCode\":\"NLD\",\"alphaCodeMinimalUnambiguous\":\"NLD\",\"alphaCodeMinimal\":\"NLD\",\"fullName\":\"Netherlands\",\"alphabets\":[{\"name\":\"ROMAN\"}]}]}}," +
+                        "{\"status\":400,\"message\":\"[{\\\"errorCode\\\":\\\"INVALID_FORMAT\\\",\\\"parameter\\\":\\\"latDeg\\\",\\\"actual\\\":\\\"91.0\\\",\\\"expected\\\":\\\"[-90.0, 90.0]\\\"}]\"}," +
+                        "{\"status\":400,\"message\":\"[{\\\"errorCode\\\":\\\"INVALID_FORMAT\\\",\\\"parameter\\\":\\\"latDeg\\\",\\\"expected\\\":\\\"[-90.0, 90.0]\\\"}]\"}," +
+                        "{\"status\":200,\"result\":{\"total\":0}}]",
+                response.readEntity(String.class));
+    }
+
+    @Test
+    public void checkTerritoriesAtBatchXml() {
+        LOG.info("checkTerritoriesAtBatchXml");
+        final String requests = "<requests>" +
+                "<request><latDeg>52.159853</latDeg><lonDeg>4.49979</lonDeg></request>" +
+                "<request><latDeg>53.80065082633023</latDeg><lonDeg>4.504394531250001</lonDeg></request>" +
+                "</requests>";
+        final Response response = new ResteasyClientBuilder().build().
+                target(server.url("/mapcode/xml/territories/at")).
+                request().
+                post(Entity.xml(requests));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><responses>" +
+                        "<response><status>200</status><result><total>1</total><territory><alphaCode>NLD</alphaCode><alphaCodeMinimalUnambiguous>NLD</alphaCodeMinimalUnambiguous><alphaCodeMinimal>NLD</alphaCodeMinimal><fullName>Netherlands</fullName><aliases/><fullNameAliases/><alphabets><alphabet><name>ROMAN</name></alphabet></alphabets></territory></result></response>" +
+                        "<response><status>200</status><result><total>0</total></result></response>" +
+                        "</responses>",
+                response.readEntity(String.class));
+    }
 }
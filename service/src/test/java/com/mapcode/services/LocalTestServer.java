@@ -40,12 +40,22 @@ public class LocalTestServer {
     private final TJWSEmbeddedJaxrsServer server;
     private final String version;
     private final int port;
+    private final MapcodeProperties mapcodeProperties;
 
     public LocalTestServer(
             @Nonnull final String version,
             final int port) {
+        this(version, port, new MapcodeProperties(1000, 0.0, 1000, 4, 100, 4, 3600,
+                1000000, MapcodeProperties.RESPONSE_CACHE_ROUTES));
+    }
+
+    public LocalTestServer(
+            @Nonnull final String version,
+            final int port,
+            @Nonnull final MapcodeProperties mapcodeProperties) {
         this.version = version;
         this.port = port;
+        this.mapcodeProperties = mapcodeProperties;
         server = new TJWSEmbeddedJaxrsServer();
         server.setPort(port);
     }
@@ -75,7 +85,8 @@ public class LocalTestServer {
         // Add mapcode resource.
         final MapcodeResourceImpl mapcodeResource = new MapcodeResourceImpl(
                 resourceProcessor,
-                metrics
+                metrics,
+                mapcodeProperties
         );
         server.getDeployment().getResources().add(mapcodeResource);
 
@@ -90,6 +101,13 @@ public class LocalTestServer {
         // Add JSON and XML mapcode resource.
         server.getDeployment().getResources().add(new OnlyJsonResourceImpl(rootResource, mapcodeResource));
         server.getDeployment().getResources().add(new OnlyXmlResourceImpl(rootResource, mapcodeResource));
+
+        // Add providers.
+        server.getDeployment().getProviders().add(new SerializedResponseWriter());
+        server.getDeployment().getProviders().add(new XmlResponseWriter());
+        server.getDeployment().getProviders().add(new BinaryResponseWriter());
+        server.getDeployment().getProviders().add(new ConditionalRequestFilter(mavenProperties, mapcodeProperties, metrics));
+        server.getDeployment().getProviders().add(new ResponseCacheFilter(mapcodeProperties, metrics));
         server.start();
         LOG.debug("start: Start local server, baseUrl={}", getBaseUrl());
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Benchmark of DoubleFormatter. Not a unit test: run it with "mvn test -Dbenchmark".
+ */
+public class DoubleFormatterBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(DoubleFormatterBenchmark.class);
+
+    /**
+     * Compare the time to format coordinates with Double.toString and with DoubleFormatter. This is a rough
+     * benchmark: it only logs the results.
+     */
+    @Test
+    public void checkPerformance() {
+        final int count = 100000;
+        final double[] values = new double[count];
+        final Random random = new Random(23);
+        for (int i = 0; i < count; ++i) {
+            values[i] = ((i % 2) == 0) ? ((random.nextDouble() * 180.0) - 90.0) : ((random.nextDouble() * 360.0) - 180.0);
+        }
+        final char[] buffer = new char[DoubleFormatter.MAX_LENGTH];
+        long size = 0;
+        for (int round = 0; round < 10; ++round) {
+            long start = System.nanoTime();
+            for (final double value : values) {
+                size = size + Double.toString(value).length();
+            }
+            final long toString = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (final double value : values) {
+                size = size + DoubleFormatter.format(value, buffer, 0);
+            }
+            final long formatter = System.nanoTime() - start;
+            LOG.info("checkPerformance: format coordinates, Double.toString: {} ns, DoubleFormatter: {} ns",
+                    toString / count, formatter / count);
+        }
+        Assert.assertTrue(size > 0);
+    }
+}
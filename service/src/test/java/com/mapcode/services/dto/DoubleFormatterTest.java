@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class DoubleFormatterTest {
+    @Test
+    public void checkSameAsToString() {
+        final double[] values = {
+                0.0, -0.0, 1.0, -1.0, 0.5, 0.001, 0.002, 0.0009999999999999998, 9999999.999999998, 1.0e7, 1.0e-7,
+                52.0, -4.5E-7, 50.141726, 6.135881400000001, -179.99999999999997, 90.0, 123456789.0, 1.0e22,
+                Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE, Math.ulp(1.0), Math.PI, Math.E,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (final double value : values) {
+            Assert.assertEquals(Double.toString(value), format(value));
+        }
+    }
+
+    @Test
+    public void checkShortest() {
+        checkShortest(2.0 * Double.MIN_VALUE);
+        checkShortest(3.0 * Double.MIN_VALUE);
+        checkShortest(1.0e23);
+        final Random random = new Random(19);
+        for (int i = 0; i < 200000; ++i) {
+            final double value;
+            switch (i % 4) {
+                case 0:
+                    value = (random.nextDouble() * 180.0) - 90.0;
+                    break;
+
+                case 1:
+                    value = Math.round(((random.nextDouble() * 360.0) - 180.0) * 1.0e6) / 1.0e6;
+                    break;
+
+                case 2:
+                    value = random.nextDouble() * Math.pow(10.0, random.nextInt(20) - 10);
+                    break;
+
+                default:
+                    value = Double.longBitsToDouble(random.nextLong());
+            }
+            if (!Double.isNaN(value)) {
+                checkShortest(value);
+            }
+        }
+    }
+
+    private static void checkShortest(final double value) {
+        final String formatted = format(value);
+        final String toString = Double.toString(value);
+        Assert.assertEquals(toString, value, Double.parseDouble(formatted), 0.0);
+
+        // Older JDKs do not always produce the shortest decimal. If they do, the strings must be equal.
+        final BigDecimal shortest = shortest(value);
+        Assert.assertEquals(toString, 0, shortest.compareTo(new BigDecimal(formatted)));
+        if (shortest.compareTo(new BigDecimal(toString)) == 0) {
+            Assert.assertEquals(toString, formatted);
+        }
+    }
+
+    private static String format(final double value) {
+        final char[] buffer = new char[DoubleFormatter.MAX_LENGTH + 2];
+        final int end = DoubleFormatter.format(value, buffer, 2);
+        return new String(buffer, 2, end - 2);
+    }
+
+    // The closest decimal with the fewest digits that converts back to the value (at least 2 digits, if closer).
+    private static BigDecimal shortest(final double value) {
+        final BigDecimal exact = new BigDecimal(value);
+        for (int digits = 1; digits <= 17; ++digits) {
+            final BigDecimal rounded = exact.round(new MathContext(digits, RoundingMode.HALF_EVEN));
+            if (rounded.doubleValue() == value) {
+                if (digits == 1) {
+                    final BigDecimal twoDigits = exact.round(new MathContext(2, RoundingMode.HALF_EVEN));
+                    if (twoDigits.subtract(exact).abs().compareTo(rounded.subtract(exact).abs()) < 0) {
+                        return twoDigits;
+                    }
+                }
+                return rounded;
+            }
+        }
+        throw new IllegalStateException("No decimal found for " + value);
+    }
+}
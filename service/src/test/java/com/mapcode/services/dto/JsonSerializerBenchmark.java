@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.dto;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.mapcode.services.dto.JsonSerializerTest.BEAN_MAPPER;
+import static com.mapcode.services.dto.JsonSerializerTest.MAPPER;
+import static com.mapcode.services.dto.JsonSerializerTest.createMapcodes;
+
+/**
+ * Benchmark of the hand-written JSON serializers of the DTOs. Not a unit test: run it with "mvn test -Dbenchmark".
+ */
+public class JsonSerializerBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(JsonSerializerBenchmark.class);
+
+    /**
+     * Compare the time to serialize mapcodes to JSON with the bean serializers of Jackson and with the
+     * hand-written serializers. This is a rough benchmark: it only logs the results.
+     */
+    @Test
+    public void checkPerformance() throws Exception {
+        checkPerformance("mapcodes", createMapcodes(10000, false));
+        checkPerformance("mapcodes with offsets and rectangles", createMapcodes(10000, true));
+    }
+
+    private static void checkPerformance(final String name, final List<MapcodesDTO> values) throws Exception {
+        final int count = values.size();
+        final OutputStream nullStream = new OutputStream() {
+            @Override
+            public void write(final int b) {
+                // Discard.
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                // Discard.
+            }
+        };
+        double speedup = 0.0;
+        for (int round = 0; round < 10; ++round) {
+            long start = System.nanoTime();
+            for (final MapcodesDTO value : values) {
+                BEAN_MAPPER.writeValue(nullStream, value);
+            }
+            final long bean = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (final MapcodesDTO value : values) {
+                MAPPER.writeValue(nullStream, value);
+            }
+            final long serializer = System.nanoTime() - start;
+            speedup = (double) bean / serializer;
+            LOG.info("checkPerformance: serialize {} to JSON, bean serializers: {} ns, hand-written serializers: {} ns, " +
+                    "speedup: {}", name, bean / count, serializer / count, speedup);
+        }
+        Assert.assertTrue(speedup > 0.0);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.dto;
+
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.UnknownMapcodeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class JsonSerializerTest {
+    // Same as the default object mapper of the JSON provider of RESTEasy.
+    static final ObjectMapper MAPPER = new ObjectMapper().
+            setAnnotationIntrospector(AnnotationIntrospector.pair(
+                    new JacksonAnnotationIntrospector(),
+                    new JaxbAnnotationIntrospector()));
+
+    // Same, but ignores @JsonSerialize(using = ...), so the DTOs are written by the bean serializers of Jackson.
+    static final ObjectMapper BEAN_MAPPER = new ObjectMapper().
+            setAnnotationIntrospector(AnnotationIntrospector.pair(
+                    new JacksonAnnotationIntrospector() {
+                        @Override
+                        public Object findSerializer(final Annotated a) {
+                            return null;
+                        }
+                    },
+                    new JaxbAnnotationIntrospector()));
+
+    @Test
+    public void checkSameAsBeanSerializer() throws Exception {
+        final PointDTO point = new PointDTO(52.0, -4.5E-7);
+        final RectangleDTO rectangle = new RectangleDTO(new PointDTO(50.141726, 6.135881400000001), new PointDTO(50.1417, 6.1359));
+        final RectangleDTO rectangleWithoutCenter = new RectangleDTO(point, point, null);
+        final MapcodeDTO mapcode = new MapcodeDTO("JL0.KP", "ЛЛ0.КП", "LUX", "ЛУХ", 0.0, rectangle);
+        final MapcodeDTO mapcodeEmpty = new MapcodeDTO("VJ0L6.9PNQ", null, null, null, null, rectangleWithoutCenter);
+        final MapcodeDTO mapcodeEscaped = new MapcodeDTO("\"\\\n\u0001");
+        final List<MapcodeDTO> mapcodes = new ArrayList<>();
+        mapcodes.add(mapcode);
+        mapcodes.add(mapcodeEmpty);
+        mapcodes.add(mapcodeEscaped);
+        checkSame(point);
+        checkSame(rectangle);
+        checkSame(rectangleWithoutCenter);
+        checkSame(mapcode);
+        checkSame(mapcodeEmpty);
+        checkSame(mapcodeEscaped);
+        checkSame(new MapcodeListDTO(mapcodes));
+        checkSame(new MapcodeListDTO(Collections.emptyList()));
+        checkSame(new MapcodesDTO(mapcode, mapcodeEmpty, mapcodes));
+        checkSame(new MapcodesDTO(null, mapcodeEmpty, Collections.emptyList()));
+        for (final MapcodesDTO value : createMapcodes(1000, false)) {
+            checkSame(value);
+        }
+        for (final MapcodesDTO value : createMapcodes(1000, true)) {
+            checkSame(value);
+        }
+    }
+
+    private static void checkSame(final Object value) throws Exception {
+        Assert.assertEquals(BEAN_MAPPER.writeValueAsString(value), MAPPER.writeValueAsString(value));
+    }
+
+    // Create responses like GET /mapcode/codes/{lat,lon}?alphabet=greek, optionally with include=offset,rectangle.
+    static List<MapcodesDTO> createMapcodes(final int count, final boolean includeAll) throws UnknownMapcodeException {
+        final Random random = new Random(17);
+        final List<MapcodesDTO> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final double latDeg = 35.0 + (random.nextDouble() * 25.0);
+            final double lonDeg = -10.0 + (random.nextDouble() * 40.0);
+            final List<MapcodeDTO> mapcodes = new ArrayList<>();
+            for (final Mapcode mapcode : MapcodeCodec.encode(latDeg, lonDeg)) {
+                mapcodes.add(createMapcode(mapcode, includeAll, random));
+            }
+            final MapcodeDTO international = createMapcode(MapcodeCodec.encodeToInternational(latDeg, lonDeg), includeAll, random);
+            values.add(new MapcodesDTO(mapcodes.isEmpty() ? null : mapcodes.get(0), international, mapcodes));
+        }
+        return values;
+    }
+
+    private static MapcodeDTO createMapcode(
+            final Mapcode mapcode,
+            final boolean includeAll,
+            final Random random) throws UnknownMapcodeException {
+        return new MapcodeDTO(
+                mapcode.getCode(),
+                mapcode.getCode(Alphabet.GREEK),
+                mapcode.getTerritory().toString(),
+                null,
+                includeAll ? (random.nextDouble() * 10.0) : null,
+                includeAll ? new RectangleDTO(MapcodeCodec.decodeToRectangle(mapcode.getCodeWithTerritory())) : null);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapcode.services.dto.MapcodesDTO;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mapcode.services.implementation.BinaryResponseWriterTest.BINARY_MEDIA_TYPES;
+import static com.mapcode.services.implementation.BinaryResponseWriterTest.createMapcodes;
+
+/**
+ * Benchmark of the binary response formats (CBOR, Smile and MessagePack), compared to JSON and XML. Not a unit
+ * test: run it with "mvn test -Dbenchmark".
+ */
+public class BinaryResponseWriterBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryResponseWriterBenchmark.class);
+
+    /**
+     * Compare the size of the responses and the time to write and read them, per media type. This is a rough
+     * benchmark: it only logs the results.
+     */
+    @Test
+    public void checkPerformance() throws Exception {
+        final int count = 5000;
+        final List<MapcodesDTO> values = createMapcodes(count);
+        final List<MediaType> mediaTypes = new ArrayList<>();
+        mediaTypes.add(MediaType.APPLICATION_JSON_TYPE);
+        mediaTypes.add(MediaType.APPLICATION_XML_TYPE);
+        mediaTypes.addAll(BINARY_MEDIA_TYPES);
+        for (int round = 0; round < 20; ++round) {
+            for (final MediaType mediaType : mediaTypes) {
+                final List<byte[]> serialized = new ArrayList<>(count);
+                long size = 0;
+                long start = System.nanoTime();
+                for (final MapcodesDTO value : values) {
+                    final byte[] bytes = write(value, mediaType);
+                    size = size + bytes.length;
+                    serialized.add(bytes);
+                }
+                final long writeTime = System.nanoTime() - start;
+
+                // XML responses are not parsed: the clients of the binary formats use Jackson.
+                long readTime = 0;
+                final ObjectMapper mapper = MediaType.APPLICATION_JSON_TYPE.equals(mediaType) ?
+                        Serializers.JSON_MAPPER : Serializers.getBinaryMapper(mediaType);
+                if (mapper != null) {
+                    start = System.nanoTime();
+                    for (final byte[] bytes : serialized) {
+                        Assert.assertNotNull(mapper.readTree(bytes));
+                    }
+                    readTime = System.nanoTime() - start;
+                }
+                LOG.info("checkPerformance: mapcodes with rectangles as {}: {} bytes, write: {} ns, read: {} ns",
+                        mediaType, size / count, writeTime / count, readTime / count);
+            }
+        }
+    }
+
+    private static byte[] write(final MapcodesDTO value, final MediaType mediaType) throws IOException {
+        if (MediaType.APPLICATION_JSON_TYPE.equals(mediaType)) {
+            return Serializers.toJson(value);
+        }
+        if (MediaType.APPLICATION_XML_TYPE.equals(mediaType)) {
+            return XmlResponseWriterTest.write(value);
+        }
+        return BinaryResponseWriterTest.write(value, mediaType);
+    }
+}
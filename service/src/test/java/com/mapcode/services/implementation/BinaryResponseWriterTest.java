@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Territory;
+import com.mapcode.UnknownMapcodeException;
+import com.mapcode.services.dto.*;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class BinaryResponseWriterTest {
+    private static final BinaryResponseWriter WRITER = new BinaryResponseWriter();
+    static final List<MediaType> BINARY_MEDIA_TYPES = Arrays.asList(
+            Serializers.APPLICATION_CBOR_TYPE, Serializers.APPLICATION_SMILE_TYPE, Serializers.APPLICATION_MSGPACK_TYPE);
+
+    @Test
+    public void checkWriteable() {
+        for (final MediaType mediaType : BINARY_MEDIA_TYPES) {
+            Assert.assertTrue(WRITER.isWriteable(MapcodesDTO.class, null, null, mediaType));
+            Assert.assertTrue(WRITER.isWriteable(TerritoryListDTO.class, null, null, mediaType));
+            Assert.assertFalse(WRITER.isWriteable(SerializedResponse.class, null, null, mediaType));
+        }
+        Assert.assertFalse(WRITER.isWriteable(MapcodesDTO.class, null, null, MediaType.APPLICATION_JSON_TYPE));
+        Assert.assertFalse(WRITER.isWriteable(MapcodesDTO.class, null, null, MediaType.WILDCARD_TYPE));
+    }
+
+    @Test
+    public void checkSameStructureAsJson() throws Exception {
+        final MapcodeDTO mapcode = new MapcodeDTO("JL0.KP", "ЛЛ0.КП", "LUX", "ЛУХ", 0.0,
+                new RectangleDTO(new PointDTO(50.141726, 6.135881400000001), new PointDTO(50.1417, 6.1359)));
+        checkSame(mapcode);
+        checkSame(new MapcodeDTO("VJ0L6.9PNQ"));
+        checkSame(new PointDTO(-90.0, -4.5E-7));
+        checkSame(new TerritoryListDTO(Territory.values()));
+        checkSame(new AlphabetListDTO(Alphabet.values()));
+        for (final MapcodesDTO value : createMapcodes(100)) {
+            checkSame(value);
+        }
+    }
+
+    @Test
+    public void checkSerializedResponse() {
+        final AlphabetListDTO alphabets = new AlphabetListDTO(Alphabet.values());
+        final SerializedResponse response = SerializedResponse.of(alphabets);
+        for (final MediaType mediaType : BINARY_MEDIA_TYPES) {
+            Assert.assertArrayEquals(Serializers.toBinary(alphabets, mediaType), response.getBytes(mediaType));
+            Assert.assertNotEquals(response.getETag(MediaType.APPLICATION_JSON_TYPE), response.getETag(mediaType));
+        }
+    }
+
+    @Test
+    public void checkDoesNotCloseStream() throws Exception {
+        for (final MediaType mediaType : BINARY_MEDIA_TYPES) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    Assert.fail("Stream closed: " + mediaType);
+                }
+            };
+            WRITER.writeTo(new PointDTO(52.0, 4.0), PointDTO.class, null, null, mediaType, null, outputStream);
+            Assert.assertTrue(outputStream.size() > 0);
+        }
+    }
+
+    private static void checkSame(final ApiDTO value) throws IOException {
+        final JsonNode expected = Serializers.JSON_MAPPER.readTree(Serializers.toJson(value));
+        for (final MediaType mediaType : BINARY_MEDIA_TYPES) {
+            final ObjectMapper mapper = Serializers.getBinaryMapper(mediaType);
+            Assert.assertNotNull(mapper);
+            Assert.assertEquals(mediaType.toString(), expected, mapper.readTree(write(value, mediaType)));
+            Assert.assertArrayEquals(mediaType.toString(), write(value, mediaType), Serializers.toBinary(value, mediaType));
+        }
+    }
+
+    static byte[] write(final ApiDTO value, final MediaType mediaType) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        WRITER.writeTo(value, value.getClass(), null, null, mediaType, null, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    // Create responses like GET /mapcode/codes/{lat,lon}?include=offset,rectangle.
+    static List<MapcodesDTO> createMapcodes(final int count) throws UnknownMapcodeException {
+        final Random random = new Random(31);
+        final List<MapcodesDTO> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final double latDeg = 35.0 + (random.nextDouble() * 25.0);
+            final double lonDeg = -10.0 + (random.nextDouble() * 40.0);
+            final List<MapcodeDTO> mapcodes = new ArrayList<>();
+            for (final Mapcode mapcode : MapcodeCodec.encode(latDeg, lonDeg)) {
+                mapcodes.add(createMapcode(mapcode, random));
+            }
+            final MapcodeDTO international = createMapcode(MapcodeCodec.encodeToInternational(latDeg, lonDeg), random);
+            values.add(new MapcodesDTO(mapcodes.isEmpty() ? null : mapcodes.get(0), international, mapcodes));
+        }
+        return values;
+    }
+
+    private static MapcodeDTO createMapcode(final Mapcode mapcode, final Random random) throws UnknownMapcodeException {
+        return new MapcodeDTO(
+                mapcode.getCode(),
+                null,
+                mapcode.getTerritory().toString(),
+                null,
+                random.nextDouble() * 10.0,
+                new RectangleDTO(MapcodeCodec.decodeToRectangle(mapcode.getCodeWithTerritory())));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+import com.mapcode.Territory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of EncodeResult. Not a unit test: run it with "mvn test -Dbenchmark".
+ */
+public class EncodeResultBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(EncodeResultBenchmark.class);
+
+    // Bounding box around the Netherlands, so most points have local mapcodes.
+    private static final double LAT_MIN = 50.7;
+    private static final double LAT_MAX = 53.6;
+    private static final double LON_MIN = 3.3;
+    private static final double LON_MAX = 7.2;
+
+    /**
+     * Compare the latency of getting the local mapcode of a territory from a full encoding and with
+     * encodeToShortest. This is a rough benchmark: it only logs the results.
+     */
+    @Test
+    public void checkEncodeToShortestPerformance() {
+        final int count = 20000;
+        final long[] full = new long[count];
+        final long[] shortest = new long[count];
+        int length = 0;
+        for (int round = 0; round < 3; ++round) {
+            final Random random = new Random(round);
+            for (int i = 0; i < count; ++i) {
+                final double latDeg = LAT_MIN + (random.nextDouble() * (LAT_MAX - LAT_MIN));
+                final double lonDeg = LON_MIN + (random.nextDouble() * (LON_MAX - LON_MIN));
+                long start = System.nanoTime();
+                final MapcodeResult local = EncodeResult.encode(latDeg, lonDeg, Territory.NLD, null).getLocal();
+                full[i] = System.nanoTime() - start;
+                start = System.nanoTime();
+                final MapcodeResult localShortest = EncodeResult.encodeToShortest(latDeg, lonDeg, Territory.NLD);
+                shortest[i] = System.nanoTime() - start;
+                length = length + ((local == null) ? 0 : local.getMapcode().getCode().length()) +
+                        ((localShortest == null) ? 0 : localShortest.getMapcode().getCode().length());
+            }
+            LOG.info("checkEncodeToShortestPerformance: local mapcode for NLD, full encoding: mean {} ns, p99 {} ns, " +
+                            "encodeToShortest: mean {} ns, p99 {} ns",
+                    getMean(full), getPercentile(full, 99), getMean(shortest), getPercentile(shortest, 99));
+        }
+        Assert.assertTrue(length > 0);
+    }
+
+    private static long getMean(final long[] values) {
+        long sum = 0;
+        for (final long value : values) {
+            sum = sum + value;
+        }
+        return sum / values.length;
+    }
+
+    private static long getPercentile(final long[] values, final int percentile) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[((sorted.length * percentile) / 100) - 1];
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Territory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class EncodeResultTest {
+    // Bounding box around the Netherlands, so most points have local mapcodes.
+    private static final double LAT_MIN = 50.7;
+    private static final double LAT_MAX = 53.6;
+    private static final double LON_MIN = 3.3;
+    private static final double LON_MAX = 7.2;
+
+    @Test
+    public void checkEncodeToShortestSameAsLocal() {
+        final Random random = new Random(7);
+        for (int i = 0; i < 10000; ++i) {
+            final double latDeg = LAT_MIN + (random.nextDouble() * (LAT_MAX - LAT_MIN));
+            final double lonDeg = LON_MIN + (random.nextDouble() * (LON_MAX - LON_MIN));
+            checkSameAsLocal(latDeg, lonDeg, EncodeResult.encode(latDeg, lonDeg, Territory.NLD, null), Territory.NLD);
+            checkSameAsLocal(latDeg, lonDeg, EncodeResult.encode(latDeg, lonDeg, Territory.BEL, null), Territory.BEL);
+            checkSameAsLocal(latDeg, lonDeg, EncodeResult.encode(latDeg, lonDeg, null, "DE"), Territory.DEU);
+            checkSameAsLocal(latDeg, lonDeg, EncodeResult.encode(latDeg, lonDeg, Territory.AAA, null), Territory.AAA);
+        }
+    }
+
+    @Test
+    public void checkEncodeToInternationalSameAsInternational() {
+        final Random random = new Random(8);
+        for (int i = 0; i < 10000; ++i) {
+            final double latDeg = (random.nextDouble() * 180.0) - 90.0;
+            final double lonDeg = (random.nextDouble() * 360.0) - 180.0;
+            Assert.assertEquals(EncodeResult.encode(latDeg, lonDeg, null, null).getInternational().getMapcode(),
+                    EncodeResult.encodeToInternational(latDeg, lonDeg).getMapcode());
+        }
+    }
+
+    private static void checkSameAsLocal(
+            final double latDeg,
+            final double lonDeg,
+            final EncodeResult encodeResult,
+            final Territory territory) {
+        final MapcodeResult expected = encodeResult.getLocal();
+        final MapcodeResult actual = EncodeResult.encodeToShortest(latDeg, lonDeg, territory);
+        if (expected == null) {
+            Assert.assertNull(actual);
+        } else {
+            Assert.assertNotNull(actual);
+            Assert.assertEquals(expected.getMapcode(), actual.getMapcode());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.tomtom.speedtools.apivalidation.exceptions.ApiInvalidFormatException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark of ParamParser. Not a unit test: run it with "mvn test -Dbenchmark".
+ */
+public class ParamParserBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(ParamParserBenchmark.class);
+
+    /**
+     * Compare the cost of rejecting invalid input with the JDK parse methods (which throw an exception,
+     * which is then translated into an API exception) and with ParamParser (which only throws the API
+     * exception). This is a rough benchmark: it only logs the results.
+     */
+    @Test
+    public void checkInvalidInputPerformance() {
+        final String[] values = {"abc", "52,1", "1e", "", "91"};
+        final int count = 200000;
+        int errors = 0;
+        for (int round = 0; round < 2; ++round) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; ++i) {
+                final String value = values[i % values.length];
+                try {
+                    final double latDeg = Double.valueOf(value);
+                    if ((latDeg < -90.0) || (latDeg > 90.0)) {
+                        throw new NumberFormatException(value);
+                    }
+                } catch (final NumberFormatException ignored) {
+                    errors = errors + new ApiInvalidFormatException("latDeg", value, "[-90.0, 90.0]").getMessage().length();
+                }
+            }
+            final long exceptions = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; ++i) {
+                try {
+                    ParamParser.parseLatDeg(values[i % values.length]);
+                } catch (final ApiInvalidFormatException e) {
+                    errors = errors + e.getMessage().length();
+                }
+            }
+            final long checks = System.nanoTime() - start;
+            LOG.info("checkInvalidInputPerformance: invalid latitude, with parse exceptions: {} ns, with syntax checks: {} ns",
+                    exceptions / count, checks / count);
+        }
+        Assert.assertTrue(errors > 0);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Territory;
+import com.mapcode.services.MapcodeResource.ParamInclude;
+import com.mapcode.services.MapcodeResource.ParamType;
+import com.tomtom.speedtools.apivalidation.exceptions.ApiInvalidFormatException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ParamParserTest {
+    @Test
+    public void checkParseDoubleSameAsJava() {
+        final String[] values = {
+                "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "52.376514", "4.908542", "-179.999999", "180", ".5", "5.",
+                "0.1", "0.3", "123456789012345", "1234567890123456", "0.000000000000000000001", "0.0000000000000000000001",
+                "1e3", "1E-3", " 1.5", "1.5 ", "NaN", "-Infinity", "0x1p3", "1.5d", "1.5f", "000000000000000000000012.5",
+                "89.99999999999999", "90.00000000000001"};
+        for (final String value : values) {
+            Assert.assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value)),
+                    Double.doubleToRawLongBits(ParamParser.parseDouble(value)));
+        }
+        final Random random = new Random(1);
+        for (int i = 0; i < 100000; ++i) {
+            final String value = String.valueOf((random.nextDouble() * 360.0) - 180.0);
+            final String truncated = value.substring(0, Math.min(value.length(), 3 + random.nextInt(16)));
+            Assert.assertEquals(truncated, Double.parseDouble(truncated), ParamParser.parseDouble(truncated), 0.0);
+        }
+    }
+
+    @Test
+    public void checkParseDoubleInvalid() {
+        for (final String value : new String[]{null, "", "-", "+", ".", "1..2", "1.2.3", "--1", "abc", "1,5"}) {
+            try {
+                ParamParser.parseDouble(value);
+                Assert.fail(value);
+            } catch (final NumberFormatException ignored) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void checkParseLatLonPrecision() throws ApiInvalidFormatException {
+        Assert.assertEquals(52.1, ParamParser.parseLatDeg("52.1"), 0.0);
+        Assert.assertEquals(-90.0, ParamParser.parseLatDeg("-90"), 0.0);
+        Assert.assertEquals(-179.0, ParamParser.parseLonDeg("181"), 0.0);
+        Assert.assertEquals(8, ParamParser.parsePrecision("8"));
+        for (final String value : new String[]{null, "", "90.1", "NaN", "x"}) {
+            try {
+                ParamParser.parseLatDeg(value);
+                Assert.fail(value);
+            } catch (final ApiInvalidFormatException ignored) {
+                // Expected.
+            }
+        }
+        for (final String value : new String[]{null, "", "-1", "9", "1.0"}) {
+            try {
+                ParamParser.parsePrecision(value);
+                Assert.fail(value);
+            } catch (final ApiInvalidFormatException ignored) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void checkParseTypeAndIncludes() throws ApiInvalidFormatException {
+        Assert.assertNull(ParamParser.parseType(null));
+        Assert.assertEquals(ParamType.LOCAL, ParamParser.parseType("local"));
+        Assert.assertEquals(ParamType.LOCAL, ParamParser.parseType("local"));
+        Assert.assertEquals(ParamType.INTERNATIONAL, ParamParser.parseType("International"));
+        Assert.assertEquals(0, ParamParser.parseIncludes(""));
+        Assert.assertEquals(0, ParamParser.parseIncludes(",,"));
+        final int includes = ParamParser.parseIncludes("offset,,Rectangle");
+        Assert.assertEquals(includes, ParamParser.parseIncludes("offset,,Rectangle"));
+        Assert.assertTrue(ParamParser.isIncluded(includes, ParamInclude.OFFSET));
+        Assert.assertFalse(ParamParser.isIncluded(includes, ParamInclude.TERRITORY));
+        Assert.assertFalse(ParamParser.isIncluded(includes, ParamInclude.ALPHABET));
+        Assert.assertTrue(ParamParser.isIncluded(includes, ParamInclude.RECTANGLE));
+        try {
+            ParamParser.parseType("short");
+            Assert.fail();
+        } catch (final ApiInvalidFormatException ignored) {
+            // Expected.
+        }
+        try {
+            ParamParser.parseIncludes("offset,x");
+            Assert.fail();
+        } catch (final ApiInvalidFormatException ignored) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void checkParseFields() throws ApiInvalidFormatException {
+        Assert.assertSame(FieldSelection.ALL, ParamParser.parseFields("", FieldSelection.MAPCODES_FIELDS));
+        Assert.assertSame(FieldSelection.ALL, ParamParser.parseFields(" , ", FieldSelection.MAPCODES_FIELDS));
+        Assert.assertEquals(FieldSelection.ALL_MAPCODE_FIELDS, FieldSelection.ALL.getMapcodeFields("local"));
+
+        // Equal selections are equal, regardless of order and fields which are selected by their parent.
+        final FieldSelection fields = ParamParser.parseFields("international.mapcode, local", FieldSelection.MAPCODES_FIELDS);
+        Assert.assertEquals(fields, ParamParser.parseFields("local,local.territory,international.mapcode", FieldSelection.MAPCODES_FIELDS));
+        Assert.assertEquals(fields.hashCode(), ParamParser.parseFields("local,international.mapcode", FieldSelection.MAPCODES_FIELDS).hashCode());
+        Assert.assertNotEquals(fields, ParamParser.parseFields("local", FieldSelection.MAPCODES_FIELDS));
+        Assert.assertFalse(fields.isAll());
+        Assert.assertEquals(FieldSelection.ALL_MAPCODE_FIELDS, fields.getMapcodeFields("local"));
+        Assert.assertEquals(FieldSelection.MAPCODE, fields.getMapcodeFields("international"));
+        Assert.assertEquals(0, fields.getMapcodeFields("mapcodes"));
+        Assert.assertTrue(fields.isSelected("international"));
+        Assert.assertTrue(fields.isSelected("local.rectangle"));
+        Assert.assertFalse(fields.isSelected("international.territory"));
+        Assert.assertFalse(fields.isSelected("mapcodes"));
+
+        final FieldSelection mapcodeFields = ParamParser.parseFields("territory,rectangle", FieldSelection.MAPCODE_FIELDS);
+        Assert.assertEquals(FieldSelection.TERRITORY | FieldSelection.RECTANGLE, mapcodeFields.getMapcodeFields(null));
+        for (final String invalid : new String[]{"x", "Local", "local.", "local.x", "mapcodes.mapcode.x"}) {
+            try {
+                ParamParser.parseFields(invalid, FieldSelection.MAPCODES_FIELDS);
+                Assert.fail();
+            } catch (final ApiInvalidFormatException ignored) {
+                // Expected.
+            }
+        }
+        try {
+            ParamParser.parseFields("local", FieldSelection.MAPCODE_FIELDS);
+            Assert.fail();
+        } catch (final ApiInvalidFormatException ignored) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void checkUnescapeHtml() {
+        final String value = "NLD";
+        Assert.assertNull(ParamParser.unescapeHtml(null));
+        Assert.assertSame(value, ParamParser.unescapeHtml(value));
+        Assert.assertEquals("US-CA", ParamParser.unescapeHtml("US&#45;CA"));
+    }
+
+    @Test
+    public void checkIsDoubleSameAsJava() {
+        final String[] values = {
+                "1", "-1.5", "+.5", "5.", "1e5", "1E+5", "1e-5", "1.e5", ".5e1", "1.5f", "1.5D", " 1.5 ", "\t1\n",
+                "NaN", "-NaN", "+Infinity", "-Infinity", "0x1p3", "0X1.8P-1", "0x.8p1d", "0x1.p1",
+                "", " ", "-", "+", ".", "e5", ".e5", "1e", "1e+", "1.5ff", "1.5 d", "NaNd", "Infinityf", "0x1", "0x1e3",
+                "0xp1", "1p3", "1..5", "1.5.", "--1", "1-", "\u0661", "1\u0661", "abc", "52,1", "١.٥"};
+        for (final String value : values) {
+            Assert.assertEquals(value, isDoubleInJava(value), ParamParser.isDouble(value));
+        }
+        final Random random = new Random(2);
+        final String chars = "0123456789.-+eEpPxXfFdDaN ";
+        for (int i = 0; i < 100000; ++i) {
+            final StringBuilder value = new StringBuilder();
+            for (int j = random.nextInt(6); j >= 0; --j) {
+                value.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            Assert.assertEquals(value.toString(), isDoubleInJava(value.toString()), ParamParser.isDouble(value.toString()));
+        }
+    }
+
+    @Test
+    public void checkParsePrecisionSameAsJava() {
+        final String[] values = {"0", "8", "-0", "+0", "+8", "0008", "9", "-1", "10", "", "+", "-", "1.0", " 1", "\u0663",
+                "99999999999999999999", "8a"};
+        for (final String value : values) {
+            Assert.assertEquals(value, getPrecisionInJava(value), getPrecision(value));
+        }
+    }
+
+    @Test
+    public void checkIsValidMapcodeFormatSameAsLibrary() {
+        final String[] values = {"XX.XX", "NLD 49.4V", "49.4V-K2", " 49.4V ", "nld 49.4v", "NLD  49.4V", "US-CA 1.X",
+                "49.4V-Z", "49.4V-KKKKKKKKK", "X.X", "XXXXXX.XX", "NLD49.4V", "", ".", "ΑΒ.ΓΔ", "49.4V\n"};
+        for (final String value : values) {
+            Assert.assertEquals(value, Mapcode.isValidMapcodeFormat(value), ParamParser.isValidMapcodeFormat(value));
+        }
+        final Random random = new Random(3);
+        final String chars = "AZaz09.-_ ";
+        for (int i = 0; i < 100000; ++i) {
+            final StringBuilder value = new StringBuilder();
+            for (int j = random.nextInt(12); j >= 0; --j) {
+                value.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            Assert.assertEquals(value.toString(), Mapcode.isValidMapcodeFormat(value.toString()),
+                    ParamParser.isValidMapcodeFormat(value.toString()));
+        }
+    }
+
+    @Test
+    public void checkIsInternationalMapcode() {
+        final String[] invalid = {"NLD VJ0L6.9PNQ", " VJ0L6.9PNQ", "VJ0L6.9PNQ ", "VJ0L6.9PNQ-", "VJ0L6.9PNQ-KKKKKKKKK",
+                "VJ0L69.PNQ", "VJ0L6.9PN", "VJ0L6_9PNQ", "JL0.KP", "", "ΑΒΓΔΕ.ΖΗΘΙ"};
+        for (final String value : invalid) {
+            Assert.assertFalse(value, ParamParser.isInternationalMapcode(value));
+        }
+        final Random random = new Random(5);
+        for (int i = 0; i < 1000; ++i) {
+            final double latDeg = (random.nextDouble() * 180.0) - 90.0;
+            final double lonDeg = (random.nextDouble() * 360.0) - 180.0;
+            for (final Mapcode mapcode : MapcodeCodec.encode(latDeg, lonDeg)) {
+                final boolean international = (mapcode.getTerritory() == Territory.AAA);
+                for (int precision = 0; precision <= 8; ++precision) {
+                    final String code = mapcode.getCode(precision);
+                    Assert.assertEquals(code, international, ParamParser.isInternationalMapcode(code));
+                    Assert.assertEquals(code, international, ParamParser.isInternationalMapcode(code.toLowerCase()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkParseAlphabet() throws ApiInvalidFormatException {
+        Assert.assertNull(ParamParser.parseAlphabet(null));
+        Assert.assertEquals(Alphabet.GREEK, ParamParser.parseAlphabet(" greek "));
+        try {
+            ParamParser.parseAlphabet("klingon");
+            Assert.fail();
+        } catch (final ApiInvalidFormatException ignored) {
+            // Expected.
+        }
+    }
+
+    private static boolean isDoubleInJava(final String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (final NumberFormatException ignored) {
+            return false;
+        }
+    }
+
+    private static int getPrecisionInJava(final String value) {
+        try {
+            final int precision = Integer.parseInt(value);
+            return ((precision >= 0) && (precision <= 8)) ? precision : -1;
+        } catch (final NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    private static int getPrecision(final String value) {
+        try {
+            return ParamParser.parsePrecision(value);
+        } catch (final ApiInvalidFormatException ignored) {
+            return -1;
+        }
+    }
+}
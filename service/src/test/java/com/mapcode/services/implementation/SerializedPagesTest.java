@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Alphabet;
+import com.mapcode.Territory;
+import com.mapcode.services.dto.*;
+import com.tomtom.speedtools.apivalidation.ApiDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+public class SerializedPagesTest {
+
+    @Test
+    public void checkAlphabetPages() {
+        final AlphabetListDTO alphabets = new AlphabetListDTO(Alphabet.values());
+        final BiFunction<Integer, Integer, ApiDTO> createPage = (fromIndex, toIndex) ->
+                new AlphabetsDTO(alphabets.size(), new AlphabetListDTO(alphabets.subList(fromIndex, toIndex)));
+        final SerializedPages<AlphabetDTO> pages = new SerializedPages<>(alphabets, createPage);
+        for (int fromIndex = 0; fromIndex <= alphabets.size(); ++fromIndex) {
+            for (int toIndex = fromIndex; toIndex <= alphabets.size(); ++toIndex) {
+                checkPage(pages, createPage, fromIndex, toIndex);
+            }
+        }
+    }
+
+    @Test
+    public void checkTerritoryPages() {
+        final TerritoryListDTO territories = new TerritoryListDTO(Territory.values());
+        final BiFunction<Integer, Integer, ApiDTO> createPage = (fromIndex, toIndex) ->
+                new TerritoriesDTO(territories.size(), new TerritoryListDTO(territories.subList(fromIndex, toIndex)));
+        final SerializedPages<TerritoryDTO> pages = new SerializedPages<>(territories, createPage);
+        final int size = territories.size();
+        checkPage(pages, createPage, 0, 0);
+        checkPage(pages, createPage, 0, 1);
+        checkPage(pages, createPage, 0, size);
+        checkPage(pages, createPage, size - 1, size);
+        checkPage(pages, createPage, size, size);
+        final Random random = new Random(17);
+        for (int i = 0; i < 100; ++i) {
+            final int fromIndex = random.nextInt(size + 1);
+            final int toIndex = fromIndex + random.nextInt((size - fromIndex) + 1);
+            checkPage(pages, createPage, fromIndex, toIndex);
+        }
+    }
+
+    @Test
+    public void checkETag() {
+        final AlphabetListDTO alphabets = new AlphabetListDTO(Alphabet.values());
+        final SerializedResponse response1 = SerializedResponse.of(alphabets.get(0));
+        final SerializedResponse response2 = SerializedResponse.of(alphabets.get(0));
+        final SerializedResponse response3 = SerializedResponse.of(alphabets.get(1));
+        Assert.assertEquals(response1.getETag(MediaType.APPLICATION_JSON_TYPE), response2.getETag(MediaType.APPLICATION_JSON_TYPE));
+        Assert.assertEquals(response1.getETag(MediaType.APPLICATION_XML_TYPE), response2.getETag(MediaType.APPLICATION_XML_TYPE));
+        Assert.assertNotEquals(response1.getETag(MediaType.APPLICATION_JSON_TYPE), response1.getETag(MediaType.APPLICATION_XML_TYPE));
+        Assert.assertNotEquals(response1.getETag(MediaType.APPLICATION_JSON_TYPE), response3.getETag(MediaType.APPLICATION_JSON_TYPE));
+        Assert.assertTrue(response1.getETag(MediaType.APPLICATION_JSON_TYPE).matches("\"[0-9a-f]+\""));
+    }
+
+    private static void checkPage(
+            final SerializedPages<?> pages,
+            final BiFunction<Integer, Integer, ApiDTO> createPage,
+            final int fromIndex,
+            final int toIndex) {
+        final SerializedResponse page = pages.getPage(fromIndex, toIndex);
+        final ApiDTO expected = createPage.apply(fromIndex, toIndex);
+        Assert.assertArrayEquals(fromIndex + ", " + toIndex, Serializers.toJson(expected), page.getBytes(MediaType.APPLICATION_JSON_TYPE));
+        Assert.assertArrayEquals(fromIndex + ", " + toIndex, Serializers.toXml(expected), page.getBytes(MediaType.APPLICATION_XML_TYPE));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+    private static final int WAITERS = 8;
+
+    @Test
+    public void checkCoalesced() throws Exception {
+        final CountDownLatch coalesced = new CountDownLatch(WAITERS);
+        final SingleFlight<String, Object> flights = new SingleFlight<>(coalesced::countDown);
+        final AtomicInteger computations = new AtomicInteger();
+        final Object value = new Object();
+
+        // The first computation only finishes when all other callers are waiting for it.
+        final ExecutorService executor = Executors.newFixedThreadPool(WAITERS + 1);
+        try {
+            final List<Future<Object>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> flights.execute("key", () -> {
+                computations.incrementAndGet();
+                Assert.assertTrue(coalesced.await(10, TimeUnit.SECONDS));
+                return value;
+            })));
+            while (flights.size() == 0) {
+                Thread.yield();
+            }
+            for (int i = 0; i < WAITERS; ++i) {
+                futures.add(executor.submit(() -> flights.execute("key", () -> {
+                    computations.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            for (final Future<Object> future : futures) {
+                Assert.assertSame(value, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, computations.get());
+        Assert.assertEquals(0, flights.size());
+
+        // A finished computation is not reused.
+        Assert.assertNotSame(value, flights.execute("key", Object::new));
+    }
+
+    @Test
+    public void checkException() throws Exception {
+        final CountDownLatch coalesced = new CountDownLatch(1);
+        final SingleFlight<String, Object> flights = new SingleFlight<>(coalesced::countDown);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Object> first = executor.submit(() -> flights.execute("key", () -> {
+                Assert.assertTrue(coalesced.await(10, TimeUnit.SECONDS));
+                throw new IOException("failed");
+            }));
+            while (flights.size() == 0) {
+                Thread.yield();
+            }
+            final Future<Object> second = executor.submit(() -> flights.execute("key", Object::new));
+            for (final Future<Object> future : Arrays.asList(first, second)) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (final ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IOException);
+                    Assert.assertEquals("failed", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(0, flights.size());
+    }
+
+    @Test
+    public void checkDifferentKeys() {
+        final AtomicInteger coalesced = new AtomicInteger();
+        final SingleFlight<String, String> flights = new SingleFlight<>(coalesced::incrementAndGet);
+        Assert.assertEquals("a", flights.execute("a", () -> flights.execute("b", () -> "b").replace('b', 'a')));
+        Assert.assertEquals(0, coalesced.get());
+    }
+}
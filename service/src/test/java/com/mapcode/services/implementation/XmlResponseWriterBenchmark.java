@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.services.dto.MapcodesDTO;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static com.mapcode.services.implementation.XmlResponseWriterTest.createMapcodes;
+import static com.mapcode.services.implementation.XmlResponseWriterTest.write;
+
+/**
+ * Benchmark of XmlResponseWriter. Not a unit test: run it with "mvn test -Dbenchmark".
+ */
+public class XmlResponseWriterBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(XmlResponseWriterBenchmark.class);
+
+    /**
+     * Compare the time to write mapcodes as XML with JAXB and with the StAX writer. This is a rough
+     * benchmark: it only logs the results.
+     */
+    @Test
+    public void checkPerformance() throws Exception {
+        final int count = 5000;
+        final List<MapcodesDTO> values = createMapcodes(count);
+        long size = 0;
+        for (int round = 0; round < 20; ++round) {
+            long start = System.nanoTime();
+            for (final MapcodesDTO value : values) {
+                size = size + Serializers.toXml(value).length;
+            }
+            final long jaxb = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (final MapcodesDTO value : values) {
+                size = size + write(value).length;
+            }
+            final long stax = System.nanoTime() - start;
+            LOG.info("checkPerformance: write mapcodes with rectangles as XML, JAXB: {} ns, StAX: {} ns",
+                    jaxb / count, stax / count);
+        }
+        Assert.assertTrue(size > 0);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016-2020, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mapcode.services.implementation;
+
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.UnknownMapcodeException;
+import com.mapcode.services.dto.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class XmlResponseWriterTest {
+    private static final XmlResponseWriter WRITER = new XmlResponseWriter();
+
+    @Test
+    public void checkWriteable() {
+        Assert.assertTrue(WRITER.isWriteable(MapcodesDTO.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        Assert.assertTrue(WRITER.isWriteable(MapcodeDTO.class, null, null, MediaType.APPLICATION_XML_TYPE.withCharset("utf-8")));
+        Assert.assertTrue(WRITER.isWriteable(MapcodeListDTO.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        Assert.assertTrue(WRITER.isWriteable(RectangleDTO.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        Assert.assertTrue(WRITER.isWriteable(PointDTO.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        Assert.assertFalse(WRITER.isWriteable(PointDTO.class, null, null, MediaType.APPLICATION_XML_TYPE.withCharset("ISO-8859-1")));
+        Assert.assertFalse(WRITER.isWriteable(TerritoryDTO.class, null, null, MediaType.APPLICATION_XML_TYPE));
+    }
+
+    @Test
+    public void checkSameAsJaxb() throws Exception {
+        final PointDTO point = new PointDTO(52.0, -4.5E-7);
+        final RectangleDTO rectangle = new RectangleDTO(new PointDTO(50.141726, 6.135881400000001), new PointDTO(50.1417, 6.1359));
+        final RectangleDTO rectangleWithoutCenter = new RectangleDTO(point, point, null);
+        final MapcodeDTO mapcode = new MapcodeDTO("JL0.KP", "ЛЛ0.КП", "LUX", "ЛУХ", 0.0, rectangle);
+        final MapcodeDTO mapcodeEscaped = new MapcodeDTO("a&b<c>d\"e'f\r\ng\th\r", "", null, null, Double.NaN, null);
+        final List<MapcodeDTO> mapcodes = new ArrayList<>();
+        mapcodes.add(mapcode);
+        mapcodes.add(new MapcodeDTO("VJ0L6.9PNQ"));
+        checkSame(point);
+        checkSame(new PointDTO(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY));
+        checkSame(rectangle);
+        checkSame(rectangleWithoutCenter);
+        checkSame(mapcode);
+        checkSame(mapcodeEscaped);
+        checkSame(new MapcodeListDTO(mapcodes));
+        checkSame(new MapcodeListDTO(Collections.emptyList()));
+        checkSame(new MapcodesDTO(mapcode, mapcodeEscaped, mapcodes));
+        checkSame(new MapcodesDTO(null, mapcode, Collections.emptyList()));
+        for (final MapcodesDTO value : createMapcodes(1000)) {
+            checkSame(value);
+        }
+
+        // A document which is larger than the buffers, and is written twice by the same thread.
+        final List<MapcodeDTO> manyMapcodes = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            manyMapcodes.add(mapcode);
+        }
+        checkSame(new MapcodeListDTO(manyMapcodes));
+        checkSame(new MapcodeListDTO(manyMapcodes));
+        checkSame(point);
+    }
+
+    private static void checkSame(final Object value) throws IOException {
+        Assert.assertEquals(new String(Serializers.toXml(value), StandardCharsets.UTF_8),
+                new String(write(value), StandardCharsets.UTF_8));
+    }
+
+    static byte[] write(final Object value) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        WRITER.writeTo(value, value.getClass(), null, null, MediaType.APPLICATION_XML_TYPE, null, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    // Create responses like GET /mapcode/codes/{lat,lon}?include=offset,rectangle&alphabet=greek.
+    static List<MapcodesDTO> createMapcodes(final int count) throws UnknownMapcodeException {
+        final Random random = new Random(29);
+        final List<MapcodesDTO> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final double latDeg = 35.0 + (random.nextDouble() * 25.0);
+            final double lonDeg = -10.0 + (random.nextDouble() * 40.0);
+            final List<MapcodeDTO> mapcodes = new ArrayList<>();
+            for (final Mapcode mapcode : MapcodeCodec.encode(latDeg, lonDeg)) {
+                mapcodes.add(createMapcode(mapcode, random));
+            }
+            final MapcodeDTO international = createMapcode(MapcodeCodec.encodeToInternational(latDeg, lonDeg), random);
+            values.add(new MapcodesDTO(mapcodes.isEmpty() ? null : mapcodes.get(0), international, mapcodes));
+        }
+        return values;
+    }
+
+    private static MapcodeDTO createMapcode(final Mapcode mapcode, final Random random) throws UnknownMapcodeException {
+        return new MapcodeDTO(
+                mapcode.getCode(),
+                mapcode.getCode(Alphabet.GREEK),
+                mapcode.getTerritory().toString(),
+                null,
+                random.nextDouble() * 10.0,
+                new RectangleDTO(MapcodeCodec.decodeToRectangle(mapcode.getCodeWithTerritory())));
+    }
+}